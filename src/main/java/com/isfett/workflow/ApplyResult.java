@@ -0,0 +1,55 @@
+package com.isfett.workflow;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+final public class ApplyResult {
+    private final Object subject;
+    private final Marking marking;
+    private final List<TransitionBlocker> transitionBlockers;
+    private final RuntimeException exception;
+
+    private ApplyResult(@NotNull Object subject, Marking marking, @NotNull List<TransitionBlocker> transitionBlockers, RuntimeException exception) {
+        this.subject = subject;
+        this.marking = marking;
+        this.transitionBlockers = transitionBlockers;
+        this.exception = exception;
+    }
+
+    public static @NotNull ApplyResult createApplied(@NotNull Object subject, @NotNull Marking marking) {
+        return new ApplyResult(subject, marking, List.of(), null);
+    }
+
+    public static @NotNull ApplyResult createBlocked(@NotNull Object subject, @NotNull List<TransitionBlocker> transitionBlockers) {
+        return new ApplyResult(subject, null, transitionBlockers, null);
+    }
+
+    public static @NotNull ApplyResult createFailed(@NotNull Object subject, @NotNull RuntimeException exception) {
+        return new ApplyResult(subject, null, List.of(), exception);
+    }
+
+    public @NotNull Boolean isApplied() {
+        return null != this.marking;
+    }
+
+    public @NotNull Boolean isBlocked() {
+        return !this.transitionBlockers.isEmpty();
+    }
+
+    public @NotNull Object getSubject() {
+        return subject;
+    }
+
+    // the marking after the transition was applied, null when it was not
+    public Marking getMarking() {
+        return marking;
+    }
+
+    public @NotNull List<TransitionBlocker> getTransitionBlockers() {
+        return transitionBlockers;
+    }
+
+    public RuntimeException getException() {
+        return exception;
+    }
+}
@@ -0,0 +1,151 @@
+package com.isfett.workflow;
+
+import com.isfett.workflow.exception.PlaceNotFoundInDefinitionException;
+import org.hibernate.validator.constraints.NotEmpty;
+
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class BitSetMarking extends Marking {
+    private final Definition definition;
+    private final long[] words;
+
+    public BitSetMarking(@NotNull Definition definition) {
+        this.definition = definition;
+        this.words = new long[getWordCount(definition)];
+    }
+
+    public BitSetMarking(@NotNull Definition definition, @NotNull long[] words) {
+        this.definition = definition;
+        this.words = Arrays.copyOf(words, getWordCount(definition));
+    }
+
+    public BitSetMarking(@NotNull Definition definition, @NotEmpty List<String> places) {
+        this(definition);
+        places.forEach(this::mark);
+    }
+
+    public static int getWordCount(@NotNull Definition definition) {
+        return (definition.getPlaceCount() + 63) >>> 6;
+    }
+
+    @Override
+    public void mark(@NotNull String place) {
+        this.mark(this.getPlaceId(place));
+    }
+
+    public void mark(int placeId) {
+        this.words[placeId >>> 6] |= 1L << placeId;
+    }
+
+    @Override
+    public void unmark(@NotNull String place) {
+        this.unmark(this.getPlaceId(place));
+    }
+
+    public void unmark(int placeId) {
+        this.words[placeId >>> 6] &= ~(1L << placeId);
+    }
+
+    @Override
+    public @NotNull Boolean has(@NotNull String place) {
+        Integer placeId = this.definition.getPlaceId(place);
+
+        return null != placeId && this.has(placeId);
+    }
+
+    public boolean has(int placeId) {
+        return 0 != (this.words[placeId >>> 6] & (1L << placeId));
+    }
+
+    public boolean hasAll(@NotNull long[] mask) {
+        for (int i = 0; i < mask.length; i++) {
+            if ((this.words[i] & mask[i]) != mask[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public void markAll(@NotNull long[] mask) {
+        for (int i = 0; i < mask.length; i++) {
+            this.words[i] |= mask[i];
+        }
+    }
+
+    public void unmarkAll(@NotNull long[] mask) {
+        for (int i = 0; i < mask.length; i++) {
+            this.words[i] &= ~mask[i];
+        }
+    }
+
+    // returns the next marked place id starting at fromPlaceId, or -1 when there is none
+    public int nextPlaceId(int fromPlaceId) {
+        int wordIndex = fromPlaceId >>> 6;
+        if (wordIndex >= this.words.length) {
+            return -1;
+        }
+
+        long word = this.words[wordIndex] & (-1L << fromPlaceId);
+        while (true) {
+            if (0 != word) {
+                return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex == this.words.length) {
+                return -1;
+            }
+            word = this.words[wordIndex];
+        }
+    }
+
+    @Override
+    public @NotNull Boolean isEmpty() {
+        for (long word : this.words) {
+            if (0 != word) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public @NotEmpty List<String> getPlaces() {
+        List<String> places = new ArrayList<>();
+        for (int placeId = this.nextPlaceId(0); placeId >= 0; placeId = this.nextPlaceId(placeId + 1)) {
+            places.add(this.definition.getPlaceName(placeId));
+        }
+
+        return places;
+    }
+
+    public @NotNull Definition getDefinition() {
+        return definition;
+    }
+
+    public @NotNull long[] toLongArray() {
+        return this.words.clone();
+    }
+
+    // copies the words without allocating, the target needs at least getWordCount(definition) elements
+    public void copyInto(@NotNull long[] target) {
+        System.arraycopy(this.words, 0, target, 0, this.words.length);
+    }
+
+    @Override
+    public @NotNull BitSetMarking copy() {
+        return new BitSetMarking(this.definition, this.words);
+    }
+
+    private int getPlaceId(@NotNull String place) {
+        Integer placeId = this.definition.getPlaceId(place);
+        if (null == placeId) {
+            throw new PlaceNotFoundInDefinitionException(place);
+        }
+
+        return placeId;
+    }
+}
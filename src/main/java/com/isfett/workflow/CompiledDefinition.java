@@ -0,0 +1,129 @@
+package com.isfett.workflow;
+
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class CompiledDefinition {
+    private static final int[] NO_TRANSITION_IDS = new int[0];
+
+    private final Transition[] transitions;
+    private final long[][] fromMasks;
+    private final long[][] toMasks;
+    private final Map<String, int[]> transitionIdsByName;
+    private final Map<String, List<Transition>> transitionsByName;
+    private final Map<Transition, Integer> transitionIds = new IdentityHashMap<>();
+    private final BitSet[] outgoingTransitionIds;
+    private final List<List<Transition>> outgoingTransitions;
+    private final BitSet transitionIdsWithoutFroms = new BitSet();
+
+    public CompiledDefinition(@NotNull Definition definition) {
+        this.transitions = definition.getTransitions().toArray(new Transition[0]);
+        this.fromMasks = new long[this.transitions.length][];
+        this.toMasks = new long[this.transitions.length][];
+        for (int transitionId = 0; transitionId < this.transitions.length; transitionId++) {
+            this.fromMasks[transitionId] = createMask(definition, this.transitions[transitionId].getFroms());
+            this.toMasks[transitionId] = createMask(definition, this.transitions[transitionId].getTos());
+        }
+
+        Map<String, List<Integer>> idsByName = new HashMap<>();
+        for (int transitionId = 0; transitionId < this.transitions.length; transitionId++) {
+            this.transitionIds.put(this.transitions[transitionId], transitionId);
+            idsByName.computeIfAbsent(this.transitions[transitionId].getName(), (String name) -> new ArrayList<>()).add(transitionId);
+        }
+
+        Map<String, int[]> transitionIdsByName = new HashMap<>();
+        Map<String, List<Transition>> transitionsByName = new HashMap<>();
+        idsByName.forEach((String name, List<Integer> ids) -> {
+            int[] transitionIds = ids.stream().mapToInt(Integer::intValue).toArray();
+            List<Transition> namedTransitions = new ArrayList<>();
+            for (int transitionId : transitionIds) {
+                namedTransitions.add(this.transitions[transitionId]);
+            }
+
+            transitionIdsByName.put(name, transitionIds);
+            transitionsByName.put(name, List.copyOf(namedTransitions));
+        });
+
+        this.transitionIdsByName = Map.copyOf(transitionIdsByName);
+        this.transitionsByName = Map.copyOf(transitionsByName);
+
+        this.outgoingTransitionIds = new BitSet[definition.getPlaceCount()];
+        for (int placeId = 0; placeId < this.outgoingTransitionIds.length; placeId++) {
+            this.outgoingTransitionIds[placeId] = new BitSet(this.transitions.length);
+        }
+        for (int transitionId = 0; transitionId < this.transitions.length; transitionId++) {
+            if (this.transitions[transitionId].getFroms().isEmpty()) {
+                this.transitionIdsWithoutFroms.set(transitionId);
+            }
+
+            for (String from : this.transitions[transitionId].getFroms()) {
+                this.outgoingTransitionIds[definition.getPlaceId(from)].set(transitionId);
+            }
+        }
+
+        List<List<Transition>> outgoingTransitions = new ArrayList<>();
+        for (BitSet transitionIds : this.outgoingTransitionIds) {
+            outgoingTransitions.add(List.copyOf(transitionIds.stream().mapToObj(this::getTransition).toList()));
+        }
+        this.outgoingTransitions = List.copyOf(outgoingTransitions);
+    }
+
+    public int getTransitionCount() {
+        return this.transitions.length;
+    }
+
+    public @NotNull Transition getTransition(int transitionId) {
+        return this.transitions[transitionId];
+    }
+
+    // null if the transition is not part of the definition
+    public Integer getTransitionId(@NotNull Transition transition) {
+        return this.transitionIds.get(transition);
+    }
+
+    public @NotNull Boolean hasTransition(@NotNull String transitionName) {
+        return this.transitionIdsByName.containsKey(transitionName);
+    }
+
+    public @NotNull List<Transition> getTransitions(@NotNull String transitionName) {
+        return this.transitionsByName.getOrDefault(transitionName, List.of());
+    }
+
+    public @NotNull List<Transition> getOutgoingTransitions(int placeId) {
+        return this.outgoingTransitions.get(placeId);
+    }
+
+    // a transition can only be enabled when one of its from places is marked, so only these need to be checked
+    @NotNull BitSet getCandidateTransitionIds(@NotNull BitSetMarking marking) {
+        BitSet candidateTransitionIds = (BitSet) this.transitionIdsWithoutFroms.clone();
+        for (int placeId = marking.nextPlaceId(0); placeId >= 0; placeId = marking.nextPlaceId(placeId + 1)) {
+            candidateTransitionIds.or(this.outgoingTransitionIds[placeId]);
+        }
+
+        return candidateTransitionIds;
+    }
+
+    // the place id words of the from and to places, like BitSetMarking keeps them. the arrays are shared, the caller must not modify them
+    public @NotNull long[] getFromMask(int transitionId) {
+        return this.fromMasks[transitionId];
+    }
+
+    public @NotNull long[] getToMask(int transitionId) {
+        return this.toMasks[transitionId];
+    }
+
+    @NotNull int[] getTransitionIds(@NotNull String transitionName) {
+        return this.transitionIdsByName.getOrDefault(transitionName, NO_TRANSITION_IDS);
+    }
+
+    private static @NotNull long[] createMask(@NotNull Definition definition, @NotNull List<String> places) {
+        BitSetMarking mask = new BitSetMarking(definition, places);
+
+        return mask.toLongArray();
+    }
+}
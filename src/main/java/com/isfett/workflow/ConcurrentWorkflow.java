@@ -0,0 +1,125 @@
+package com.isfett.workflow;
+
+import com.isfett.workflow.event.EventListenerInterface;
+import com.isfett.workflow.exception.InvalidLockStripeCountException;
+import com.isfett.workflow.markingstore.MarkingStoreInterface;
+import org.hibernate.validator.constraints.NotEmpty;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+// serializes all calls for the same subject, calls for other subjects only wait when they share a lock stripe.
+// without a subject key every instance is its own subject, with one all instances with an equal key share a lock
+public class ConcurrentWorkflow implements WorkflowInterface {
+
+    private final WorkflowInterface workflow;
+    private final ReentrantLock[] locks;
+    private final int stripeMask;
+    private final ToIntFunction<Object> subjectHasher;
+
+    public ConcurrentWorkflow(@NotNull WorkflowInterface workflow, int stripeCount, @NotNull Function<Object, ?> subjectKeyExtractor) {
+        this(workflow, stripeCount, (Object subject) -> Objects.hashCode(subjectKeyExtractor.apply(subject)));
+    }
+
+    public ConcurrentWorkflow(@NotNull WorkflowInterface workflow, int stripeCount) {
+        this(workflow, stripeCount, System::identityHashCode);
+    }
+
+    public ConcurrentWorkflow(@NotNull WorkflowInterface workflow) {
+        this(workflow, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    private ConcurrentWorkflow(@NotNull WorkflowInterface workflow, int stripeCount, @NotNull ToIntFunction<Object> subjectHasher) {
+        if (stripeCount < 1) {
+            throw new InvalidLockStripeCountException(stripeCount);
+        }
+
+        this.workflow = workflow;
+        this.subjectHasher = subjectHasher;
+        this.locks = new ReentrantLock[Stripes.getCount(stripeCount)];
+        this.stripeMask = this.locks.length - 1;
+        for (int i = 0; i < this.locks.length; i++) {
+            this.locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public void addEventListener(@NotNull EventListenerInterface eventListener, @NotEmpty List<String> subscribedEventNames) {
+        this.workflow.addEventListener(eventListener, subscribedEventNames);
+    }
+
+    @Override
+    public @NotNull Marking getMarking(@NotNull Object subject) {
+        return this.withLock(subject, () -> this.workflow.getMarking(subject));
+    }
+
+    @Override
+    public @NotNull Boolean can(@NotNull Object subject, @NotNull String transitionName) {
+        return this.withLock(subject, () -> this.workflow.can(subject, transitionName));
+    }
+
+    @Override
+    public @NotNull List<TransitionBlocker> buildTransitionBlockerList(@NotNull Object subject, @NotNull String transitionName) {
+        return this.withLock(subject, () -> this.workflow.buildTransitionBlockerList(subject, transitionName));
+    }
+
+    @Override
+    public @NotNull Marking apply(@NotNull Object subject, @NotNull String transitionName) {
+        return this.withLock(subject, () -> this.workflow.apply(subject, transitionName));
+    }
+
+    @Override
+    public @NotNull List<Transition> getEnabledTransitions(@NotNull Object subject) {
+        return this.withLock(subject, () -> this.workflow.getEnabledTransitions(subject));
+    }
+
+    @Override
+    public Transition getEnabledTransition(@NotNull Object subject, @NotNull String transitionName) {
+        return this.withLock(subject, () -> this.workflow.getEnabledTransition(subject, transitionName));
+    }
+
+    @Override
+    public @NotNull String getName() {
+        return this.workflow.getName();
+    }
+
+    @Override
+    public @NotNull Definition getDefinition() {
+        return this.workflow.getDefinition();
+    }
+
+    @Override
+    public @NotNull MarkingStoreInterface getMarkingStore() {
+        return this.workflow.getMarkingStore();
+    }
+
+    public @NotNull WorkflowInterface getWorkflow() {
+        return workflow;
+    }
+
+    public int getStripeCount() {
+        return this.locks.length;
+    }
+
+    // the locks are reentrant, so listeners may call back into the workflow for the same subject
+    private <T> T withLock(@NotNull Object subject, @NotNull Supplier<T> action) {
+        ReentrantLock lock = this.getLock(subject);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private @NotNull ReentrantLock getLock(@NotNull Object subject) {
+        int hash = this.subjectHasher.applyAsInt(subject);
+
+        return this.locks[Stripes.getIndex(hash, this.stripeMask)];
+    }
+}
@@ -12,8 +12,11 @@ import java.util.Map;
 
 public class Definition {
     private final Map<String, String> places = new HashMap<>();
+    private final Map<String, Integer> placeIds = new HashMap<>();
+    private final List<String> placeNames = new ArrayList<>();
     private final List<Transition> transitions = new ArrayList<>();
     private Map<Integer, String> initialPlaces = new HashMap<>();
+    private final CompiledDefinition compiledDefinition;
 
     public Definition(@NotNull List<String> places, @NotNull List<Transition> transitions,
         @NotNull List<String> initialPlaces) {
@@ -25,12 +28,26 @@ public class Definition {
             this.initialPlaces = new HashMap<>();
         }
         this.setInitialPlaces(initialPlaces);
+
+        this.compiledDefinition = new CompiledDefinition(this);
     }
 
     public @NotEmpty Map<String, String> getPlaces() {
         return places;
     }
 
+    public Integer getPlaceId(@NotNull String place) {
+        return placeIds.get(place);
+    }
+
+    public @NotNull String getPlaceName(int placeId) {
+        return placeNames.get(placeId);
+    }
+
+    public int getPlaceCount() {
+        return placeNames.size();
+    }
+
     public @NotEmpty Map<Integer, String> getInitialPlaces() {
         return initialPlaces;
     }
@@ -54,11 +71,20 @@ public class Definition {
         return transitions;
     }
 
+    public @NotNull CompiledDefinition getCompiledDefinition() {
+        return compiledDefinition;
+    }
+
     private void addPlace(@NotNull String place) {
         if (this.places.size() == 0) {
             this.initialPlaces.put(this.initialPlaces.size(), place);
         }
 
+        if (!this.places.containsKey(place)) {
+            this.placeIds.put(place, this.placeNames.size());
+            this.placeNames.add(place);
+        }
+
         this.places.put(place, place);
     }
 
@@ -4,17 +4,24 @@ import org.hibernate.validator.constraints.NotEmpty;
 
 import javax.validation.constraints.NotNull;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class Marking {
-    private final Map<String, Integer> places = new HashMap<>();
+    private final Map<String, Integer> places;
 
     public Marking(@NotEmpty List<String> places) {
+        this.places = new HashMap<>();
         places.forEach(this::mark);
     }
 
+    // used by subclasses which keep their places in their own representation
+    protected Marking() {
+        this.places = Collections.emptyMap();
+    }
+
     public void mark(@NotNull String place) {
         this.places.put(place, 1);
     }
@@ -27,6 +34,15 @@ public class Marking {
         return this.places.containsKey(place);
     }
 
+    public @NotNull Boolean isEmpty() {
+        return this.places.isEmpty();
+    }
+
+    // a copy that doesn't change with this marking, subclasses return a copy of their own representation
+    public @NotNull Marking copy() {
+        return new Marking(this.getPlaces());
+    }
+
     public @NotEmpty List<String> getPlaces() {
         return new ArrayList<>(this.places.keySet());
     }
@@ -0,0 +1,22 @@
+package com.isfett.workflow;
+
+// the lock stripes of ConcurrentWorkflow and the lanes of AsyncEventDispatcher, their count is a power of two so a subject
+// hash picks one with a mask
+public final class Stripes {
+    public static final int MAX_COUNT = 1 << 16;
+
+    private Stripes() {
+    }
+
+    // rounded up to the next power of two, at most MAX_COUNT
+    public static int getCount(int requestedCount) {
+        int powerOfTwo = Integer.highestOneBit(Math.min(requestedCount, MAX_COUNT));
+
+        return powerOfTwo < requestedCount && powerOfTwo < MAX_COUNT ? powerOfTwo << 1 : powerOfTwo;
+    }
+
+    // the high bits are mixed in, a hash that only differs above the mask still picks another stripe
+    public static int getIndex(int hash, int mask) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -3,9 +3,16 @@ package com.isfett.workflow;
 import com.isfett.workflow.event.*;
 import com.isfett.workflow.exception.*;
 import com.isfett.workflow.markingstore.MarkingStoreInterface;
+import com.isfett.workflow.markingstore.VersionedMarking;
+import com.isfett.workflow.markingstore.VersionedMarkingStoreInterface;
+import com.isfett.workflow.ringbuffer.RingBufferEventPublisher;
 
 import javax.validation.constraints.NotNull;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 import org.hibernate.validator.constraints.NotEmpty;
 
 public class Workflow implements WorkflowInterface {
@@ -17,36 +24,51 @@ public class Workflow implements WorkflowInterface {
         COMPLETED,
         ANNOUNCE
     }
+    private static final int BATCH_SIZE = 1000;
+
     protected final Definition definition;
+    protected final CompiledDefinition compiledDefinition;
     protected final MarkingStoreInterface markingStore;
     protected String name = "unnamed";
     protected EventDispatcherInterface eventDispatcher;
     protected List<events> eventsToDispatch = List.of(events.values());
+    private final WorkflowEventNames eventNames;
+    private final LongAdder applyRetryCount = new LongAdder();
+    private int maxApplyAttempts = 16;
+    private RingBufferEventPublisher eventPublisher;
 
     public Workflow(@NotNull Definition definition, @NotNull MarkingStoreInterface markingStore, @NotNull String name, @NotNull EventDispatcherInterface eventDispatcher, List<events> eventsToDispatch) {
         this.definition = definition;
+        this.compiledDefinition = definition.getCompiledDefinition();
         this.markingStore = markingStore;
         this.name = name;
         this.eventDispatcher = eventDispatcher;
         this.eventsToDispatch = eventsToDispatch;
+        this.eventNames = new WorkflowEventNames(this.name, definition);
     }
 
     public Workflow(@NotNull Definition definition, @NotNull MarkingStoreInterface markingStore, @NotNull String name, @NotNull EventDispatcherInterface eventDispatcher) {
         this.definition = definition;
+        this.compiledDefinition = definition.getCompiledDefinition();
         this.markingStore = markingStore;
         this.name = name;
         this.eventDispatcher = eventDispatcher;
+        this.eventNames = new WorkflowEventNames(this.name, definition);
     }
 
     public Workflow(@NotNull Definition definition, @NotNull MarkingStoreInterface markingStore, @NotNull String name) {
         this.definition = definition;
+        this.compiledDefinition = definition.getCompiledDefinition();
         this.markingStore = markingStore;
         this.name = name;
+        this.eventNames = new WorkflowEventNames(this.name, definition);
     }
 
     public Workflow(@NotNull Definition definition, @NotNull MarkingStoreInterface markingStore) {
         this.definition = definition;
+        this.compiledDefinition = definition.getCompiledDefinition();
         this.markingStore = markingStore;
+        this.eventNames = new WorkflowEventNames(this.name, definition);
     }
 
     public void addEventListener(@NotNull EventListenerInterface eventListener, @NotEmpty List<String> subscribedEventNames) {
@@ -54,48 +76,16 @@ public class Workflow implements WorkflowInterface {
     }
 
     public @NotNull Marking getMarking(@NotNull Object subject) {
-        Marking marking = this.markingStore.getMarking(subject);
-
-        // check if the subject is already in the workflow
-        if (marking.getPlaces().isEmpty()) {
-            if (this.definition.getInitialPlaces().isEmpty()) {
-                throw new MarkingIsEmptyAndNoInitialPlaceFoundException(this.name);
-            }
-
-            this.definition.getInitialPlaces().values().forEach(marking::mark);
-
-            this.markingStore.setMarking(subject, marking);
-
-            this.entered(subject, null, marking);
-        }
-
-        // check that the subject has a known place
-        Map<String, String> definitionPlaces = this.definition.getPlaces();
-        if (definitionPlaces.isEmpty()) {
-            throw new NoPlacesDefinedException();
-        }
-        marking.getPlaces().forEach((String markingPlace) -> {
-            if (!definitionPlaces.containsKey(markingPlace)) {
-                throw new PlaceNotValidForWorkflowException(markingPlace, this.name);
-            }
-        });
-
-        return marking;
+        return this.getBitSetMarking(subject);
     }
 
     @Override
     public @NotNull Boolean can(@NotNull Object subject, @NotNull String transitionName) {
-        List<Transition> transitions = this.definition.getTransitions();
-        Marking marking = this.getMarking(subject);
+        int[] transitionIds = this.compiledDefinition.getTransitionIds(transitionName);
+        BitSetMarking marking = this.getBitSetMarking(subject);
 
-        for (Transition transition : transitions) {
-            if (!transitionName.equals(transition.getName())) {
-                continue;
-            }
-
-            List<TransitionBlocker> transitionBlockers = this.buildTransitionBlockerListForTransition(subject, marking, transition);
-
-            if (transitionBlockers.isEmpty()) {
+        for (int transitionId : transitionIds) {
+            if (this.isTransitionEnabled(subject, marking, transitionId)) {
                 return true;
             }
         }
@@ -105,16 +95,12 @@ public class Workflow implements WorkflowInterface {
 
     @Override
     public @NotNull List<TransitionBlocker> buildTransitionBlockerList(@NotNull Object subject, @NotNull String transitionName) {
-        List<Transition> transitions = this.definition.getTransitions();
-        Marking marking = this.getMarking(subject);
+        int[] transitionIds = this.compiledDefinition.getTransitionIds(transitionName);
+        BitSetMarking marking = this.getBitSetMarking(subject);
         List<TransitionBlocker> transitionBlockers = new ArrayList<>();
 
-        for (Transition transition : transitions) {
-            if (!transition.getName().equals(transitionName)) {
-                continue;
-            }
-
-            transitionBlockers = this.buildTransitionBlockerListForTransition(subject, marking, transition);
+        for (int transitionId : transitionIds) {
+            transitionBlockers = this.buildTransitionBlockerListForTransition(subject, marking, transitionId);
 
             if (transitionBlockers.isEmpty()) {
                 return transitionBlockers;
@@ -130,88 +116,136 @@ public class Workflow implements WorkflowInterface {
 
     @Override
     public @NotNull Marking apply(@NotNull Object subject, @NotNull String transitionName) {
-        Marking marking = this.getMarking(subject);
-        List<Transition> transitions = this.definition.getTransitions();
+        if (this.markingStore instanceof VersionedMarkingStoreInterface versionedMarkingStore) {
+            return this.applyOptimistically(subject, transitionName, versionedMarkingStore);
+        }
 
-        boolean transitionExist = false;
-        List<Transition> approvedTransitions = new ArrayList<>();
+        BitSetMarking marking = this.getBitSetMarking(subject);
+        int[] approvedTransitionIds = this.getApprovedTransitionIds(subject, transitionName, marking);
 
-        for (Transition transition : transitions) {
-            if (!transitionName.equals(transition.getName())) {
-                continue;
-            }
+        this.applyTransitions(subject, approvedTransitionIds, marking);
 
-            transitionExist = true;
+        return marking;
+    }
 
-            List<TransitionBlocker> transitionBlockers = this.buildTransitionBlockerListForTransition(subject, marking, transition);
+    // the markings are read and written in batches, a subject id of the store that occurs twice starts a new batch so the
+    // second subject sees the first write.
+    // versioned stores are not batched, every subject is applied with its own compare and set and retried like apply does
+    @Override
+    public @NotNull List<ApplyResult> applyAll(@NotNull Collection<?> subjects, @NotNull String transitionName) {
+        int[] transitionIds = this.getTransitionIds(transitionName);
 
-            if (transitionBlockers.isEmpty()) {
-                approvedTransitions.add(transition);
-            }
+        if (this.markingStore instanceof VersionedMarkingStoreInterface) {
+            return WorkflowInterface.super.applyAll(subjects, transitionName);
         }
 
-        if (!transitionExist) {
-            throw new TransitionUndefinedException(transitionName, this.name);
-        }
+        List<ApplyResult> results = new ArrayList<>(subjects.size());
+        List<Object> batch = new ArrayList<>(Math.min(subjects.size(), BATCH_SIZE));
+        Set<Object> batchSubjectIds = new HashSet<>();
+
+        for (Object subject : subjects) {
+            Object subjectId = this.getSubjectId(subject);
+            if (BATCH_SIZE == batch.size() || !batchSubjectIds.add(subjectId)) {
+                this.applyBatch(batch, transitionName, transitionIds, results);
+                batch.clear();
+                batchSubjectIds.clear();
+                batchSubjectIds.add(subjectId);
+            }
 
-        if (0 == approvedTransitions.size()) {
-            throw new TransitionNotEnabledException(transitionName, this.name);
+            batch.add(subject);
         }
 
-        for (Transition transition : approvedTransitions) {
-            this.leave(subject, transition, marking);
-
-            this.transition(subject, transition, marking);
-
-            this.enter(subject, transition, marking);
-
-            this.markingStore.setMarking(subject, marking);
+        if (!batch.isEmpty()) {
+            this.applyBatch(batch, transitionName, transitionIds, results);
+        }
 
-            this.entered(subject, transition, marking);
+        return results;
+    }
 
-            this.completed(subject, transition, marking);
+    // the batches run in parallel on the pool, so the same subject must not occur more than once and listeners must be thread safe
+    public @NotNull List<ApplyResult> applyAll(@NotNull Collection<?> subjects, @NotNull String transitionName, @NotNull ForkJoinPool pool) {
+        this.getTransitionIds(transitionName);
 
-            this.announce(subject, transition, marking);
+        List<ForkJoinTask<List<ApplyResult>>> tasks = new ArrayList<>();
+        for (List<Object> batch : createBatches(subjects)) {
+            tasks.add(pool.submit(() -> this.applyAll(batch, transitionName)));
         }
 
-        return marking;
+        return joinAll(tasks, subjects.size());
     }
 
     @Override
     public @NotNull List<Transition> getEnabledTransitions(@NotNull Object subject) {
         List<Transition> enabledTransitions = new ArrayList<>();
-        Marking marking = this.getMarking(subject);
 
-        for (Transition transition : this.definition.getTransitions()) {
-            List<TransitionBlocker> transitionBlockers = this.buildTransitionBlockerListForTransition(subject, marking, transition);
+        for (int transitionId : this.getEnabledTransitionIds(subject, this.getBitSetMarking(subject))) {
+            enabledTransitions.add(this.compiledDefinition.getTransition(transitionId));
+        }
 
-            if (transitionBlockers.isEmpty()) {
-                enabledTransitions.add(transition);
-            }
+        return enabledTransitions;
+    }
+
+    // the enabled transitions of every subject in the given order, guard results of subject independent guards are shared
+    public @NotNull List<List<Transition>> getEnabledTransitionsForAll(@NotNull Collection<?> subjects) {
+        SharedGuardResults sharedGuardResults = this.createSharedGuardResults();
+        List<List<Transition>> enabledTransitions = new ArrayList<>(subjects.size());
+
+        for (List<Object> batch : createBatches(subjects)) {
+            enabledTransitions.addAll(this.getEnabledTransitionsForBatch(batch, sharedGuardResults));
         }
 
         return enabledTransitions;
     }
 
+    // the batches run in parallel on the pool, so guard listeners must be thread safe
+    public @NotNull List<List<Transition>> getEnabledTransitionsForAll(@NotNull Collection<?> subjects, @NotNull ForkJoinPool pool) {
+        SharedGuardResults sharedGuardResults = this.createSharedGuardResults();
+
+        List<ForkJoinTask<List<List<Transition>>>> tasks = new ArrayList<>();
+        for (List<Object> batch : createBatches(subjects)) {
+            tasks.add(pool.submit(() -> this.getEnabledTransitionsForBatch(batch, sharedGuardResults)));
+        }
+
+        return joinAll(tasks, subjects.size());
+    }
+
     @Override
     public Transition getEnabledTransition(@NotNull Object subject, @NotNull String transitionName) {
-        Marking marking = this.getMarking(subject);
+        BitSetMarking marking = this.getBitSetMarking(subject);
 
-        for (Transition transition : this.definition.getTransitions()) {
-            if (!transition.getName().equals(transitionName)) {
-                continue;
+        for (int transitionId : this.compiledDefinition.getTransitionIds(transitionName)) {
+            if (this.isTransitionEnabled(subject, marking, transitionId)) {
+                return this.compiledDefinition.getTransition(transitionId);
             }
+        }
 
-            List<TransitionBlocker> transitionBlockers = this.buildTransitionBlockerListForTransition(subject, marking, transition);
+        return null;
+    }
 
-            if (!transitionBlockers.isEmpty()) {
-                continue;
-            }
+    // the number of times apply had to start over because a versioned marking store reported a concurrent change
+    public long getApplyRetryCount() {
+        return this.applyRetryCount.sum();
+    }
+
+    public int getMaxApplyAttempts() {
+        return maxApplyAttempts;
+    }
 
-            return transition;
+    public void setMaxApplyAttempts(int maxApplyAttempts) {
+        if (maxApplyAttempts < 1) {
+            throw new InvalidApplyAttemptsException(maxApplyAttempts);
         }
 
-        return null;
+        this.maxApplyAttempts = maxApplyAttempts;
+    }
+
+    public RingBufferEventPublisher getEventPublisher() {
+        return eventPublisher;
+    }
+
+    // events are published to the ring buffer in addition to the dispatcher, guard events are never published
+    public void setEventPublisher(RingBufferEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -219,6 +253,10 @@ public class Workflow implements WorkflowInterface {
         return definition;
     }
 
+    public @NotNull CompiledDefinition getCompiledDefinition() {
+        return compiledDefinition;
+    }
+
     @Override
     public @NotNull MarkingStoreInterface getMarkingStore() {
         return markingStore;
@@ -229,18 +267,386 @@ public class Workflow implements WorkflowInterface {
         return name;
     }
 
-    private @NotNull List<TransitionBlocker> buildTransitionBlockerListForTransition(@NotNull Object subject, @NotNull Marking marking, @NotNull Transition transition) {
-        for (String place : transition.getFroms()) {
-            if (!marking.has(place)) {
-                return List.of(TransitionBlocker.createBlockedByMarking(marking));
+    private @NotNull BitSetMarking getBitSetMarking(@NotNull Object subject) {
+        return this.getBitSetMarking(subject, this.markingStore.getMarking(subject));
+    }
+
+    private @NotNull BitSetMarking getBitSetMarking(@NotNull Object subject, @NotNull Marking storedMarking) {
+        // check if the subject is already in the workflow
+        if (storedMarking.isEmpty()) {
+            BitSetMarking marking = this.createInitialMarking();
+
+            this.markingStore.setMarking(subject, marking);
+
+            this.entered(subject, -1, marking);
+
+            return marking;
+        }
+
+        return this.toBitSetMarking(storedMarking);
+    }
+
+    private @NotNull BitSetMarking createInitialMarking() {
+        if (this.definition.getInitialPlaces().isEmpty()) {
+            throw new MarkingIsEmptyAndNoInitialPlaceFoundException(this.name);
+        }
+
+        BitSetMarking marking = new BitSetMarking(this.definition);
+        this.definition.getInitialPlaces().values().forEach(marking::mark);
+
+        return marking;
+    }
+
+    private @NotNull BitSetMarking toBitSetMarking(@NotNull Marking storedMarking) {
+        // check that the subject has a known place
+        if (0 == this.definition.getPlaceCount()) {
+            throw new NoPlacesDefinedException();
+        }
+
+        if (storedMarking instanceof BitSetMarking bitSetMarking && this.definition == bitSetMarking.getDefinition()) {
+            return bitSetMarking;
+        }
+
+        BitSetMarking marking = new BitSetMarking(this.definition);
+        for (String markingPlace : storedMarking.getPlaces()) {
+            Integer placeId = this.definition.getPlaceId(markingPlace);
+            if (null == placeId) {
+                throw new PlaceNotValidForWorkflowException(markingPlace, this.name);
             }
+
+            marking.mark(placeId);
         }
 
-        if (null == this.eventDispatcher) {
+        return marking;
+    }
+
+    // every attempt starts from the stored marking, so guards and the events before the write can run more than once
+    private @NotNull Marking applyOptimistically(@NotNull Object subject, @NotNull String transitionName, @NotNull VersionedMarkingStoreInterface versionedMarkingStore) {
+        for (int attempt = 1; attempt <= this.maxApplyAttempts; attempt++) {
+            if (attempt > 1) {
+                this.applyRetryCount.increment();
+            }
+
+            VersionedMarking versionedMarking = versionedMarkingStore.getVersionedMarking(subject);
+            long version = versionedMarking.getVersion();
+            BitSetMarking marking;
+
+            if (versionedMarking.getMarking().isEmpty()) {
+                marking = this.createInitialMarking();
+                if (!versionedMarkingStore.compareAndSetMarking(subject, version++, marking)) {
+                    continue;
+                }
+
+                this.entered(subject, -1, marking);
+            } else {
+                marking = this.toBitSetMarking(versionedMarking.getMarking());
+            }
+
+            if (this.tryApply(subject, transitionName, versionedMarkingStore, version, marking)) {
+                return marking;
+            }
+        }
+
+        throw new MarkingChangedConcurrentlyException(transitionName, this.name, this.maxApplyAttempts);
+    }
+
+    private boolean tryApply(@NotNull Object subject, @NotNull String transitionName, @NotNull VersionedMarkingStoreInterface versionedMarkingStore, long version, @NotNull BitSetMarking marking) {
+        int[] approvedTransitionIds = this.getApprovedTransitionIds(subject, transitionName, marking);
+
+        for (int transitionId : approvedTransitionIds) {
+            this.leave(subject, transitionId, marking);
+
+            this.transition(subject, transitionId, marking);
+
+            this.enter(subject, transitionId, marking);
+
+            if (!versionedMarkingStore.compareAndSetMarking(subject, version++, marking)) {
+                return false;
+            }
+
+            this.afterMarkingStored(subject, transitionId, marking);
+        }
+
+        return true;
+    }
+
+    // a subject the store can't tell the id of fails in its batch later, until then it is its own id
+    private @NotNull Object getSubjectId(@NotNull Object subject) {
+        try {
+            return this.markingStore.getSubjectId(subject);
+        } catch (RuntimeException exception) {
+            return subject;
+        }
+    }
+
+    // the events before the write are dispatched for every subject of the batch, then all markings are stored at once
+    private void applyBatch(@NotNull List<Object> subjects, @NotNull String transitionName, @NotNull int[] transitionIds, @NotNull List<ApplyResult> results) {
+        List<Marking> storedMarkings = this.markingStore.getMarkings(subjects);
+        ApplyResult[] batchResults = new ApplyResult[subjects.size()];
+        BitSetMarking[] changedMarkings = new BitSetMarking[subjects.size()];
+        int[] appliedTransitionIds = new int[subjects.size()];
+        Map<Object, Marking> markingsToStore = new IdentityHashMap<>();
+
+        for (int i = 0; i < subjects.size(); i++) {
+            Object subject = subjects.get(i);
+
+            try {
+                BitSetMarking marking = this.getBitSetMarking(subject, storedMarkings.get(i));
+                int[] approvedTransitionIds = new int[transitionIds.length];
+                int approvedTransitionCount = 0;
+                List<TransitionBlocker> transitionBlockers = List.of();
+
+                for (int transitionId : transitionIds) {
+                    List<TransitionBlocker> transitionBlockersForTransition = this.buildTransitionBlockerListForTransition(subject, marking, transitionId);
+
+                    if (transitionBlockersForTransition.isEmpty()) {
+                        approvedTransitionIds[approvedTransitionCount++] = transitionId;
+                    } else {
+                        transitionBlockers = transitionBlockersForTransition;
+                    }
+                }
+
+                if (0 == approvedTransitionCount) {
+                    batchResults[i] = ApplyResult.createBlocked(subject, transitionBlockers);
+                } else if (1 < approvedTransitionCount) {
+                    // every further transition with the same name is stored on its own, like apply does
+                    this.applyTransitions(subject, Arrays.copyOf(approvedTransitionIds, approvedTransitionCount), marking);
+                    batchResults[i] = ApplyResult.createApplied(subject, marking);
+                } else {
+                    this.leave(subject, approvedTransitionIds[0], marking);
+
+                    this.transition(subject, approvedTransitionIds[0], marking);
+
+                    this.enter(subject, approvedTransitionIds[0], marking);
+
+                    changedMarkings[i] = marking;
+                    appliedTransitionIds[i] = approvedTransitionIds[0];
+                    markingsToStore.put(subject, marking);
+                }
+            } catch (RuntimeException exception) {
+                batchResults[i] = ApplyResult.createFailed(subject, exception);
+            }
+        }
+
+        try {
+            this.markingStore.setMarkings(markingsToStore);
+        } catch (RuntimeException exception) {
+            // the store did not report which markings were written, so every subject of this write has failed
+            for (int i = 0; i < subjects.size(); i++) {
+                if (null != changedMarkings[i]) {
+                    batchResults[i] = ApplyResult.createFailed(subjects.get(i), exception);
+                    changedMarkings[i] = null;
+                }
+            }
+        }
+
+        for (int i = 0; i < subjects.size(); i++) {
+            if (null == changedMarkings[i]) {
+                continue;
+            }
+
+            try {
+                this.afterMarkingStored(subjects.get(i), appliedTransitionIds[i], changedMarkings[i]);
+                batchResults[i] = ApplyResult.createApplied(subjects.get(i), changedMarkings[i]);
+            } catch (RuntimeException exception) {
+                batchResults[i] = ApplyResult.createFailed(subjects.get(i), exception);
+            }
+        }
+
+        results.addAll(Arrays.asList(batchResults));
+    }
+
+    private @NotNull List<List<Transition>> getEnabledTransitionsForBatch(@NotNull List<Object> subjects, @NotNull SharedGuardResults sharedGuardResults) {
+        List<Marking> storedMarkings = this.markingStore.getMarkings(subjects);
+        List<List<Transition>> enabledTransitions = new ArrayList<>(subjects.size());
+
+        for (int i = 0; i < subjects.size(); i++) {
+            BitSetMarking marking = this.getBitSetMarking(subjects.get(i), storedMarkings.get(i));
+            List<Transition> enabledTransitionsOfSubject = new ArrayList<>();
+
+            for (int transitionId : this.getEnabledTransitionIds(subjects.get(i), marking, sharedGuardResults)) {
+                enabledTransitionsOfSubject.add(this.compiledDefinition.getTransition(transitionId));
+            }
+
+            enabledTransitions.add(enabledTransitionsOfSubject);
+        }
+
+        return enabledTransitions;
+    }
+
+    private @NotNull SharedGuardResults createSharedGuardResults() {
+        boolean[] shared = new boolean[this.compiledDefinition.getTransitionCount()];
+
+        if (null != this.eventDispatcher) {
+            for (int transitionId = 0; transitionId < shared.length; transitionId++) {
+                shared[transitionId] = this.eventDispatcher.isSubjectIndependent(this.eventNames.guard)
+                    && this.eventDispatcher.isSubjectIndependent(this.eventNames.workflowGuard)
+                    && this.eventDispatcher.isSubjectIndependent(this.eventNames.guardTransition[transitionId]);
+            }
+        }
+
+        return new SharedGuardResults(shared);
+    }
+
+    private static @NotNull List<List<Object>> createBatches(@NotNull Collection<?> subjects) {
+        List<List<Object>> batches = new ArrayList<>();
+        List<Object> batch = new ArrayList<>(Math.min(subjects.size(), BATCH_SIZE));
+
+        for (Object subject : subjects) {
+            if (BATCH_SIZE == batch.size()) {
+                batches.add(batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+
+            batch.add(subject);
+        }
+
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+
+        return batches;
+    }
+
+    private static <T> @NotNull List<T> joinAll(@NotNull List<ForkJoinTask<List<T>>> tasks, int size) {
+        List<T> results = new ArrayList<>(size);
+        for (ForkJoinTask<List<T>> task : tasks) {
+            results.addAll(task.join());
+        }
+
+        return results;
+    }
+
+    private void applyTransitions(@NotNull Object subject, @NotNull int[] approvedTransitionIds, @NotNull BitSetMarking marking) {
+        for (int transitionId : approvedTransitionIds) {
+            this.leave(subject, transitionId, marking);
+
+            this.transition(subject, transitionId, marking);
+
+            this.enter(subject, transitionId, marking);
+
+            this.markingStore.setMarking(subject, marking);
+
+            this.afterMarkingStored(subject, transitionId, marking);
+        }
+    }
+
+    private @NotNull int[] getTransitionIds(@NotNull String transitionName) {
+        int[] transitionIds = this.compiledDefinition.getTransitionIds(transitionName);
+
+        if (0 == transitionIds.length) {
+            throw new TransitionUndefinedException(transitionName, this.name);
+        }
+
+        return transitionIds;
+    }
+
+    private @NotNull int[] getApprovedTransitionIds(@NotNull Object subject, @NotNull String transitionName, @NotNull BitSetMarking marking) {
+        int[] transitionIds = this.getTransitionIds(transitionName);
+
+        int[] approvedTransitionIds = new int[transitionIds.length];
+        int approvedTransitionCount = 0;
+
+        // the blockers of the last disabled transition, null when the marking blocked it
+        List<TransitionBlocker> transitionBlockers = null;
+
+        for (int transitionId : transitionIds) {
+            if (!marking.hasAll(this.compiledDefinition.getFromMask(transitionId))) {
+                transitionBlockers = null;
+                continue;
+            }
+
+            if (null != this.eventDispatcher && this.hasListeners(this.eventNames.guard, this.eventNames.workflowGuard, this.eventNames.guardTransition[transitionId])) {
+                GuardEvent guardEvent = this.guardTransition(subject, marking, transitionId);
+                if (guardEvent.isBlocked()) {
+                    transitionBlockers = guardEvent.getTransitionBlockerList();
+                    continue;
+                }
+            }
+
+            approvedTransitionIds[approvedTransitionCount++] = transitionId;
+        }
+
+        if (0 == approvedTransitionCount) {
+            throw new TransitionNotEnabledException(transitionName, this.name, null == transitionBlockers ? List.of(TransitionBlocker.createBlockedByMarking(marking)) : transitionBlockers);
+        }
+
+        return Arrays.copyOf(approvedTransitionIds, approvedTransitionCount);
+    }
+
+    private void afterMarkingStored(@NotNull Object subject, int transitionId, @NotNull BitSetMarking marking) {
+        this.entered(subject, transitionId, marking);
+
+        this.completed(subject, transitionId, marking);
+
+        this.announce(subject, transitionId, marking);
+    }
+
+    private @NotNull int[] getEnabledTransitionIds(@NotNull Object subject, @NotNull BitSetMarking marking) {
+        return this.getEnabledTransitionIds(subject, marking, null);
+    }
+
+    private @NotNull int[] getEnabledTransitionIds(@NotNull Object subject, @NotNull BitSetMarking marking, SharedGuardResults sharedGuardResults) {
+        BitSet candidateTransitionIds = this.compiledDefinition.getCandidateTransitionIds(marking);
+        int[] enabledTransitionIds = new int[candidateTransitionIds.cardinality()];
+        int enabledTransitionCount = 0;
+
+        for (int transitionId = candidateTransitionIds.nextSetBit(0); transitionId >= 0; transitionId = candidateTransitionIds.nextSetBit(transitionId + 1)) {
+            if (this.isTransitionEnabled(subject, marking, transitionId, sharedGuardResults)) {
+                enabledTransitionIds[enabledTransitionCount++] = transitionId;
+            }
+        }
+
+        return Arrays.copyOf(enabledTransitionIds, enabledTransitionCount);
+    }
+
+    private @NotNull List<Transition> getEnabledTransitions(@NotNull Object subject, @NotNull BitSetMarking marking) {
+        List<Transition> enabledTransitions = new ArrayList<>();
+        for (int transitionId : this.getEnabledTransitionIds(subject, marking)) {
+            enabledTransitions.add(this.compiledDefinition.getTransition(transitionId));
+        }
+
+        return enabledTransitions;
+    }
+
+    // same checks as buildTransitionBlockerListForTransition, without building blockers for a disabled transition
+    private boolean isTransitionEnabled(@NotNull Object subject, @NotNull BitSetMarking marking, int transitionId) {
+        return this.isTransitionEnabled(subject, marking, transitionId, null);
+    }
+
+    private boolean isTransitionEnabled(@NotNull Object subject, @NotNull BitSetMarking marking, int transitionId, SharedGuardResults sharedGuardResults) {
+        if (!marking.hasAll(this.compiledDefinition.getFromMask(transitionId))) {
+            return false;
+        }
+
+        if (null == this.eventDispatcher || !this.hasListeners(this.eventNames.guard, this.eventNames.workflowGuard, this.eventNames.guardTransition[transitionId])) {
+            return true;
+        }
+
+        if (null == sharedGuardResults || !sharedGuardResults.shared[transitionId]) {
+            return !this.guardTransition(subject, marking, transitionId).isBlocked();
+        }
+
+        // parallel batches can both evaluate the guard before one of them stored the result, both get the same answer
+        Boolean blocked = sharedGuardResults.blocked.get(transitionId);
+        if (null == blocked) {
+            blocked = this.guardTransition(subject, marking, transitionId).isBlocked();
+            sharedGuardResults.blocked.set(transitionId, blocked);
+        }
+
+        return !blocked;
+    }
+
+    private @NotNull List<TransitionBlocker> buildTransitionBlockerListForTransition(@NotNull Object subject, @NotNull BitSetMarking marking, int transitionId) {
+        if (!marking.hasAll(this.compiledDefinition.getFromMask(transitionId))) {
+            return List.of(TransitionBlocker.createBlockedByMarking(marking));
+        }
+
+        if (null == this.eventDispatcher || !this.hasListeners(this.eventNames.guard, this.eventNames.workflowGuard, this.eventNames.guardTransition[transitionId])) {
             return new ArrayList<>();
         }
 
-        GuardEvent guardEvent = this.guardTransition(subject, marking, transition);
+        GuardEvent guardEvent = this.guardTransition(subject, marking, transitionId);
 
         if (guardEvent.isBlocked()) {
             return guardEvent.getTransitionBlockerList();
@@ -249,101 +655,130 @@ public class Workflow implements WorkflowInterface {
         return new ArrayList<>();
     }
 
-    private @NotNull GuardEvent guardTransition(@NotNull Object subject, @NotNull Marking marking, @NotNull Transition transition) {
-        GuardEvent guardEvent = new GuardEvent(subject, marking, transition, this);
+    private @NotNull GuardEvent guardTransition(@NotNull Object subject, @NotNull Marking marking, int transitionId) {
+        GuardEvent guardEvent = new GuardEvent(subject, marking, this.compiledDefinition.getTransition(transitionId), this);
 
-        this.eventDispatcher.dispatch(guardEvent, "workflow.guard");
-        this.eventDispatcher.dispatch(guardEvent, "workflow." + this.name + ".guard");
-        this.eventDispatcher.dispatch(guardEvent, "workflow." + this.name + ".guard." + transition.getName());
+        this.eventDispatcher.dispatch(guardEvent, this.eventNames.guard);
+        this.eventDispatcher.dispatch(guardEvent, this.eventNames.workflowGuard);
+        this.eventDispatcher.dispatch(guardEvent, this.eventNames.guardTransition[transitionId]);
 
         return guardEvent;
     }
 
-    private void leave(@NotNull Object subject, @NotNull Transition transition, @NotNull Marking marking) {
-        List<String> places = transition.getFroms();
+    private void leave(@NotNull Object subject, int transitionId, @NotNull BitSetMarking marking) {
+        this.publish(events.LEAVE, subject, transitionId, marking);
 
-        if (this.shouldDispatchEvent(events.LEAVE)) {
-            LeaveEvent leaveEvent = new LeaveEvent(subject, marking, transition, this);
-            this.eventDispatcher.dispatch(leaveEvent, "workflow.leave");
-            this.eventDispatcher.dispatch(leaveEvent, "workflow." + this.name + ".leave");
+        if (this.shouldDispatchEvent(events.LEAVE) && this.hasListeners(this.eventNames.leave, this.eventNames.workflowLeave, this.eventNames.leavePlaces[transitionId])) {
+            LeaveEvent leaveEvent = new LeaveEvent(subject, marking, this.compiledDefinition.getTransition(transitionId), this);
+            this.eventDispatcher.dispatch(leaveEvent, this.eventNames.leave);
+            this.eventDispatcher.dispatch(leaveEvent, this.eventNames.workflowLeave);
 
-            for (String place : places) {
-                this.eventDispatcher.dispatch(leaveEvent, "workflow." + this.name + ".leave." + place);
+            for (String eventName : this.eventNames.leavePlaces[transitionId]) {
+                this.eventDispatcher.dispatch(leaveEvent, eventName);
             }
         }
 
-        for (String place : places) {
-            marking.unmark(place);
-        }
+        marking.unmarkAll(this.compiledDefinition.getFromMask(transitionId));
     }
 
-    private void transition(@NotNull Object subject, @NotNull Transition transition, @NotNull Marking marking) {
-        if (!this.shouldDispatchEvent(events.TRANSITION)) {
+    private void transition(@NotNull Object subject, int transitionId, @NotNull BitSetMarking marking) {
+        this.publish(events.TRANSITION, subject, transitionId, marking);
+
+        if (!this.shouldDispatchEvent(events.TRANSITION) || !this.hasListeners(this.eventNames.transition, this.eventNames.workflowTransition, this.eventNames.transitionTransition[transitionId])) {
             return;
         }
 
-        TransitionEvent transitionEvent = new TransitionEvent(subject, marking, transition, this);
-        this.eventDispatcher.dispatch(transitionEvent, "workflow.transition");
-        this.eventDispatcher.dispatch(transitionEvent, "workflow." + this.name + ".transition");
-        this.eventDispatcher.dispatch(transitionEvent, "workflow." + this.name + ".transition." + transition.getName());
+        TransitionEvent transitionEvent = new TransitionEvent(subject, marking, this.compiledDefinition.getTransition(transitionId), this);
+        this.eventDispatcher.dispatch(transitionEvent, this.eventNames.transition);
+        this.eventDispatcher.dispatch(transitionEvent, this.eventNames.workflowTransition);
+        this.eventDispatcher.dispatch(transitionEvent, this.eventNames.transitionTransition[transitionId]);
     }
 
-    private void enter(@NotNull Object subject, @NotNull Transition transition, @NotNull Marking marking) {
-        List<String> places = transition.getTos();
+    private void enter(@NotNull Object subject, int transitionId, @NotNull BitSetMarking marking) {
+        this.publish(events.ENTER, subject, transitionId, marking);
 
-        if (this.shouldDispatchEvent(events.ENTER)) {
-            EnterEvent enterEvent = new EnterEvent(subject, marking, transition, this);
-            this.eventDispatcher.dispatch(enterEvent, "workflow.enter");
-            this.eventDispatcher.dispatch(enterEvent, "workflow." + this.name + ".enter");
+        if (this.shouldDispatchEvent(events.ENTER) && this.hasListeners(this.eventNames.enter, this.eventNames.workflowEnter, this.eventNames.enterPlaces[transitionId])) {
+            EnterEvent enterEvent = new EnterEvent(subject, marking, this.compiledDefinition.getTransition(transitionId), this);
+            this.eventDispatcher.dispatch(enterEvent, this.eventNames.enter);
+            this.eventDispatcher.dispatch(enterEvent, this.eventNames.workflowEnter);
 
-            for (String place : places) {
-                this.eventDispatcher.dispatch(enterEvent, "workflow." + this.name + ".enter." + place);
+            for (String eventName : this.eventNames.enterPlaces[transitionId]) {
+                this.eventDispatcher.dispatch(enterEvent, eventName);
             }
         }
 
-        for (String place : places) {
-            marking.mark(place);
-        }
+        marking.markAll(this.compiledDefinition.getToMask(transitionId));
     }
 
-    private void entered(@NotNull Object subject, Transition transition, @NotNull Marking marking) {
-        if (!this.shouldDispatchEvent(events.ENTERED)) {
+    // the transition id is -1 when the subject entered the initial places
+    private void entered(@NotNull Object subject, int transitionId, @NotNull BitSetMarking marking) {
+        this.publish(events.ENTERED, subject, transitionId, marking);
+
+        if (!this.shouldDispatchEvent(events.ENTERED) || !this.hasEnteredListeners(marking)) {
             return;
         }
 
-        EnteredEvent enterEvent = new EnteredEvent(subject, marking, transition, this);
+        EnteredEvent enterEvent = new EnteredEvent(subject, marking, -1 == transitionId ? null : this.compiledDefinition.getTransition(transitionId), this);
 
-        this.eventDispatcher.dispatch(enterEvent, "workflow.entered");
-        this.eventDispatcher.dispatch(enterEvent, "workflow." + this.name + ".entered");
+        this.eventDispatcher.dispatch(enterEvent, this.eventNames.entered);
+        this.eventDispatcher.dispatch(enterEvent, this.eventNames.workflowEntered);
 
-        for (String place : marking.getPlaces()) {
-            this.eventDispatcher.dispatch(enterEvent, "workflow." + this.name + ".entered." + place);
+        for (int placeId = marking.nextPlaceId(0); placeId >= 0; placeId = marking.nextPlaceId(placeId + 1)) {
+            this.eventDispatcher.dispatch(enterEvent, this.eventNames.enteredPlace[placeId]);
         }
     }
 
-    private void completed(@NotNull Object subject, @NotNull Transition transition, @NotNull Marking marking) {
-        if (!this.shouldDispatchEvent(events.COMPLETED)) {
+    private void completed(@NotNull Object subject, int transitionId, @NotNull BitSetMarking marking) {
+        this.publish(events.COMPLETED, subject, transitionId, marking);
+
+        if (!this.shouldDispatchEvent(events.COMPLETED) || !this.hasListeners(this.eventNames.completed, this.eventNames.workflowCompleted, this.eventNames.completedTransition[transitionId])) {
             return;
         }
 
-        CompletedEvent completedEvent = new CompletedEvent(subject, marking, transition, this);
+        CompletedEvent completedEvent = new CompletedEvent(subject, marking, this.compiledDefinition.getTransition(transitionId), this);
 
-        this.eventDispatcher.dispatch(completedEvent, "workflow.completed");
-        this.eventDispatcher.dispatch(completedEvent, "workflow." + this.name + ".completed");
-        this.eventDispatcher.dispatch(completedEvent, "workflow." + this.name + ".completed." + transition.getName());
+        this.eventDispatcher.dispatch(completedEvent, this.eventNames.completed);
+        this.eventDispatcher.dispatch(completedEvent, this.eventNames.workflowCompleted);
+        this.eventDispatcher.dispatch(completedEvent, this.eventNames.completedTransition[transitionId]);
     }
 
-    private void announce(@NotNull Object subject, @NotNull Transition initialTransition, @NotNull Marking marking) {
-        if (!this.shouldDispatchEvent(events.ANNOUNCE)) {
+    private void announce(@NotNull Object subject, int initialTransitionId, @NotNull BitSetMarking marking) {
+        this.publish(events.ANNOUNCE, subject, initialTransitionId, marking);
+
+        if (!this.shouldDispatchEvent(events.ANNOUNCE) || !this.hasListeners(this.eventNames.announce, this.eventNames.workflowAnnounce, this.eventNames.announceTransition)) {
             return;
         }
 
-        AnnounceEvent announceEvent = new AnnounceEvent(subject, marking, initialTransition, this);
+        // the marking keeps changing when more transitions with the same name are applied
+        BitSetMarking announcedMarking = marking.copy();
+        AnnounceEvent announceEvent = new AnnounceEvent(subject, marking, this.compiledDefinition.getTransition(initialTransitionId), this, () -> this.getEnabledTransitions(subject, announcedMarking));
+
+        this.eventDispatcher.dispatch(announceEvent, this.eventNames.announce);
+        this.eventDispatcher.dispatch(announceEvent, this.eventNames.workflowAnnounce);
 
-        this.eventDispatcher.dispatch(announceEvent, "workflow.announce");
-        this.eventDispatcher.dispatch(announceEvent, "workflow." + this.name + ".announce");
-        for (Transition transition : this.getEnabledTransitions(subject)) {
-            this.eventDispatcher.dispatch(announceEvent, "workflow." + this.name + ".announce." + transition.getName());
+        for (int transitionId : this.getAnnouncedTransitionIds(subject, announcedMarking)) {
+            this.eventDispatcher.dispatch(announceEvent, this.eventNames.announceTransition[transitionId]);
+        }
+    }
+
+    // only transitions with an announce listener are guarded, all of them before the first announce is dispatched
+    private @NotNull int[] getAnnouncedTransitionIds(@NotNull Object subject, @NotNull BitSetMarking marking) {
+        BitSet candidateTransitionIds = this.compiledDefinition.getCandidateTransitionIds(marking);
+        int[] announcedTransitionIds = new int[candidateTransitionIds.cardinality()];
+        int announcedTransitionCount = 0;
+
+        for (int transitionId = candidateTransitionIds.nextSetBit(0); transitionId >= 0; transitionId = candidateTransitionIds.nextSetBit(transitionId + 1)) {
+            if (this.eventDispatcher.hasListeners(this.eventNames.announceTransition[transitionId]) && this.isTransitionEnabled(subject, marking, transitionId)) {
+                announcedTransitionIds[announcedTransitionCount++] = transitionId;
+            }
+        }
+
+        return Arrays.copyOf(announcedTransitionIds, announcedTransitionCount);
+    }
+
+    private void publish(@NotNull events event, @NotNull Object subject, int transitionId, @NotNull BitSetMarking marking) {
+        if (null != this.eventPublisher && this.eventPublisher.isPublished(event)) {
+            this.eventPublisher.publish(event, subject, this, transitionId, marking);
         }
     }
 
@@ -362,4 +797,48 @@ public class Workflow implements WorkflowInterface {
 
         return this.eventsToDispatch.contains(eventName);
     }
+
+    private boolean hasListeners(@NotNull String globalEventName, @NotNull String workflowEventName, @NotNull String eventName) {
+        return this.eventDispatcher.hasListeners(globalEventName)
+            || this.eventDispatcher.hasListeners(workflowEventName)
+            || this.eventDispatcher.hasListeners(eventName);
+    }
+
+    private boolean hasListeners(@NotNull String globalEventName, @NotNull String workflowEventName, @NotNull String[] eventNames) {
+        if (this.eventDispatcher.hasListeners(globalEventName) || this.eventDispatcher.hasListeners(workflowEventName)) {
+            return true;
+        }
+
+        for (String eventName : eventNames) {
+            if (this.eventDispatcher.hasListeners(eventName)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean hasEnteredListeners(@NotNull BitSetMarking marking) {
+        if (this.eventDispatcher.hasListeners(this.eventNames.entered) || this.eventDispatcher.hasListeners(this.eventNames.workflowEntered)) {
+            return true;
+        }
+
+        for (int placeId = marking.nextPlaceId(0); placeId >= 0; placeId = marking.nextPlaceId(placeId + 1)) {
+            if (this.eventDispatcher.hasListeners(this.eventNames.enteredPlace[placeId])) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static final class SharedGuardResults {
+        private final boolean[] shared;
+        private final AtomicReferenceArray<Boolean> blocked;
+
+        private SharedGuardResults(@NotNull boolean[] shared) {
+            this.shared = shared;
+            this.blocked = new AtomicReferenceArray<>(shared.length);
+        }
+    }
 }
@@ -0,0 +1,80 @@
+package com.isfett.workflow;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+// all event names a workflow dispatches, built once so applying a transition does not concatenate strings
+final class WorkflowEventNames {
+    final String guard = "workflow.guard";
+    final String workflowGuard;
+    final String[] guardTransition;
+
+    final String leave = "workflow.leave";
+    final String workflowLeave;
+    final String[][] leavePlaces;
+
+    final String transition = "workflow.transition";
+    final String workflowTransition;
+    final String[] transitionTransition;
+
+    final String enter = "workflow.enter";
+    final String workflowEnter;
+    final String[][] enterPlaces;
+
+    final String entered = "workflow.entered";
+    final String workflowEntered;
+    final String[] enteredPlace;
+
+    final String completed = "workflow.completed";
+    final String workflowCompleted;
+    final String[] completedTransition;
+
+    final String announce = "workflow.announce";
+    final String workflowAnnounce;
+    final String[] announceTransition;
+
+    WorkflowEventNames(@NotNull String workflowName, @NotNull Definition definition) {
+        CompiledDefinition compiledDefinition = definition.getCompiledDefinition();
+        int transitionCount = compiledDefinition.getTransitionCount();
+        String prefix = "workflow." + workflowName + ".";
+
+        this.workflowGuard = (prefix + "guard").intern();
+        this.workflowLeave = (prefix + "leave").intern();
+        this.workflowTransition = (prefix + "transition").intern();
+        this.workflowEnter = (prefix + "enter").intern();
+        this.workflowEntered = (prefix + "entered").intern();
+        this.workflowCompleted = (prefix + "completed").intern();
+        this.workflowAnnounce = (prefix + "announce").intern();
+
+        this.guardTransition = new String[transitionCount];
+        this.leavePlaces = new String[transitionCount][];
+        this.transitionTransition = new String[transitionCount];
+        this.enterPlaces = new String[transitionCount][];
+        this.completedTransition = new String[transitionCount];
+        this.announceTransition = new String[transitionCount];
+        for (int transitionId = 0; transitionId < transitionCount; transitionId++) {
+            Transition transition = compiledDefinition.getTransition(transitionId);
+
+            this.guardTransition[transitionId] = (prefix + "guard." + transition.getName()).intern();
+            this.leavePlaces[transitionId] = createPlaceNames(prefix + "leave.", transition.getFroms());
+            this.transitionTransition[transitionId] = (prefix + "transition." + transition.getName()).intern();
+            this.enterPlaces[transitionId] = createPlaceNames(prefix + "enter.", transition.getTos());
+            this.completedTransition[transitionId] = (prefix + "completed." + transition.getName()).intern();
+            this.announceTransition[transitionId] = (prefix + "announce." + transition.getName()).intern();
+        }
+
+        this.enteredPlace = new String[definition.getPlaceCount()];
+        for (int placeId = 0; placeId < this.enteredPlace.length; placeId++) {
+            this.enteredPlace[placeId] = (prefix + "entered." + definition.getPlaceName(placeId)).intern();
+        }
+    }
+
+    private static @NotNull String[] createPlaceNames(@NotNull String prefix, @NotNull List<String> places) {
+        String[] eventNames = new String[places.size()];
+        for (int i = 0; i < eventNames.length; i++) {
+            eventNames[i] = (prefix + places.get(i)).intern();
+        }
+
+        return eventNames;
+    }
+}
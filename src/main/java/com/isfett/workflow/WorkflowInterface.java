@@ -1,9 +1,13 @@
 package com.isfett.workflow;
 
 import com.isfett.workflow.event.EventListenerInterface;
+import com.isfett.workflow.exception.TransitionNotEnabledException;
+import com.isfett.workflow.exception.TransitionUndefinedException;
 import com.isfett.workflow.markingstore.MarkingStoreInterface;
 
 import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import org.hibernate.validator.constraints.NotEmpty;
 
@@ -18,6 +22,25 @@ public interface WorkflowInterface {
 
     @NotNull Marking apply(@NotNull Object subject, @NotNull String transitionName);
 
+    // one result per subject in the given order, an undefined transition is still thrown for the whole call
+    default @NotNull List<ApplyResult> applyAll(@NotNull Collection<?> subjects, @NotNull String transitionName) {
+        List<ApplyResult> results = new ArrayList<>(subjects.size());
+        for (Object subject : subjects) {
+            try {
+                results.add(ApplyResult.createApplied(subject, this.apply(subject, transitionName)));
+            } catch (TransitionNotEnabledException exception) {
+                // without blockers the result would be neither applied, blocked nor failed
+                results.add(exception.getTransitionBlockers().isEmpty() ? ApplyResult.createFailed(subject, exception) : ApplyResult.createBlocked(subject, exception.getTransitionBlockers()));
+            } catch (TransitionUndefinedException exception) {
+                throw exception;
+            } catch (RuntimeException exception) {
+                results.add(ApplyResult.createFailed(subject, exception));
+            }
+        }
+
+        return results;
+    }
+
     @NotNull List<Transition> getEnabledTransitions(@NotNull Object subject);
 
     Transition getEnabledTransition(@NotNull Object subject, @NotNull String transitionName);
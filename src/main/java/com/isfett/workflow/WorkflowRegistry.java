@@ -2,22 +2,71 @@ package com.isfett.workflow;
 
 import com.isfett.workflow.exception.NoWorkflowFoundInRegistryException;
 import com.isfett.workflow.exception.TooManyWorkflowsFoundInRegistryException;
+import com.isfett.workflow.exception.WorkflowNotFoundInRegistryException;
+import com.isfett.workflow.supportstrategy.InstanceOfSupportStrategy;
 import com.isfett.workflow.supportstrategy.SupportStrategyInterface;
 
 import javax.validation.constraints.NotNull;
 import java.util.*;
 
 public class WorkflowRegistry {
-    private final Map<SupportStrategyInterface, WorkflowInterface> workflows = new HashMap<>();
+    private static final Comparator<WorkflowInterface> BY_NAME = Comparator.comparing(WorkflowInterface::getName);
 
-    public void addWorkflow(@NotNull WorkflowInterface workflow, @NotNull SupportStrategyInterface supportStrategy) {
-        this.workflows.put(supportStrategy, workflow);
+    // readers only ever see a complete snapshot, writers replace it as a whole
+    private volatile Snapshot snapshot = new Snapshot(List.of());
+
+    // the same strategy can be used for several workflows, only an equal registration is ignored.
+    // workflows are matched with equals everywhere, so whatever was added can be removed and replaced again
+    public synchronized void addWorkflow(@NotNull WorkflowInterface workflow, @NotNull SupportStrategyInterface supportStrategy) {
+        Map.Entry<SupportStrategyInterface, WorkflowInterface> registration = Map.entry(supportStrategy, workflow);
+        if (this.snapshot.registrations.contains(registration)) {
+            return;
+        }
+
+        List<Map.Entry<SupportStrategyInterface, WorkflowInterface>> registrations = new ArrayList<>(this.snapshot.registrations);
+        registrations.add(registration);
+
+        this.snapshot = new Snapshot(registrations);
+    }
+
+    public synchronized void removeWorkflow(@NotNull WorkflowInterface workflow) {
+        List<Map.Entry<SupportStrategyInterface, WorkflowInterface>> registrations = new ArrayList<>(this.snapshot.registrations);
+        if (!registrations.removeIf((Map.Entry<SupportStrategyInterface, WorkflowInterface> registration) -> workflow.equals(registration.getValue()))) {
+            throw new WorkflowNotFoundInRegistryException(workflow.getName());
+        }
+
+        this.snapshot = new Snapshot(registrations);
+    }
+
+    // the new workflow takes over every strategy of the old one, readers get either the old or the new one but never none
+    public synchronized void replaceWorkflow(@NotNull WorkflowInterface workflow, @NotNull WorkflowInterface newWorkflow) {
+        boolean found = false;
+        List<Map.Entry<SupportStrategyInterface, WorkflowInterface>> registrations = new ArrayList<>(this.snapshot.registrations.size());
+        for (Map.Entry<SupportStrategyInterface, WorkflowInterface> registration : this.snapshot.registrations) {
+            if (workflow.equals(registration.getValue())) {
+                found = true;
+                registration = Map.entry(registration.getKey(), newWorkflow);
+            }
+            if (!registrations.contains(registration)) {
+                registrations.add(registration);
+            }
+        }
+
+        if (!found) {
+            throw new WorkflowNotFoundInRegistryException(workflow.getName());
+        }
+
+        this.snapshot = new Snapshot(registrations);
     }
 
     public @NotNull Boolean has(@NotNull Object subject) {
-        for (SupportStrategyInterface supportStrategy : this.workflows.keySet()) {
-            WorkflowInterface workflow = this.workflows.get(supportStrategy);
-            if (this.supports(workflow, supportStrategy, subject)) {
+        Snapshot snapshot = this.snapshot;
+        if (!snapshot.resolvedWorkflows.get(subject.getClass()).workflows.isEmpty()) {
+            return true;
+        }
+
+        for (Map.Entry<SupportStrategyInterface, WorkflowInterface> customWorkflow : snapshot.customWorkflows) {
+            if (this.supports(customWorkflow.getValue(), customWorkflow.getKey(), subject)) {
                 return true;
             }
         }
@@ -26,9 +75,13 @@ public class WorkflowRegistry {
     }
 
     public @NotNull Boolean has(@NotNull Object subject, @NotNull String workflowName) {
-        for (SupportStrategyInterface supportStrategy : this.workflows.keySet()) {
-            WorkflowInterface workflow = this.workflows.get(supportStrategy);
-            if (this.supports(workflow, supportStrategy, subject, workflowName)) {
+        Snapshot snapshot = this.snapshot;
+        if (snapshot.resolvedWorkflows.get(subject.getClass()).workflowsByName.containsKey(workflowName)) {
+            return true;
+        }
+
+        for (Map.Entry<SupportStrategyInterface, WorkflowInterface> customWorkflow : snapshot.customWorkflows) {
+            if (this.supports(customWorkflow.getValue(), customWorkflow.getKey(), subject, workflowName)) {
                 return true;
             }
         }
@@ -53,29 +106,39 @@ public class WorkflowRegistry {
     }
 
     public @NotNull List<WorkflowInterface> all(@NotNull Object subject) {
-        List<WorkflowInterface> supportedWorkflows = new ArrayList<>();
+        Snapshot snapshot = this.snapshot;
+        List<WorkflowInterface> resolvedWorkflows = snapshot.resolvedWorkflows.get(subject.getClass()).workflows;
+        if (snapshot.customWorkflows.isEmpty()) {
+            return resolvedWorkflows;
+        }
 
-        for (SupportStrategyInterface supportStrategy : this.workflows.keySet()) {
-            WorkflowInterface workflow = this.workflows.get(supportStrategy);
-            if (this.supports(workflow, supportStrategy, subject)) {
-                supportedWorkflows.add(workflow);
+        List<WorkflowInterface> supportedWorkflows = new ArrayList<>(resolvedWorkflows);
+
+        for (Map.Entry<SupportStrategyInterface, WorkflowInterface> customWorkflow : snapshot.customWorkflows) {
+            if (this.supports(customWorkflow.getValue(), customWorkflow.getKey(), subject)) {
+                supportedWorkflows.add(customWorkflow.getValue());
             }
         }
 
-        return supportedWorkflows.stream().sorted(Comparator.comparing(WorkflowInterface::getName)).toList();
+        return supportedWorkflows.stream().sorted(BY_NAME).toList();
     }
 
     public @NotNull List<WorkflowInterface> all(@NotNull Object subject, @NotNull String workflowName) {
-        List<WorkflowInterface> supportedWorkflows = new ArrayList<>();
+        Snapshot snapshot = this.snapshot;
+        List<WorkflowInterface> resolvedWorkflows = snapshot.resolvedWorkflows.get(subject.getClass()).workflowsByName.getOrDefault(workflowName, List.of());
+        if (snapshot.customWorkflows.isEmpty()) {
+            return resolvedWorkflows;
+        }
 
-        for (SupportStrategyInterface supportStrategy : this.workflows.keySet()) {
-            WorkflowInterface workflow = this.workflows.get(supportStrategy);
-            if (this.supports(workflow, supportStrategy, subject, workflowName)) {
-                supportedWorkflows.add(workflow);
+        List<WorkflowInterface> supportedWorkflows = new ArrayList<>(resolvedWorkflows);
+
+        for (Map.Entry<SupportStrategyInterface, WorkflowInterface> customWorkflow : snapshot.customWorkflows) {
+            if (this.supports(customWorkflow.getValue(), customWorkflow.getKey(), subject, workflowName)) {
+                supportedWorkflows.add(customWorkflow.getValue());
             }
         }
 
-        return supportedWorkflows.stream().sorted(Comparator.comparing(WorkflowInterface::getName)).toList();
+        return supportedWorkflows.stream().sorted(BY_NAME).toList();
     }
 
     private @NotNull Boolean supports(@NotNull WorkflowInterface workflow, @NotNull SupportStrategyInterface supportStrategy, @NotNull Object subject) {
@@ -104,4 +167,50 @@ public class WorkflowRegistry {
                 subject.getClass().getSimpleName());
         }
     }
+
+    // instance of strategies are looked up by the class of the subject, only the other strategies are asked one by one
+    private static final class Snapshot {
+        private final List<Map.Entry<SupportStrategyInterface, WorkflowInterface>> registrations;
+        private final List<Map.Entry<SupportStrategyInterface, WorkflowInterface>> customWorkflows;
+        private final ClassValue<ResolvedWorkflows> resolvedWorkflows;
+
+        private Snapshot(@NotNull List<Map.Entry<SupportStrategyInterface, WorkflowInterface>> registrations) {
+            Map<Class<?>, List<WorkflowInterface>> instanceOfWorkflows = new HashMap<>();
+            List<Map.Entry<SupportStrategyInterface, WorkflowInterface>> customWorkflows = new ArrayList<>();
+            for (Map.Entry<SupportStrategyInterface, WorkflowInterface> registration : registrations) {
+                if (registration.getKey() instanceof InstanceOfSupportStrategy instanceOfSupportStrategy) {
+                    instanceOfWorkflows.computeIfAbsent(instanceOfSupportStrategy.getClassName(), (Class<?> className) -> new ArrayList<>()).add(registration.getValue());
+                } else {
+                    customWorkflows.add(registration);
+                }
+            }
+
+            this.registrations = List.copyOf(registrations);
+            this.customWorkflows = List.copyOf(customWorkflows);
+            // every snapshot resolves the subject classes again, a class value can not be cleared
+            this.resolvedWorkflows = new ClassValue<>() {
+                @Override
+                protected ResolvedWorkflows computeValue(Class<?> subjectClass) {
+                    return new ResolvedWorkflows(instanceOfWorkflows.getOrDefault(subjectClass, List.of()));
+                }
+            };
+        }
+    }
+
+    // the workflows of one subject class, sorted by name like all() returns them
+    private static final class ResolvedWorkflows {
+        private final List<WorkflowInterface> workflows;
+        private final Map<String, List<WorkflowInterface>> workflowsByName;
+
+        private ResolvedWorkflows(@NotNull List<WorkflowInterface> workflows) {
+            this.workflows = workflows.stream().sorted(BY_NAME).toList();
+
+            Map<String, List<WorkflowInterface>> workflowsByName = new HashMap<>();
+            for (WorkflowInterface workflow : this.workflows) {
+                workflowsByName.computeIfAbsent(workflow.getName(), (String name) -> new ArrayList<>()).add(workflow);
+            }
+            workflowsByName.replaceAll((String name, List<WorkflowInterface> namedWorkflows) -> List.copyOf(namedWorkflows));
+            this.workflowsByName = Map.copyOf(workflowsByName);
+        }
+    }
 }
@@ -5,9 +5,31 @@ import com.isfett.workflow.Transition;
 import com.isfett.workflow.WorkflowInterface;
 
 import javax.validation.constraints.NotNull;
+import java.util.List;
+import java.util.function.Supplier;
 
 public final class AnnounceEvent extends AbstractWorkflowEvent {
-    public AnnounceEvent(@NotNull Object source, @NotNull Marking marking, Transition transition, WorkflowInterface workflow) {
+    private final Supplier<List<Transition>> enabledTransitionsSupplier;
+    private volatile List<Transition> enabledTransitions;
+
+    public AnnounceEvent(@NotNull Object source, @NotNull Marking marking, Transition transition, WorkflowInterface workflow, @NotNull Supplier<List<Transition>> enabledTransitionsSupplier) {
         super(source, marking, transition, workflow);
+        this.enabledTransitionsSupplier = enabledTransitionsSupplier;
+    }
+
+    public AnnounceEvent(@NotNull Object source, @NotNull Marking marking, Transition transition, WorkflowInterface workflow) {
+        this(source, marking, transition, workflow, () -> null == workflow ? List.of() : workflow.getEnabledTransitions(source));
+    }
+
+    // the guards of the enabled transitions are only evaluated when a listener asks for them, listeners on other threads
+    // may evaluate them at the same time
+    public @NotNull List<Transition> getEnabledTransitions() {
+        List<Transition> enabledTransitions = this.enabledTransitions;
+        if (null == enabledTransitions) {
+            enabledTransitions = this.enabledTransitionsSupplier.get();
+            this.enabledTransitions = enabledTransitions;
+        }
+
+        return enabledTransitions;
     }
 }
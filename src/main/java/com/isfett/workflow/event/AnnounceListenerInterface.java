@@ -0,0 +1,8 @@
+package com.isfett.workflow.event;
+
+import javax.validation.constraints.NotNull;
+
+@FunctionalInterface
+public interface AnnounceListenerInterface extends EventListenerInterface {
+    void onAnnounce(@NotNull AnnounceEvent event, @NotNull String eventName);
+}
@@ -0,0 +1,240 @@
+package com.isfett.workflow.event;
+
+import com.isfett.workflow.Stripes;
+import com.isfett.workflow.exception.InvalidLaneCountException;
+import org.hibernate.validator.constraints.NotEmpty;
+
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+// entered, completed and announce events are handed to the executor, all other events are dispatched on the calling thread.
+// subjects are spread over serial lanes by identity, so the events of one subject reach the listeners in the order they were dispatched
+public class AsyncEventDispatcher implements EventDispatcherInterface, AutoCloseable {
+    private static final int MAX_TASKS_PER_RUN = 256;
+
+    private final EventDispatcherInterface eventDispatcher;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final Lane[] lanes;
+    private final int laneMask;
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final Object idleLock = new Object();
+    private volatile BiConsumer<AbstractWorkflowEvent, RuntimeException> exceptionHandler;
+
+    public AsyncEventDispatcher(@NotNull EventDispatcherInterface eventDispatcher, @NotNull Executor executor, int laneCount) {
+        this(eventDispatcher, executor, null, laneCount);
+    }
+
+    public AsyncEventDispatcher(@NotNull EventDispatcherInterface eventDispatcher, @NotNull Executor executor) {
+        this(eventDispatcher, executor, null, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public AsyncEventDispatcher(@NotNull EventDispatcherInterface eventDispatcher) {
+        this(eventDispatcher, null, createExecutor(), Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public AsyncEventDispatcher() {
+        this(new EventDispatcher());
+    }
+
+    private AsyncEventDispatcher(@NotNull EventDispatcherInterface eventDispatcher, Executor executor, ExecutorService ownedExecutor, int laneCount) {
+        if (laneCount < 1) {
+            throw new InvalidLaneCountException(laneCount);
+        }
+
+        this.eventDispatcher = eventDispatcher;
+        this.ownedExecutor = ownedExecutor;
+        this.executor = null == executor ? ownedExecutor : executor;
+        this.lanes = new Lane[Stripes.getCount(laneCount)];
+        this.laneMask = this.lanes.length - 1;
+        for (int i = 0; i < this.lanes.length; i++) {
+            this.lanes[i] = new Lane();
+        }
+    }
+
+    @Override
+    public void addListener(@NotNull EventListenerInterface eventListener, @NotEmpty List<String> subscribedEventNames) {
+        this.eventDispatcher.addListener(eventListener, subscribedEventNames);
+    }
+
+    @Override
+    public void dispatch(AbstractWorkflowEvent event, String eventName) {
+        if (!EventSnapshots.isAfterMarkingStored(event)) {
+            this.eventDispatcher.dispatch(event, eventName);
+
+            return;
+        }
+
+        // a snapshot per dispatch, nothing is cached on the event or the thread
+        AbstractWorkflowEvent snapshot = EventSnapshots.create(event);
+        Runnable task = () -> this.deliver(snapshot, eventName);
+        Lane lane = this.getLane(event.getSource());
+        this.pendingCount.incrementAndGet();
+        try {
+            lane.add(task);
+        } catch (RejectedExecutionException exception) {
+            // a task another dispatch got scheduled meanwhile runs and counts down itself.
+            // the marking is already stored, so the rejection goes to the exception handler instead of the caller of apply
+            if (lane.remove(task)) {
+                this.decrementPendingCount();
+                this.handleException(snapshot, exception);
+            }
+        }
+    }
+
+    @Override
+    public @NotNull Boolean hasListeners(@NotNull String eventName) {
+        return this.eventDispatcher.hasListeners(eventName);
+    }
+
+    @Override
+    public @NotNull Boolean isSubjectIndependent(@NotNull String eventName) {
+        return this.eventDispatcher.isSubjectIndependent(eventName);
+    }
+
+    // without a handler a failing listener is reported to the uncaught exception handler of the executor thread, an event
+    // the executor rejected to the one of the dispatching thread
+    public void setExceptionHandler(BiConsumer<AbstractWorkflowEvent, RuntimeException> exceptionHandler) {
+        this.exceptionHandler = exceptionHandler;
+    }
+
+    // waits until every event dispatched before the call reached its listeners, returns false when the timeout elapsed first
+    public @NotNull Boolean awaitDispatched(@NotNull Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        synchronized (this.idleLock) {
+            while (0 != this.pendingCount.get()) {
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+
+                this.idleLock.wait(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remainingNanos)));
+            }
+        }
+
+        return true;
+    }
+
+    public long getPendingCount() {
+        return this.pendingCount.get();
+    }
+
+    public int getLaneCount() {
+        return this.lanes.length;
+    }
+
+    public @NotNull EventDispatcherInterface getEventDispatcher() {
+        return eventDispatcher;
+    }
+
+    // an executor passed to the constructor belongs to the caller and is not shut down
+    @Override
+    public void close() {
+        try {
+            this.awaitDispatched(Duration.ofSeconds(30));
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (null != this.ownedExecutor) {
+            this.ownedExecutor.shutdown();
+        }
+    }
+
+    private void deliver(@NotNull AbstractWorkflowEvent event, @NotNull String eventName) {
+        try {
+            this.eventDispatcher.dispatch(event, eventName);
+        } catch (RuntimeException exception) {
+            this.handleException(event, exception);
+        } finally {
+            this.decrementPendingCount();
+        }
+    }
+
+    private void decrementPendingCount() {
+        if (0 == this.pendingCount.decrementAndGet()) {
+            synchronized (this.idleLock) {
+                this.idleLock.notifyAll();
+            }
+        }
+    }
+
+    private void handleException(@NotNull AbstractWorkflowEvent event, @NotNull RuntimeException exception) {
+        BiConsumer<AbstractWorkflowEvent, RuntimeException> exceptionHandler = this.exceptionHandler;
+        if (null != exceptionHandler) {
+            exceptionHandler.accept(event, exception);
+
+            return;
+        }
+
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, exception);
+    }
+
+    private @NotNull Lane getLane(@NotNull Object subject) {
+        int hash = System.identityHashCode(subject);
+
+        return this.lanes[Stripes.getIndex(hash, this.laneMask)];
+    }
+
+    private static @NotNull ExecutorService createExecutor() {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), (Runnable runnable) -> {
+            Thread thread = new Thread(runnable, "async-event-dispatcher");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
+    // runs the queued events of its subjects one after another, a long queue gives the thread back after a while
+    private final class Lane implements Runnable {
+        private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private void add(@NotNull Runnable task) {
+            this.tasks.add(task);
+            this.schedule();
+        }
+
+        private boolean remove(@NotNull Runnable task) {
+            return this.tasks.remove(task);
+        }
+
+        @Override
+        public void run() {
+            Runnable task;
+            for (int i = 0; i < MAX_TASKS_PER_RUN && null != (task = this.tasks.poll()); i++) {
+                task.run();
+            }
+
+            this.scheduled.set(false);
+            if (!this.tasks.isEmpty()) {
+                this.schedule();
+            }
+        }
+
+        private void schedule() {
+            if (!this.scheduled.compareAndSet(false, true)) {
+                return;
+            }
+
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException exception) {
+                this.scheduled.set(false);
+                throw exception;
+            }
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.isfett.workflow.event;
+
+import org.hibernate.validator.constraints.NotEmpty;
+
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+// entered and completed events are collected for batch listeners and handed over once a batch is full, the flush interval
+// elapsed or flush is called. all other listeners are registered with the wrapped dispatcher and receive every event at once
+public class BatchingEventDispatcher implements EventDispatcherInterface, AutoCloseable {
+    private static final BatchSubscriber[] NO_SUBSCRIBERS = new BatchSubscriber[0];
+
+    private final EventDispatcherInterface eventDispatcher;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler;
+    private final Map<EventListenerInterface, BatchSubscriber> batchSubscribers = new LinkedHashMap<>();
+    private volatile Map<String, BatchSubscriber[]> routes = Map.of();
+    private volatile BatchSubscriber[] wildcardSubscribers = NO_SUBSCRIBERS;
+    private volatile BiConsumer<List<? extends AbstractWorkflowEvent>, RuntimeException> exceptionHandler;
+
+    public BatchingEventDispatcher(@NotNull EventDispatcherInterface eventDispatcher, int batchSize, @NotNull Duration flushInterval) {
+        this.eventDispatcher = eventDispatcher;
+        this.batchSize = Math.max(1, batchSize);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor((Runnable runnable) -> {
+            Thread thread = new Thread(runnable, "batching-event-dispatcher");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        long flushIntervalMillis = Math.max(1, flushInterval.toMillis());
+        this.scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public BatchingEventDispatcher(@NotNull EventDispatcherInterface eventDispatcher) {
+        this(eventDispatcher, 100, Duration.ofSeconds(1));
+    }
+
+    public BatchingEventDispatcher() {
+        this(new EventDispatcher());
+    }
+
+    // a batch listener only receives the batches, adding it again replaces its subscribed event names
+    @Override
+    public synchronized void addListener(@NotNull EventListenerInterface eventListener, @NotEmpty List<String> subscribedEventNames) {
+        if (!(eventListener instanceof EnteredBatchListenerInterface) && !(eventListener instanceof CompletedBatchListenerInterface)) {
+            this.eventDispatcher.addListener(eventListener, subscribedEventNames);
+
+            return;
+        }
+
+        BatchSubscriber previousSubscriber = this.batchSubscribers.put(eventListener, new BatchSubscriber(eventListener, subscribedEventNames));
+        this.buildRoutes();
+
+        if (null != previousSubscriber) {
+            previousSubscriber.flush();
+        }
+    }
+
+    @Override
+    public void dispatch(AbstractWorkflowEvent event, String eventName) {
+        this.eventDispatcher.dispatch(event, eventName);
+
+        if (!(event instanceof EnteredEvent) && !(event instanceof CompletedEvent)) {
+            return;
+        }
+
+        BatchSubscriber[] subscribers = this.routes.getOrDefault(eventName, this.wildcardSubscribers);
+        for (BatchSubscriber subscriber : subscribers) {
+            subscriber.add(event, eventName);
+        }
+    }
+
+    @Override
+    public @NotNull Boolean hasListeners(@NotNull String eventName) {
+        return this.eventDispatcher.hasListeners(eventName) || this.hasBatchListeners(eventName);
+    }
+
+    @Override
+    public @NotNull Boolean isSubjectIndependent(@NotNull String eventName) {
+        return this.eventDispatcher.isSubjectIndependent(eventName);
+    }
+
+    // hands every collected event to its batch listener, exceptions of the listeners are thrown to the caller
+    public void flush() {
+        for (BatchSubscriber subscriber : this.getBatchSubscribers()) {
+            subscriber.flush();
+        }
+    }
+
+    public int getPendingCount() {
+        int pendingCount = 0;
+        for (BatchSubscriber subscriber : this.getBatchSubscribers()) {
+            pendingCount += subscriber.getPendingCount();
+        }
+
+        return pendingCount;
+    }
+
+    // receives the failures of batches flushed by the interval, without a handler they go to the uncaught exception handler
+    public void setExceptionHandler(BiConsumer<List<? extends AbstractWorkflowEvent>, RuntimeException> exceptionHandler) {
+        this.exceptionHandler = exceptionHandler;
+    }
+
+    public @NotNull EventDispatcherInterface getEventDispatcher() {
+        return eventDispatcher;
+    }
+
+    @Override
+    public void close() {
+        this.scheduler.shutdown();
+        this.flush();
+    }
+
+    private synchronized @NotNull List<BatchSubscriber> getBatchSubscribers() {
+        return new ArrayList<>(this.batchSubscribers.values());
+    }
+
+    private void buildRoutes() {
+        Set<String> eventNames = new HashSet<>();
+        this.batchSubscribers.values().forEach((BatchSubscriber subscriber) -> eventNames.addAll(subscriber.subscribedEventNames));
+
+        Map<String, BatchSubscriber[]> routes = new HashMap<>();
+        for (String eventName : eventNames) {
+            routes.put(eventName, this.batchSubscribers.values().stream().filter((BatchSubscriber subscriber) -> subscriber.isSubscribedTo(eventName)).toArray(BatchSubscriber[]::new));
+        }
+
+        this.routes = Map.copyOf(routes);
+        this.wildcardSubscribers = this.batchSubscribers.values().stream().filter(BatchSubscriber::isSubscribedToAll).toArray(BatchSubscriber[]::new);
+    }
+
+    // only entered and completed events are batched, so a batch listener does not count for the other event names
+    private boolean hasBatchListeners(@NotNull String eventName) {
+        BatchSubscriber[] subscribers = this.routes.getOrDefault(eventName, this.wildcardSubscribers);
+        if (0 == subscribers.length) {
+            return false;
+        }
+
+        boolean entered = isEnteredEventName(eventName);
+        boolean completed = isCompletedEventName(eventName);
+        for (BatchSubscriber subscriber : subscribers) {
+            if ((entered && subscriber.eventListener instanceof EnteredBatchListenerInterface) || (completed && subscriber.eventListener instanceof CompletedBatchListenerInterface)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void flushQuietly() {
+        for (BatchSubscriber subscriber : this.getBatchSubscribers()) {
+            subscriber.flushQuietly();
+        }
+    }
+
+    private void handleException(@NotNull List<? extends AbstractWorkflowEvent> events, @NotNull RuntimeException exception) {
+        BiConsumer<List<? extends AbstractWorkflowEvent>, RuntimeException> exceptionHandler = this.exceptionHandler;
+        if (null != exceptionHandler) {
+            exceptionHandler.accept(events, exception);
+
+            return;
+        }
+
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, exception);
+    }
+
+    // workflow.entered, workflow.<name>.entered and workflow.<name>.entered.<place>
+    private static boolean isEnteredEventName(@NotNull String eventName) {
+        return eventName.endsWith(".entered") || eventName.contains(".entered.");
+    }
+
+    // workflow.completed, workflow.<name>.completed and workflow.<name>.completed.<transition>
+    private static boolean isCompletedEventName(@NotNull String eventName) {
+        return eventName.endsWith(".completed") || eventName.contains(".completed.");
+    }
+
+    private final class BatchSubscriber {
+        private final EventListenerInterface eventListener;
+        private final List<String> subscribedEventNames;
+        private final ConcurrentHashMap<String, Batch<EnteredEvent>> enteredBatches = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, Batch<CompletedEvent>> completedBatches = new ConcurrentHashMap<>();
+
+        private BatchSubscriber(@NotNull EventListenerInterface eventListener, @NotNull List<String> subscribedEventNames) {
+            this.eventListener = eventListener;
+            this.subscribedEventNames = subscribedEventNames;
+        }
+
+        private boolean isSubscribedToAll() {
+            return this.subscribedEventNames.isEmpty();
+        }
+
+        private boolean isSubscribedTo(@NotNull String eventName) {
+            return this.isSubscribedToAll() || this.subscribedEventNames.contains(eventName);
+        }
+
+        private void add(@NotNull AbstractWorkflowEvent event, @NotNull String eventName) {
+            if (event instanceof EnteredEvent && this.eventListener instanceof EnteredBatchListenerInterface enteredListener) {
+                this.enteredBatches.computeIfAbsent(eventName, (String name) -> new Batch<>(name, enteredListener::onEnteredBatch))
+                    .add((EnteredEvent) EventSnapshots.create(event));
+            } else if (event instanceof CompletedEvent && this.eventListener instanceof CompletedBatchListenerInterface completedListener) {
+                this.completedBatches.computeIfAbsent(eventName, (String name) -> new Batch<>(name, completedListener::onCompletedBatch))
+                    .add((CompletedEvent) EventSnapshots.create(event));
+            }
+        }
+
+        private void flush() {
+            this.enteredBatches.values().forEach(Batch::deliver);
+            this.completedBatches.values().forEach(Batch::deliver);
+        }
+
+        private void flushQuietly() {
+            this.enteredBatches.values().forEach(Batch::deliverQuietly);
+            this.completedBatches.values().forEach(Batch::deliverQuietly);
+        }
+
+        private int getPendingCount() {
+            int pendingCount = 0;
+            for (Batch<EnteredEvent> batch : this.enteredBatches.values()) {
+                pendingCount += batch.size();
+            }
+            for (Batch<CompletedEvent> batch : this.completedBatches.values()) {
+                pendingCount += batch.size();
+            }
+
+            return pendingCount;
+        }
+    }
+
+    // batches of one listener and event name are delivered one after another, in the order the events were dispatched
+    private final class Batch<E extends AbstractWorkflowEvent> {
+        private final String eventName;
+        private final BiConsumer<List<E>, String> listener;
+        private final Object deliveryLock = new Object();
+        private List<E> events = new ArrayList<>();
+
+        private Batch(@NotNull String eventName, @NotNull BiConsumer<List<E>, String> listener) {
+            this.eventName = eventName;
+            this.listener = listener;
+        }
+
+        private void add(@NotNull E event) {
+            boolean full;
+            synchronized (this) {
+                this.events.add(event);
+                full = this.events.size() >= batchSize;
+            }
+
+            if (full) {
+                this.deliver();
+            }
+        }
+
+        private synchronized int size() {
+            return this.events.size();
+        }
+
+        private void deliver() {
+            synchronized (this.deliveryLock) {
+                List<E> events = this.drain();
+                if (!events.isEmpty()) {
+                    this.listener.accept(events, this.eventName);
+                }
+            }
+        }
+
+        private void deliverQuietly() {
+            synchronized (this.deliveryLock) {
+                List<E> events = this.drain();
+                if (events.isEmpty()) {
+                    return;
+                }
+
+                try {
+                    this.listener.accept(events, this.eventName);
+                } catch (RuntimeException exception) {
+                    handleException(events, exception);
+                }
+            }
+        }
+
+        private synchronized @NotNull List<E> drain() {
+            if (this.events.isEmpty()) {
+                return List.of();
+            }
+
+            List<E> events = this.events;
+            this.events = new ArrayList<>(Math.min(batchSize, 1024));
+
+            return events;
+        }
+    }
+}
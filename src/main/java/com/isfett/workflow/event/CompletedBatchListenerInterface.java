@@ -0,0 +1,9 @@
+package com.isfett.workflow.event;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+@FunctionalInterface
+public interface CompletedBatchListenerInterface extends EventListenerInterface {
+    void onCompletedBatch(@NotNull List<CompletedEvent> events, @NotNull String eventName);
+}
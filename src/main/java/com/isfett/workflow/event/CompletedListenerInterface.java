@@ -0,0 +1,8 @@
+package com.isfett.workflow.event;
+
+import javax.validation.constraints.NotNull;
+
+@FunctionalInterface
+public interface CompletedListenerInterface extends EventListenerInterface {
+    void onCompleted(@NotNull CompletedEvent event, @NotNull String eventName);
+}
@@ -0,0 +1,8 @@
+package com.isfett.workflow.event;
+
+import javax.validation.constraints.NotNull;
+
+@FunctionalInterface
+public interface EnterListenerInterface extends EventListenerInterface {
+    void onEnter(@NotNull EnterEvent event, @NotNull String eventName);
+}
@@ -0,0 +1,9 @@
+package com.isfett.workflow.event;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+@FunctionalInterface
+public interface EnteredBatchListenerInterface extends EventListenerInterface {
+    void onEnteredBatch(@NotNull List<EnteredEvent> events, @NotNull String eventName);
+}
@@ -0,0 +1,8 @@
+package com.isfett.workflow.event;
+
+import javax.validation.constraints.NotNull;
+
+@FunctionalInterface
+public interface EnteredListenerInterface extends EventListenerInterface {
+    void onEntered(@NotNull EnteredEvent event, @NotNull String eventName);
+}
@@ -1,40 +1,108 @@
 package com.isfett.workflow.event;
 
-import com.isfett.workflow.exception.EventCanNotBeDispatchedException;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.*;
+import javax.validation.constraints.NotNull;
 
 public class EventDispatcher implements EventDispatcherInterface {
-    private final Map<EventListenerInterface, List<String>> eventListeners = new HashMap<>();
+    private static final Subscriber[] NO_SUBSCRIBERS = new Subscriber[0];
 
-    public void addListener(EventListenerInterface eventListener, List<String> subscribedEventNames) {
+    private final Map<EventListenerInterface, List<String>> eventListeners = new LinkedHashMap<>();
+    private volatile Map<String, Subscriber[]> routes = Map.of();
+    private volatile Subscriber[] wildcardSubscribers = NO_SUBSCRIBERS;
+
+    public synchronized void addListener(EventListenerInterface eventListener, List<String> subscribedEventNames) {
         this.eventListeners.put(eventListener, subscribedEventNames);
+
+        this.buildRoutes();
     }
 
     public void dispatch(AbstractWorkflowEvent event, String eventName) {
-        this.eventListeners.forEach(
-            (EventListenerInterface eventListener, List<String> subscribedEventNames) -> {
-                if (subscribedEventNames.contains(eventName) || subscribedEventNames.isEmpty()) {
-                    Method foundMethod = null;
-                    String methodName = "on" + event.getClass().getSimpleName().replace("Event", "");
-                    for (Method method : eventListener.getClass().getDeclaredMethods()) {
-                        if (method.getName().equals(methodName)) {
-                            foundMethod = method;
-                            break;
-                        }
-                    }
-                    if (null == foundMethod) {
-                        throw new EventCanNotBeDispatchedException(eventName, methodName, eventListener.getClass().getSimpleName());
-                    }
-
-                    try {
-                        foundMethod.invoke(eventListener, event, eventName);
-                    } catch (IllegalAccessException | InvocationTargetException exception) {
-                        throw new EventCanNotBeDispatchedException(eventName, methodName, eventListener.getClass().getSimpleName(), exception);
-                    }
-                }
+        Subscriber[] subscribers = this.routes.get(eventName);
+        if (null == subscribers) {
+            subscribers = this.wildcardSubscribers;
+        }
+
+        if (0 == subscribers.length) {
+            return;
+        }
+
+        for (Subscriber subscriber : subscribers) {
+            subscriber.invoke(event, eventName);
+        }
+    }
+
+    @Override
+    public @NotNull Boolean hasListeners(@NotNull String eventName) {
+        return 0 != this.wildcardSubscribers.length || this.routes.containsKey(eventName);
+    }
+
+    @Override
+    public @NotNull Boolean isSubjectIndependent(@NotNull String eventName) {
+        for (Subscriber subscriber : this.routes.getOrDefault(eventName, this.wildcardSubscribers)) {
+            if (!(subscriber.eventListener instanceof SubjectIndependentGuardListenerInterface)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // every subscribed event name gets the listeners subscribed to it or to all events, in the order they were added
+    private void buildRoutes() {
+        List<Subscriber> subscribers = new ArrayList<>();
+        Set<String> eventNames = new HashSet<>();
+        this.eventListeners.forEach((EventListenerInterface eventListener, List<String> subscribedEventNames) -> {
+            subscribers.add(new Subscriber(eventListener, subscribedEventNames));
+            eventNames.addAll(subscribedEventNames);
+        });
+
+        Map<String, Subscriber[]> routes = new HashMap<>();
+        for (String eventName : eventNames) {
+            routes.put(eventName, subscribers.stream().filter((Subscriber subscriber) -> subscriber.isSubscribedTo(eventName)).toArray(Subscriber[]::new));
+        }
+
+        this.routes = Map.copyOf(routes);
+        this.wildcardSubscribers = subscribers.stream().filter(Subscriber::isSubscribedToAll).toArray(Subscriber[]::new);
+    }
+
+    private static final class Subscriber {
+        private final EventListenerInterface eventListener;
+        private final List<String> subscribedEventNames;
+        private final ReflectiveEventListenerAdapter reflectiveAdapter;
+
+        private Subscriber(EventListenerInterface eventListener, List<String> subscribedEventNames) {
+            this.eventListener = eventListener;
+            this.subscribedEventNames = subscribedEventNames;
+            this.reflectiveAdapter = new ReflectiveEventListenerAdapter(eventListener);
+        }
+
+        private boolean isSubscribedToAll() {
+            return this.subscribedEventNames.isEmpty();
+        }
+
+        private boolean isSubscribedTo(String eventName) {
+            return this.isSubscribedToAll() || this.subscribedEventNames.contains(eventName);
+        }
+
+        // listeners implementing the typed interface of an event are called directly, exceptions they throw are not wrapped
+        private void invoke(AbstractWorkflowEvent event, String eventName) {
+            if (event instanceof GuardEvent guardEvent && this.eventListener instanceof GuardListenerInterface guardListener) {
+                guardListener.onGuard(guardEvent, eventName);
+            } else if (event instanceof LeaveEvent leaveEvent && this.eventListener instanceof LeaveListenerInterface leaveListener) {
+                leaveListener.onLeave(leaveEvent, eventName);
+            } else if (event instanceof TransitionEvent transitionEvent && this.eventListener instanceof TransitionListenerInterface transitionListener) {
+                transitionListener.onTransition(transitionEvent, eventName);
+            } else if (event instanceof EnterEvent enterEvent && this.eventListener instanceof EnterListenerInterface enterListener) {
+                enterListener.onEnter(enterEvent, eventName);
+            } else if (event instanceof EnteredEvent enteredEvent && this.eventListener instanceof EnteredListenerInterface enteredListener) {
+                enteredListener.onEntered(enteredEvent, eventName);
+            } else if (event instanceof CompletedEvent completedEvent && this.eventListener instanceof CompletedListenerInterface completedListener) {
+                completedListener.onCompleted(completedEvent, eventName);
+            } else if (event instanceof AnnounceEvent announceEvent && this.eventListener instanceof AnnounceListenerInterface announceListener) {
+                announceListener.onAnnounce(announceEvent, eventName);
+            } else {
+                this.reflectiveAdapter.invoke(event, eventName);
             }
-        );
+        }
     }
 }
@@ -8,4 +8,14 @@ public interface EventDispatcherInterface {
     void addListener(@NotNull EventListenerInterface eventListener, @NotEmpty List<String> subscribedEventNames);
 
     void dispatch(AbstractWorkflowEvent event, String eventName);
+
+    // lets the workflow skip building events nobody receives, dispatchers that can't tell must answer true
+    default @NotNull Boolean hasListeners(@NotNull String eventName) {
+        return true;
+    }
+
+    // true when every listener receiving the event is a SubjectIndependentGuardListenerInterface, dispatchers that can't tell must answer false
+    default @NotNull Boolean isSubjectIndependent(@NotNull String eventName) {
+        return false;
+    }
 }
@@ -0,0 +1,34 @@
+package com.isfett.workflow.event;
+
+import com.isfett.workflow.Marking;
+
+import javax.validation.constraints.NotNull;
+
+// copies of post-commit events for listeners that run after apply returned, the workflow keeps changing the marking of
+// an event when it applies further transitions to the subject
+final class EventSnapshots {
+    private EventSnapshots() {
+    }
+
+    static boolean isAfterMarkingStored(AbstractWorkflowEvent event) {
+        return event instanceof EnteredEvent || event instanceof CompletedEvent || event instanceof AnnounceEvent;
+    }
+
+    static @NotNull AbstractWorkflowEvent create(@NotNull AbstractWorkflowEvent event) {
+        Marking marking = event.getMarking().copy();
+
+        if (event instanceof EnteredEvent) {
+            return new EnteredEvent(event.getSource(), marking, event.getTransition(), event.getWorkflow());
+        }
+
+        if (event instanceof CompletedEvent) {
+            return new CompletedEvent(event.getSource(), marking, event.getTransition(), event.getWorkflow());
+        }
+
+        // the guards stay lazy and run on the listener thread, the workflow hands the event a copy of the announced marking.
+        // the copies of one event share its enabled transitions, so the guards run once for all event names
+        AnnounceEvent announceEvent = (AnnounceEvent) event;
+
+        return new AnnounceEvent(event.getSource(), marking, event.getTransition(), event.getWorkflow(), announceEvent::getEnabledTransitions);
+    }
+}
@@ -10,14 +10,15 @@ import java.util.ArrayList;
 import java.util.List;
 
 public final class GuardEvent extends AbstractWorkflowEvent {
-    private final List<TransitionBlocker> transitionBlockerList = new ArrayList<>();
+    // created on the first block, most guards never block
+    private List<TransitionBlocker> transitionBlockerList;
 
     public GuardEvent(@NotNull Object source, @NotNull Marking marking, Transition transition, WorkflowInterface workflow) {
         super(source, marking, transition, workflow);
     }
 
     public Boolean isBlocked() {
-        return !this.transitionBlockerList.isEmpty();
+        return null != this.transitionBlockerList && !this.transitionBlockerList.isEmpty();
     }
 
     public void setBlocked(@NotNull Boolean blocked, String message) {
@@ -27,7 +28,7 @@ public final class GuardEvent extends AbstractWorkflowEvent {
             return;
         }
 
-        this.transitionBlockerList.add(TransitionBlocker.createUnknown(message));
+        this.getTransitionBlockerList().add(TransitionBlocker.createUnknown(message));
     }
 
     public void setBlocked(@NotNull Boolean blocked) {
@@ -37,15 +38,19 @@ public final class GuardEvent extends AbstractWorkflowEvent {
             return;
         }
 
-        this.transitionBlockerList.add(TransitionBlocker.createUnknown());
+        this.getTransitionBlockerList().add(TransitionBlocker.createUnknown());
     }
 
     public List<TransitionBlocker> getTransitionBlockerList() {
+        if (null == this.transitionBlockerList) {
+            this.transitionBlockerList = new ArrayList<>();
+        }
+
         return transitionBlockerList;
     }
 
     private void checkClearTransitionBlockerList(@NotNull Boolean blocked) {
-        if (!blocked) {
+        if (!blocked && null != this.transitionBlockerList) {
             this.transitionBlockerList.clear();
         }
     }
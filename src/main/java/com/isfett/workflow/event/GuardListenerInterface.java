@@ -0,0 +1,8 @@
+package com.isfett.workflow.event;
+
+import javax.validation.constraints.NotNull;
+
+@FunctionalInterface
+public interface GuardListenerInterface extends EventListenerInterface {
+    void onGuard(@NotNull GuardEvent event, @NotNull String eventName);
+}
@@ -0,0 +1,8 @@
+package com.isfett.workflow.event;
+
+import javax.validation.constraints.NotNull;
+
+@FunctionalInterface
+public interface LeaveListenerInterface extends EventListenerInterface {
+    void onLeave(@NotNull LeaveEvent event, @NotNull String eventName);
+}
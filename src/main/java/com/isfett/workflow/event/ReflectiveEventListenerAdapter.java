@@ -0,0 +1,75 @@
+package com.isfett.workflow.event;
+
+import com.isfett.workflow.exception.EventCanNotBeDispatchedException;
+
+import javax.validation.constraints.NotNull;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+// calls the public "on" + event name method of a listener that does not implement the typed listener interface of an event
+final class ReflectiveEventListenerAdapter {
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, EventListenerInterface.class, AbstractWorkflowEvent.class, String.class);
+
+    private static final ClassValue<String> METHOD_NAMES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> eventClass) {
+            return "on" + eventClass.getSimpleName().replace("Event", "");
+        }
+    };
+
+    private static final ClassValue<Map<String, MethodHandle>> LISTENER_METHODS = new ClassValue<>() {
+        @Override
+        protected Map<String, MethodHandle> computeValue(Class<?> listenerClass) {
+            return findListenerMethods(listenerClass);
+        }
+    };
+
+    private final EventListenerInterface eventListener;
+    private final Map<String, MethodHandle> listenerMethods;
+
+    ReflectiveEventListenerAdapter(@NotNull EventListenerInterface eventListener) {
+        this.eventListener = eventListener;
+        this.listenerMethods = LISTENER_METHODS.get(eventListener.getClass());
+    }
+
+    void invoke(@NotNull AbstractWorkflowEvent event, @NotNull String eventName) {
+        String methodName = METHOD_NAMES.get(event.getClass());
+        MethodHandle listenerMethod = this.listenerMethods.get(methodName);
+        if (null == listenerMethod) {
+            throw new EventCanNotBeDispatchedException(eventName, methodName, this.eventListener.getClass().getSimpleName());
+        }
+
+        try {
+            listenerMethod.invokeExact(this.eventListener, event, eventName);
+        } catch (Throwable exception) {
+            throw new EventCanNotBeDispatchedException(eventName, methodName, this.eventListener.getClass().getSimpleName(), exception);
+        }
+    }
+
+    private static Map<String, MethodHandle> findListenerMethods(Class<?> listenerClass) {
+        Map<String, MethodHandle> listenerMethods = new HashMap<>();
+
+        for (Method method : listenerClass.getDeclaredMethods()) {
+            if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())
+                || 2 != method.getParameterCount()
+                || !AbstractWorkflowEvent.class.isAssignableFrom(method.getParameterTypes()[0])
+                || String.class != method.getParameterTypes()[1]) {
+                continue;
+            }
+
+            try {
+                method.trySetAccessible();
+                listenerMethods.putIfAbsent(method.getName(), MethodHandles.lookup().unreflect(method).asType(INVOKER_TYPE));
+            } catch (IllegalAccessException ignored) {
+                // not accessible methods are reported as missing when an event is dispatched to them
+            }
+        }
+
+        return Map.copyOf(listenerMethods);
+    }
+}
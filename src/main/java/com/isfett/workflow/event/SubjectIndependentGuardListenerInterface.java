@@ -0,0 +1,6 @@
+package com.isfett.workflow.event;
+
+// guards of a listener with this interface only depend on the transition, never on the subject or its marking,
+// so batched calls evaluate them once per transition and share the result between all subjects
+public interface SubjectIndependentGuardListenerInterface extends EventListenerInterface {
+}
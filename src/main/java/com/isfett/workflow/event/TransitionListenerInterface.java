@@ -0,0 +1,8 @@
+package com.isfett.workflow.event;
+
+import javax.validation.constraints.NotNull;
+
+@FunctionalInterface
+public interface TransitionListenerInterface extends EventListenerInterface {
+    void onTransition(@NotNull TransitionEvent event, @NotNull String eventName);
+}
@@ -0,0 +1,13 @@
+package com.isfett.workflow.exception;
+
+import javax.validation.constraints.NotNull;
+
+public class InvalidApplyAttemptsException extends IllegalArgumentException {
+    public InvalidApplyAttemptsException(int maxApplyAttempts) {
+        super(getMessage(maxApplyAttempts));
+    }
+
+    private static @NotNull String getMessage(int maxApplyAttempts) {
+        return "The maximum apply attempts must be greater than 0, " + maxApplyAttempts + " given.";
+    }
+}
@@ -0,0 +1,13 @@
+package com.isfett.workflow.exception;
+
+import javax.validation.constraints.NotNull;
+
+public class InvalidLaneCountException extends IllegalArgumentException {
+    public InvalidLaneCountException(int laneCount) {
+        super(getMessage(laneCount));
+    }
+
+    private static @NotNull String getMessage(int laneCount) {
+        return "The lane count must be greater than 0, " + laneCount + " given.";
+    }
+}
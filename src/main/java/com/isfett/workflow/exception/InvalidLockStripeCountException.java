@@ -0,0 +1,13 @@
+package com.isfett.workflow.exception;
+
+import javax.validation.constraints.NotNull;
+
+public class InvalidLockStripeCountException extends IllegalArgumentException {
+    public InvalidLockStripeCountException(int stripeCount) {
+        super(getMessage(stripeCount));
+    }
+
+    private static @NotNull String getMessage(int stripeCount) {
+        return "The lock stripe count must be greater than 0, " + stripeCount + " given.";
+    }
+}
@@ -0,0 +1,13 @@
+package com.isfett.workflow.exception;
+
+import javax.validation.constraints.NotNull;
+
+public class InvalidMarkingStoreFileSizeException extends IllegalArgumentException {
+    public InvalidMarkingStoreFileSizeException(@NotNull String fileName, long fileSize, long expectedFileSize) {
+        super(getMessage(fileName, fileSize, expectedFileSize));
+    }
+
+    private static @NotNull String getMessage(@NotNull String fileName, long fileSize, long expectedFileSize) {
+        return "The marking store file " + fileName + " has " + fileSize + " bytes, but " + expectedFileSize + " bytes are expected for this definition and capacity.";
+    }
+}
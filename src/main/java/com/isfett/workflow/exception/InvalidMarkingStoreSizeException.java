@@ -0,0 +1,13 @@
+package com.isfett.workflow.exception;
+
+import javax.validation.constraints.NotNull;
+
+public class InvalidMarkingStoreSizeException extends IllegalArgumentException {
+    public InvalidMarkingStoreSizeException(long maxSize) {
+        super(getMessage(maxSize));
+    }
+
+    private static @NotNull String getMessage(long maxSize) {
+        return "The maximum size of the marking store must be greater than 0, " + maxSize + " given.";
+    }
+}
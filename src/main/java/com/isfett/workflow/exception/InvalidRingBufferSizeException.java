@@ -0,0 +1,13 @@
+package com.isfett.workflow.exception;
+
+import javax.validation.constraints.NotNull;
+
+public class InvalidRingBufferSizeException extends IllegalArgumentException {
+    public InvalidRingBufferSizeException(int bufferSize) {
+        super(getMessage(bufferSize));
+    }
+
+    private static @NotNull String getMessage(int bufferSize) {
+        return "The ring buffer size must be a power of 2, " + bufferSize + " given.";
+    }
+}
@@ -0,0 +1,13 @@
+package com.isfett.workflow.exception;
+
+import javax.validation.constraints.NotNull;
+
+public class InvalidTableNameException extends IllegalArgumentException {
+    public InvalidTableNameException(@NotNull String tableName) {
+        super(getMessage(tableName));
+    }
+
+    private static @NotNull String getMessage(@NotNull String tableName) {
+        return "The table name " + tableName + " is not a valid SQL identifier.";
+    }
+}
@@ -0,0 +1,13 @@
+package com.isfett.workflow.exception;
+
+import javax.validation.constraints.NotNull;
+
+public class JdbcMarkingStoreException extends RuntimeException {
+    public JdbcMarkingStoreException(@NotNull String tableName, @NotNull Throwable cause) {
+        super(getMessage(tableName), cause);
+    }
+
+    private static @NotNull String getMessage(@NotNull String tableName) {
+        return "The markings in table " + tableName + " can't be read or written.";
+    }
+}
@@ -0,0 +1,13 @@
+package com.isfett.workflow.exception;
+
+import javax.validation.constraints.NotNull;
+
+public class MarkingChangedConcurrentlyException extends RuntimeException {
+    public MarkingChangedConcurrentlyException(@NotNull String transitionName, @NotNull String workflowName, int attempts) {
+        super(getMessage(transitionName, workflowName, attempts));
+    }
+
+    private static @NotNull String getMessage(@NotNull String transitionName, @NotNull String workflowName, int attempts) {
+        return "Transition " + transitionName + " could not be applied for workflow " + workflowName + ", the marking was changed concurrently " + attempts + " times.";
+    }
+}
@@ -0,0 +1,7 @@
+package com.isfett.workflow.exception;
+
+public class MarkingStoreClosedException extends IllegalStateException {
+    public MarkingStoreClosedException() {
+        super("The marking store is closed, markings can not be written anymore.");
+    }
+}
@@ -0,0 +1,13 @@
+package com.isfett.workflow.exception;
+
+import javax.validation.constraints.NotNull;
+
+public class MarkingStoreFileException extends RuntimeException {
+    public MarkingStoreFileException(@NotNull String fileName, @NotNull Throwable cause) {
+        super(getMessage(fileName), cause);
+    }
+
+    private static @NotNull String getMessage(@NotNull String fileName) {
+        return "The marking store file " + fileName + " can't be accessed.";
+    }
+}
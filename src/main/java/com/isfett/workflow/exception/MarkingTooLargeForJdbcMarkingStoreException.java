@@ -0,0 +1,13 @@
+package com.isfett.workflow.exception;
+
+import javax.validation.constraints.NotNull;
+
+public class MarkingTooLargeForJdbcMarkingStoreException extends IllegalArgumentException {
+    public MarkingTooLargeForJdbcMarkingStoreException(@NotNull String tableName, int length, int maxLength) {
+        super(getMessage(tableName, length, maxLength));
+    }
+
+    private static @NotNull String getMessage(@NotNull String tableName, int length, int maxLength) {
+        return "The marking needs " + length + " characters but table " + tableName + " stores at most " + maxLength + ".";
+    }
+}
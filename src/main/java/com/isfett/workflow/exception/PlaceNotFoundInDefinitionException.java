@@ -0,0 +1,13 @@
+package com.isfett.workflow.exception;
+
+import javax.validation.constraints.NotNull;
+
+public class PlaceNotFoundInDefinitionException extends IllegalArgumentException {
+    public PlaceNotFoundInDefinitionException(@NotNull String place) {
+        super(getMessage(place));
+    }
+
+    private static @NotNull String getMessage(@NotNull String place) {
+        return "Place " + place + " does not exist in the definition.";
+    }
+}
@@ -0,0 +1,13 @@
+package com.isfett.workflow.exception;
+
+import javax.validation.constraints.NotNull;
+
+public class PlaceNotStorableInJdbcMarkingStoreException extends IllegalArgumentException {
+    public PlaceNotStorableInJdbcMarkingStoreException(@NotNull String place, @NotNull String tableName) {
+        super(getMessage(place, tableName));
+    }
+
+    private static @NotNull String getMessage(@NotNull String place, @NotNull String tableName) {
+        return "The place " + place + " contains a comma and can't be stored in table " + tableName + ".";
+    }
+}
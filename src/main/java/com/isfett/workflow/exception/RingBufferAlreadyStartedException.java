@@ -0,0 +1,7 @@
+package com.isfett.workflow.exception;
+
+public class RingBufferAlreadyStartedException extends IllegalStateException {
+    public RingBufferAlreadyStartedException() {
+        super("The ring buffer is already started, handlers must be added before it starts.");
+    }
+}
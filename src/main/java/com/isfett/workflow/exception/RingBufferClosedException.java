@@ -0,0 +1,7 @@
+package com.isfett.workflow.exception;
+
+public class RingBufferClosedException extends IllegalStateException {
+    public RingBufferClosedException() {
+        super("The ring buffer is closed, events can not be published anymore.");
+    }
+}
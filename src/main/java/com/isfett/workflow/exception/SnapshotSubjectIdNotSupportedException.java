@@ -0,0 +1,13 @@
+package com.isfett.workflow.exception;
+
+import javax.validation.constraints.NotNull;
+
+public class SnapshotSubjectIdNotSupportedException extends IllegalArgumentException {
+    public SnapshotSubjectIdNotSupportedException(@NotNull Object subjectId) {
+        super(getMessage(subjectId));
+    }
+
+    private static @NotNull String getMessage(@NotNull Object subjectId) {
+        return "The subject id " + subjectId + " of type " + subjectId.getClass().getName() + " can't be written to a snapshot, only Long, String and UUID ids are supported.";
+    }
+}
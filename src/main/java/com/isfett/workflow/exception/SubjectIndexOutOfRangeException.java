@@ -0,0 +1,13 @@
+package com.isfett.workflow.exception;
+
+import javax.validation.constraints.NotNull;
+
+public class SubjectIndexOutOfRangeException extends IndexOutOfBoundsException {
+    public SubjectIndexOutOfRangeException(long subjectIndex, long capacity) {
+        super(getMessage(subjectIndex, capacity));
+    }
+
+    private static @NotNull String getMessage(long subjectIndex, long capacity) {
+        return "The subject index " + subjectIndex + " is out of range, the marking store has " + capacity + " slots.";
+    }
+}
@@ -1,13 +1,29 @@
 package com.isfett.workflow.exception;
 
+import com.isfett.workflow.TransitionBlocker;
+
 import javax.validation.constraints.NotNull;
+import java.util.List;
 
 public class TransitionNotEnabledException extends RuntimeException {
-    public TransitionNotEnabledException(@NotNull String transitionName, @NotNull String workflowName) {
+    private final List<TransitionBlocker> transitionBlockers;
+
+    public TransitionNotEnabledException(@NotNull String transitionName, @NotNull String workflowName, @NotNull List<TransitionBlocker> transitionBlockers) {
         super(getMessage(transitionName, workflowName));
+
+        this.transitionBlockers = transitionBlockers;
+    }
+
+    public TransitionNotEnabledException(@NotNull String transitionName, @NotNull String workflowName) {
+        this(transitionName, workflowName, List.of());
     }
 
     private static @NotNull String getMessage(@NotNull String transitionName, @NotNull String workflowName) {
         return "Transition " + transitionName + " is not enabled for workflow " + workflowName + ".";
     }
+
+    // the blockers found when the transition was checked, empty when the workflow did not collect them
+    public @NotNull List<TransitionBlocker> getTransitionBlockers() {
+        return transitionBlockers;
+    }
 }
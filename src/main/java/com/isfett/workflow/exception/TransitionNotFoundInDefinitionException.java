@@ -0,0 +1,13 @@
+package com.isfett.workflow.exception;
+
+import javax.validation.constraints.NotNull;
+
+public class TransitionNotFoundInDefinitionException extends IllegalArgumentException {
+    public TransitionNotFoundInDefinitionException(@NotNull String transitionName) {
+        super(getMessage(transitionName));
+    }
+
+    private static @NotNull String getMessage(@NotNull String transitionName) {
+        return "Transition " + transitionName + " does not exist in the definition.";
+    }
+}
@@ -0,0 +1,13 @@
+package com.isfett.workflow.exception;
+
+import javax.validation.constraints.NotNull;
+
+public class WorkflowNotFoundInRegistryException extends IllegalArgumentException {
+    public WorkflowNotFoundInRegistryException(@NotNull String workflowName) {
+        super(getMessage(workflowName));
+    }
+
+    private static @NotNull String getMessage(@NotNull String workflowName) {
+        return "The workflow (" + workflowName + ") is not registered in the registry.";
+    }
+}
@@ -0,0 +1,169 @@
+package com.isfett.workflow.journal;
+
+import com.isfett.workflow.BitSetMarking;
+import com.isfett.workflow.CompiledDefinition;
+import com.isfett.workflow.Definition;
+import com.isfett.workflow.exception.JournalFileException;
+import com.isfett.workflow.exception.TransitionNotFoundInDefinitionException;
+import com.isfett.workflow.markingstore.InMemoryMarkingStore;
+
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// rebuilds markings from a snapshot and the journal records after it.
+// the records of a mapped segment are split by subject into lanes once, every lane applies its records in journal order, so the
+// order per subject is kept without locking
+public class JournalReplayer {
+    // a million records per mapped segment, so the lane offsets of a segment stay small
+    private static final long MAX_SEGMENT_SIZE = (1 << 20) * (long) TransitionJournal.RECORD_SIZE;
+
+    private final Definition definition;
+    private final CompiledDefinition compiledDefinition;
+    private final int parallelism;
+
+    public JournalReplayer(@NotNull Definition definition, int parallelism) {
+        this.definition = definition;
+        this.compiledDefinition = definition.getCompiledDefinition();
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public JournalReplayer(@NotNull Definition definition) {
+        this(definition, Runtime.getRuntime().availableProcessors());
+    }
+
+    // returns the number of replayed records, the store has to be keyed by long subject ids like the journal
+    public long replay(@NotNull Path snapshotFile, @NotNull Path journalFile, @NotNull InMemoryMarkingStore markingStore) {
+        long position = Files.exists(snapshotFile) ? MarkingSnapshot.read(snapshotFile, markingStore) : 0;
+
+        return this.replayFrom(position, journalFile, markingStore);
+    }
+
+    public long replay(@NotNull Path journalFile, @NotNull InMemoryMarkingStore markingStore) {
+        return this.replayFrom(0, journalFile, markingStore);
+    }
+
+    private long replayFrom(long position, @NotNull Path journalFile, @NotNull InMemoryMarkingStore markingStore) {
+        List<Lane> lanes = new ArrayList<>();
+        for (int laneIndex = 0; laneIndex < this.parallelism; laneIndex++) {
+            lanes.add(new Lane(laneIndex, markingStore));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(this.parallelism);
+        long replayedRecords = 0;
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long end = size - (size - position) % TransitionJournal.RECORD_SIZE;
+
+            while (position < end) {
+                long segmentSize = Math.min(MAX_SEGMENT_SIZE, end - position);
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, position, segmentSize);
+                segment.order(ByteOrder.LITTLE_ENDIAN);
+
+                int[][] laneOffsets = this.partition(segment);
+                List<Future<?>> futures = new ArrayList<>();
+                for (Lane lane : lanes) {
+                    futures.add(executor.submit(() -> lane.replay(segment, laneOffsets[lane.laneIndex])));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+
+                position += segmentSize;
+                replayedRecords += segmentSize / TransitionJournal.RECORD_SIZE;
+            }
+        } catch (IOException exception) {
+            throw new JournalFileException(journalFile.toString(), exception);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new JournalFileException(journalFile.toString(), exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new JournalFileException(journalFile.toString(), exception.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        lanes.forEach(Lane::store);
+
+        return replayedRecords;
+    }
+
+    // returns the record offsets of every lane, in journal order
+    private @NotNull int[][] partition(@NotNull MappedByteBuffer segment) {
+        int recordCount = segment.limit() / TransitionJournal.RECORD_SIZE;
+        int[] recordLanes = new int[recordCount];
+        int[] laneSizes = new int[this.parallelism];
+        for (int record = 0; record < recordCount; record++) {
+            long subjectId = segment.getLong(record * TransitionJournal.RECORD_SIZE);
+            recordLanes[record] = Math.floorMod(Long.hashCode(subjectId), this.parallelism);
+            laneSizes[recordLanes[record]]++;
+        }
+
+        int[][] laneOffsets = new int[this.parallelism][];
+        for (int laneIndex = 0; laneIndex < this.parallelism; laneIndex++) {
+            laneOffsets[laneIndex] = new int[laneSizes[laneIndex]];
+            laneSizes[laneIndex] = 0;
+        }
+        for (int record = 0; record < recordCount; record++) {
+            int laneIndex = recordLanes[record];
+            laneOffsets[laneIndex][laneSizes[laneIndex]++] = record * TransitionJournal.RECORD_SIZE;
+        }
+
+        return laneOffsets;
+    }
+
+    private final class Lane {
+        private final int laneIndex;
+        private final InMemoryMarkingStore markingStore;
+        private final Map<Long, BitSetMarking> markings = new HashMap<>();
+
+        private Lane(int laneIndex, @NotNull InMemoryMarkingStore markingStore) {
+            this.laneIndex = laneIndex;
+            this.markingStore = markingStore;
+        }
+
+        private void replay(@NotNull MappedByteBuffer segment, @NotNull int[] offsets) {
+            for (int offset : offsets) {
+                long subjectId = segment.getLong(offset);
+                int transitionId = segment.getInt(offset + Long.BYTES);
+                if (transitionId < 0 || transitionId >= compiledDefinition.getTransitionCount()) {
+                    throw new TransitionNotFoundInDefinitionException(String.valueOf(transitionId));
+                }
+
+                BitSetMarking marking = this.markings.computeIfAbsent(subjectId, this::load);
+                marking.unmarkAll(compiledDefinition.getFromMask(transitionId));
+                marking.markAll(compiledDefinition.getToMask(transitionId));
+            }
+        }
+
+        // a subject without a marking starts in the initial places, like the workflow places it before the first transition
+        private @NotNull BitSetMarking load(@NotNull Long subjectId) {
+            BitSetMarking marking = (BitSetMarking) this.markingStore.getMarkingBySubjectId(subjectId);
+            if (marking.isEmpty()) {
+                definition.getInitialPlaces().values().forEach(marking::mark);
+            }
+
+            return marking;
+        }
+
+        private void store() {
+            this.markings.forEach(this.markingStore::setMarkingBySubjectId);
+        }
+    }
+}
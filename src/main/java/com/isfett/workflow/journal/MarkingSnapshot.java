@@ -0,0 +1,118 @@
+package com.isfett.workflow.journal;
+
+import com.isfett.workflow.BitSetMarking;
+import com.isfett.workflow.Definition;
+import com.isfett.workflow.Marking;
+import com.isfett.workflow.exception.JournalFileException;
+import com.isfett.workflow.exception.SnapshotSubjectIdNotSupportedException;
+import com.isfett.workflow.markingstore.InMemoryMarkingStore;
+
+import javax.validation.constraints.NotNull;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+// the markings of a store together with the journal position they include. every subject id is written with its type, the
+// journal itself only knows long ids but the store may hold markings of other subjects too
+public final class MarkingSnapshot {
+    private static final byte LONG_ID = 0;
+    private static final byte STRING_ID = 1;
+    private static final byte UUID_ID = 2;
+
+    private MarkingSnapshot() {
+    }
+
+    // written to a temporary file first, so a crash never leaves a half written snapshot behind
+    public static void write(@NotNull Path snapshotFile, @NotNull InMemoryMarkingStore markingStore, long journalPosition) {
+        Path temporaryFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        int wordCount = BitSetMarking.getWordCount(markingStore.getDefinition());
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+            output.writeLong(journalPosition);
+            output.writeInt(wordCount);
+            markingStore.forEachMarking((Object subjectId, Marking marking) -> {
+                try {
+                    writeSubjectId(output, subjectId);
+                    for (long word : ((BitSetMarking) marking).toLongArray()) {
+                        output.writeLong(word);
+                    }
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            });
+        } catch (IOException | UncheckedIOException exception) {
+            deleteQuietly(temporaryFile);
+            throw new JournalFileException(snapshotFile.toString(), exception);
+        } catch (RuntimeException exception) {
+            deleteQuietly(temporaryFile);
+            throw exception;
+        }
+
+        try {
+            Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            throw new JournalFileException(snapshotFile.toString(), exception);
+        }
+    }
+
+    // loads the markings into the store and returns the journal position to continue from
+    public static long read(@NotNull Path snapshotFile, @NotNull InMemoryMarkingStore markingStore) {
+        Definition definition = markingStore.getDefinition();
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            long journalPosition = input.readLong();
+            long[] words = new long[input.readInt()];
+            while (true) {
+                int type = input.read();
+                if (-1 == type) {
+                    return journalPosition;
+                }
+
+                Object subjectId = readSubjectId(input, type);
+
+                for (int i = 0; i < words.length; i++) {
+                    words[i] = input.readLong();
+                }
+
+                markingStore.setMarkingBySubjectId(subjectId, new BitSetMarking(definition, words));
+            }
+        } catch (IOException exception) {
+            throw new JournalFileException(snapshotFile.toString(), exception);
+        }
+    }
+
+    private static void writeSubjectId(@NotNull DataOutputStream output, @NotNull Object subjectId) throws IOException {
+        if (subjectId instanceof Long longId) {
+            output.writeByte(LONG_ID);
+            output.writeLong(longId);
+        } else if (subjectId instanceof String stringId) {
+            output.writeByte(STRING_ID);
+            output.writeUTF(stringId);
+        } else if (subjectId instanceof UUID uuid) {
+            output.writeByte(UUID_ID);
+            output.writeLong(uuid.getMostSignificantBits());
+            output.writeLong(uuid.getLeastSignificantBits());
+        } else {
+            throw new SnapshotSubjectIdNotSupportedException(subjectId);
+        }
+    }
+
+    private static @NotNull Object readSubjectId(@NotNull DataInputStream input, int type) throws IOException {
+        return switch (type) {
+            case LONG_ID -> input.readLong();
+            case STRING_ID -> input.readUTF();
+            case UUID_ID -> new UUID(input.readLong(), input.readLong());
+            default -> throw new IOException("Unknown subject id type " + type + ".");
+        };
+    }
+
+    private static void deleteQuietly(@NotNull Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException exception) {
+            // the next snapshot overwrites it
+        }
+    }
+}
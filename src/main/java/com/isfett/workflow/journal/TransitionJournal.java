@@ -0,0 +1,157 @@
+package com.isfett.workflow.journal;
+
+import com.isfett.workflow.CompiledDefinition;
+import com.isfett.workflow.Definition;
+import com.isfett.workflow.Workflow;
+import com.isfett.workflow.event.CompletedEvent;
+import com.isfett.workflow.event.EventListenerInterface;
+import com.isfett.workflow.exception.JournalFileException;
+import com.isfett.workflow.exception.TransitionNotFoundInDefinitionException;
+import com.isfett.workflow.markingstore.InMemoryMarkingStore;
+
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+// appends every completed transition as a fixed size record of subject id, transition id and timestamp.
+// by default every record is written and forced to disk before append returns, a force interval above 1 groups that many records
+// into one write and force (group commit), a crash of the machine can then lose the records since the last force
+public class TransitionJournal implements EventListenerInterface, AutoCloseable {
+    static final int RECORD_SIZE = Long.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int BUFFERED_RECORDS = 4096;
+
+    private final Path journalFile;
+    private final CompiledDefinition compiledDefinition;
+    private final ToLongFunction<Object> subjectIdExtractor;
+    private final LongSupplier clock;
+    private final int forceInterval;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private InMemoryMarkingStore snapshotMarkingStore;
+    private Path snapshotFile;
+    private long snapshotInterval = 0;
+    private long recordsSinceSnapshot = 0;
+
+    public TransitionJournal(@NotNull Path journalFile, @NotNull Definition definition, @NotNull ToLongFunction<Object> subjectIdExtractor, @NotNull LongSupplier clock, int forceInterval) {
+        this.journalFile = journalFile;
+        this.compiledDefinition = definition.getCompiledDefinition();
+        this.subjectIdExtractor = subjectIdExtractor;
+        this.clock = clock;
+        this.forceInterval = Math.min(BUFFERED_RECORDS, Math.max(1, forceInterval));
+        this.buffer = ByteBuffer.allocateDirect(RECORD_SIZE * this.forceInterval).order(ByteOrder.LITTLE_ENDIAN);
+
+        try {
+            this.channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            // a record torn by a crash is cut off, so new records stay aligned
+            long size = this.channel.size();
+            this.channel.truncate(size - size % RECORD_SIZE);
+            this.channel.position(this.channel.size());
+        } catch (IOException exception) {
+            throw new JournalFileException(journalFile.toString(), exception);
+        }
+    }
+
+    public TransitionJournal(@NotNull Path journalFile, @NotNull Definition definition, @NotNull ToLongFunction<Object> subjectIdExtractor, @NotNull LongSupplier clock) {
+        this(journalFile, definition, subjectIdExtractor, clock, 1);
+    }
+
+    public TransitionJournal(@NotNull Path journalFile, @NotNull Definition definition, @NotNull ToLongFunction<Object> subjectIdExtractor) {
+        this(journalFile, definition, subjectIdExtractor, System::currentTimeMillis);
+    }
+
+    // the workflow needs an event dispatcher and has to dispatch completed events
+    public void register(@NotNull Workflow workflow) {
+        workflow.addEventListener(this, List.of("workflow." + workflow.getName() + ".completed"));
+    }
+
+    public void onCompleted(@NotNull CompletedEvent event, @NotNull String eventName) {
+        Integer transitionId = this.compiledDefinition.getTransitionId(event.getTransition());
+        if (null == transitionId) {
+            throw new TransitionNotFoundInDefinitionException(event.getTransition().getName());
+        }
+
+        this.append(this.subjectIdExtractor.applyAsLong(event.getSource()), transitionId);
+    }
+
+    public synchronized void append(long subjectId, int transitionId) {
+        this.buffer.putLong(subjectId);
+        this.buffer.putInt(transitionId);
+        this.buffer.putLong(this.clock.getAsLong());
+
+        if (!this.buffer.hasRemaining()) {
+            this.flush();
+        }
+
+        if (0 != this.snapshotInterval && ++this.recordsSinceSnapshot >= this.snapshotInterval) {
+            this.snapshot(this.snapshotMarkingStore, this.snapshotFile);
+        }
+    }
+
+    // writes the buffered records and forces them to disk
+    public synchronized void flush() {
+        this.buffer.flip();
+        try {
+            while (this.buffer.hasRemaining()) {
+                this.channel.write(this.buffer);
+            }
+            this.channel.force(false);
+        } catch (IOException exception) {
+            throw new JournalFileException(this.journalFile.toString(), exception);
+        } finally {
+            this.buffer.clear();
+        }
+    }
+
+    // the returned position belongs to the marking store state at the same moment, see MarkingSnapshot
+    public synchronized long getPosition() {
+        this.flush();
+
+        try {
+            return this.channel.position();
+        } catch (IOException exception) {
+            throw new JournalFileException(this.journalFile.toString(), exception);
+        }
+    }
+
+    // no transition may be applied while the snapshot is written, otherwise the snapshot and the position disagree
+    public synchronized void snapshot(@NotNull InMemoryMarkingStore markingStore, @NotNull Path snapshotFile) {
+        MarkingSnapshot.write(snapshotFile, markingStore, this.getPosition());
+
+        this.recordsSinceSnapshot = 0;
+    }
+
+    // writes a snapshot after every snapshot interval records, while holding the append lock so no record is appended meanwhile.
+    // the store must only contain journaled transitions, so the workflows must not apply transitions of the journal concurrently
+    public synchronized void setSnapshotInterval(long snapshotInterval, @NotNull InMemoryMarkingStore markingStore, @NotNull Path snapshotFile) {
+        this.snapshotInterval = Math.max(1, snapshotInterval);
+        this.snapshotMarkingStore = markingStore;
+        this.snapshotFile = snapshotFile;
+        this.recordsSinceSnapshot = 0;
+    }
+
+    @Override
+    public synchronized void close() {
+        this.flush();
+
+        try {
+            this.channel.close();
+        } catch (IOException exception) {
+            throw new JournalFileException(this.journalFile.toString(), exception);
+        }
+    }
+
+    public @NotNull Path getJournalFile() {
+        return journalFile;
+    }
+
+    public int getForceInterval() {
+        return forceInterval;
+    }
+}
@@ -0,0 +1,142 @@
+package com.isfett.workflow.markingstore;
+
+import com.isfett.workflow.BitSetMarking;
+import com.isfett.workflow.Definition;
+import com.isfett.workflow.Marking;
+import com.isfett.workflow.exception.InvalidMarkingStoreSizeException;
+import com.isfett.workflow.exception.SubjectIndexOutOfRangeException;
+
+import javax.validation.constraints.NotNull;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ToLongFunction;
+
+// one fixed size slot of place id bit set words per subject, addressed by a dense subject index and split into buffers of at most 1 GB
+public abstract class AbstractSlotMarkingStore implements MarkingStoreInterface {
+    private static final VarHandle WORDS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final int MAX_CHUNK_SIZE = 1 << 30;
+
+    protected final Definition definition;
+    protected final ToLongFunction<Object> subjectIndexExtractor;
+    protected final long capacity;
+    protected final int wordCount;
+    protected final int slotSize;
+    protected final int slotsPerChunk;
+    private final Boolean singleState;
+    private final AtomicReferenceArray<ByteBuffer> chunks;
+    private final Object chunkLock = new Object();
+
+    protected AbstractSlotMarkingStore(@NotNull Definition definition, @NotNull ToLongFunction<Object> subjectIndexExtractor, @NotNull Boolean singleState, long capacity) {
+        if (capacity < 1) {
+            throw new InvalidMarkingStoreSizeException(capacity);
+        }
+
+        this.definition = definition;
+        this.subjectIndexExtractor = subjectIndexExtractor;
+        this.singleState = singleState;
+        this.capacity = capacity;
+        this.wordCount = Math.max(1, BitSetMarking.getWordCount(definition));
+        this.slotSize = this.wordCount * Long.BYTES;
+        this.slotsPerChunk = MAX_CHUNK_SIZE / this.slotSize;
+        this.chunks = new AtomicReferenceArray<>((int) ((capacity + this.slotsPerChunk - 1) / this.slotsPerChunk));
+    }
+
+    @Override
+    public @NotNull Boolean isSingleState() {
+        return this.singleState;
+    }
+
+    @Override
+    public @NotNull Object getSubjectId(@NotNull Object subject) {
+        return this.subjectIndexExtractor.applyAsLong(subject);
+    }
+
+    @Override
+    public @NotNull Marking getMarking(@NotNull Object subject) {
+        return new BitSetMarking(this.definition, this.readSlot(this.getSubjectIndex(subject)));
+    }
+
+    @Override
+    public void setMarking(@NotNull Object subject, @NotNull Marking marking) {
+        this.writeSlot(this.getSubjectIndex(subject), MarkingWords.encode(this.definition, marking, this.singleState));
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    // a chunk that was never written reads as an empty marking
+    protected @NotNull long[] readSlot(long subjectIndex) {
+        long[] words = new long[this.wordCount];
+        ByteBuffer chunk = this.chunks.get(this.getChunkIndex(subjectIndex));
+        if (null == chunk) {
+            return words;
+        }
+
+        int offset = this.getSlotOffset(subjectIndex);
+        for (int i = 0; i < words.length; i++) {
+            words[i] = (long) WORDS.getAcquire(chunk, offset + i * Long.BYTES);
+        }
+
+        return words;
+    }
+
+    // the words of a slot are written one by one, concurrent writers for the same subject need to be serialized by the caller
+    protected void writeSlot(long subjectIndex, @NotNull long[] words) {
+        ByteBuffer chunk = this.getOrCreateChunk(this.getChunkIndex(subjectIndex));
+        int offset = this.getSlotOffset(subjectIndex);
+        for (int i = 0; i < this.wordCount; i++) {
+            WORDS.setRelease(chunk, offset + i * Long.BYTES, i < words.length ? words[i] : 0L);
+        }
+    }
+
+    protected long getSubjectIndex(@NotNull Object subject) {
+        long subjectIndex = this.subjectIndexExtractor.applyAsLong(subject);
+        if (subjectIndex < 0 || subjectIndex >= this.capacity) {
+            throw new SubjectIndexOutOfRangeException(subjectIndex, this.capacity);
+        }
+
+        return subjectIndex;
+    }
+
+    protected int getChunkCount() {
+        return this.chunks.length();
+    }
+
+    protected int getChunkSize(int chunkIndex) {
+        long slots = Math.min(this.slotsPerChunk, this.capacity - (long) chunkIndex * this.slotsPerChunk);
+
+        return (int) slots * this.slotSize;
+    }
+
+    protected @NotNull ByteBuffer getOrCreateChunk(int chunkIndex) {
+        ByteBuffer chunk = this.chunks.get(chunkIndex);
+        if (null != chunk) {
+            return chunk;
+        }
+
+        // a chunk can be large, so racing writers must not allocate one each
+        synchronized (this.chunkLock) {
+            chunk = this.chunks.get(chunkIndex);
+            if (null == chunk) {
+                chunk = this.createChunk(chunkIndex, this.getChunkSize(chunkIndex));
+                this.chunks.set(chunkIndex, chunk);
+            }
+
+            return chunk;
+        }
+    }
+
+    protected abstract @NotNull ByteBuffer createChunk(int chunkIndex, int chunkSize);
+
+    private int getChunkIndex(long subjectIndex) {
+        return (int) (subjectIndex / this.slotsPerChunk);
+    }
+
+    private int getSlotOffset(long subjectIndex) {
+        return (int) (subjectIndex % this.slotsPerChunk) * this.slotSize;
+    }
+}
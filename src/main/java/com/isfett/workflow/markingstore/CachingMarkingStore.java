@@ -0,0 +1,169 @@
+package com.isfett.workflow.markingstore;
+
+import com.isfett.workflow.Marking;
+import com.isfett.workflow.exception.InvalidMarkingStoreSizeException;
+
+import javax.validation.constraints.NotNull;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// caches read markings in least recently used segments keyed by the id the extractor returns for a subject, every write
+// goes to the wrapped store and drops the cached marking
+public class CachingMarkingStore implements MarkingStoreInterface {
+    private static final int MAX_SEGMENT_COUNT = 16;
+
+    private final MarkingStoreInterface markingStore;
+    private final Function<Object, Object> subjectIdExtractor;
+    private final Segment[] segments;
+    private final AtomicLong writeCount = new AtomicLong();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    public CachingMarkingStore(@NotNull MarkingStoreInterface markingStore, int maxSize, @NotNull Function<Object, Object> subjectIdExtractor) {
+        if (maxSize < 1) {
+            throw new InvalidMarkingStoreSizeException(maxSize);
+        }
+
+        this.markingStore = markingStore;
+        this.subjectIdExtractor = subjectIdExtractor;
+        this.segments = new Segment[Math.min(MAX_SEGMENT_COUNT, maxSize)];
+        for (int i = 0; i < this.segments.length; i++) {
+            this.segments[i] = new Segment(maxSize / this.segments.length + (i < maxSize % this.segments.length ? 1 : 0));
+        }
+    }
+
+    // the subjects are their own keys, entities without value equality only hit the cache for the same instance
+    public CachingMarkingStore(@NotNull MarkingStoreInterface markingStore, int maxSize) {
+        this(markingStore, maxSize, Function.identity());
+    }
+
+    @Override
+    public @NotNull Marking getMarking(@NotNull Object subject) {
+        Object subjectId = this.subjectIdExtractor.apply(subject);
+        Segment segment = this.getSegment(subjectId);
+        Marking marking = segment.get(subjectId);
+        if (null != marking) {
+            this.hitCount.increment();
+
+            return marking.copy();
+        }
+
+        this.missCount.increment();
+
+        // a write while loading makes the loaded marking stale, so it is not cached
+        long writeCount = this.writeCount.get();
+        marking = this.markingStore.getMarking(subject);
+        segment.putIfUnchanged(subjectId, marking.copy(), writeCount, this.writeCount);
+
+        return marking;
+    }
+
+    // the count is bumped again after the write, a load that read the count while the write was running is not cached
+    @Override
+    public void setMarking(@NotNull Object subject, @NotNull Marking marking) {
+        this.writeCount.incrementAndGet();
+        try {
+            this.markingStore.setMarking(subject, marking);
+        } finally {
+            this.writeCount.incrementAndGet();
+            this.invalidate(subject);
+        }
+    }
+
+    @Override
+    public void setMarkings(@NotNull Map<Object, Marking> markings) {
+        this.writeCount.incrementAndGet();
+        try {
+            this.markingStore.setMarkings(markings);
+        } finally {
+            this.writeCount.incrementAndGet();
+            markings.keySet().forEach(this::invalidate);
+        }
+    }
+
+    @Override
+    public @NotNull Boolean isSingleState() {
+        return this.markingStore.isSingleState();
+    }
+
+    @Override
+    public @NotNull Object getSubjectId(@NotNull Object subject) {
+        return this.markingStore.getSubjectId(subject);
+    }
+
+    public void invalidate(@NotNull Object subject) {
+        Object subjectId = this.subjectIdExtractor.apply(subject);
+        this.getSegment(subjectId).remove(subjectId);
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : this.segments) {
+            segment.clear();
+        }
+    }
+
+    public long getHitCount() {
+        return this.hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return this.missCount.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : this.segments) {
+            size += segment.size();
+        }
+
+        return size;
+    }
+
+    public @NotNull MarkingStoreInterface getMarkingStore() {
+        return markingStore;
+    }
+
+    private @NotNull Segment getSegment(@NotNull Object subjectId) {
+        int hash = subjectId.hashCode();
+
+        return this.segments[Math.floorMod(hash ^ (hash >>> 16), this.segments.length)];
+    }
+
+    private static final class Segment {
+        private final LinkedHashMap<Object, Marking> markings;
+
+        private Segment(int maxSize) {
+            this.markings = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Object, Marking> eldest) {
+                    return this.size() > maxSize;
+                }
+            };
+        }
+
+        private synchronized Marking get(@NotNull Object subjectId) {
+            return this.markings.get(subjectId);
+        }
+
+        private synchronized void putIfUnchanged(@NotNull Object subjectId, @NotNull Marking marking, long expectedWriteCount, @NotNull AtomicLong writeCount) {
+            if (expectedWriteCount == writeCount.get()) {
+                this.markings.put(subjectId, marking);
+            }
+        }
+
+        private synchronized void remove(@NotNull Object subjectId) {
+            this.markings.remove(subjectId);
+        }
+
+        private synchronized void clear() {
+            this.markings.clear();
+        }
+
+        private synchronized int size() {
+            return this.markings.size();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.isfett.workflow.markingstore;
+
+import com.isfett.workflow.BitSetMarking;
+import com.isfett.workflow.Definition;
+import com.isfett.workflow.Marking;
+import com.isfett.workflow.exception.InvalidMarkingStoreSizeException;
+
+import javax.validation.constraints.NotNull;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+// keeps the markings outside of the subjects, as place id bit sets keyed by the id the extractor returns for a subject.
+// the versions come from one counter of the store, a subject that is removed and stored again never gets a version it had before
+public class InMemoryMarkingStore implements VersionedMarkingStoreInterface {
+    private static final long UNBOUNDED = Long.MAX_VALUE;
+
+    private final Definition definition;
+    private final Function<Object, Object> subjectIdExtractor;
+    private final Boolean singleState;
+    private final long maxSize;
+    private final ConcurrentHashMap<Object, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong lastVersion = new AtomicLong();
+    // the subject ids of the stored entries, oldest first. a bounded store writes under its lock, reads never take it
+    private final LinkedHashSet<Object> insertionOrder = new LinkedHashSet<>();
+
+    // WARNING: eviction loses state. once more than maxSize subjects are stored the oldest ones are dropped, an evicted
+    // subject has no marking anymore and the workflow puts it back into the initial place. only bound the store when the
+    // markings can be rebuilt from somewhere else, like a journal
+    public InMemoryMarkingStore(@NotNull Definition definition, @NotNull Function<Object, Object> subjectIdExtractor, @NotNull Boolean singleState, long maxSize) {
+        if (maxSize < 1) {
+            throw new InvalidMarkingStoreSizeException(maxSize);
+        }
+
+        this.definition = definition;
+        this.subjectIdExtractor = subjectIdExtractor;
+        this.singleState = singleState;
+        this.maxSize = maxSize;
+    }
+
+    public InMemoryMarkingStore(@NotNull Definition definition, @NotNull Function<Object, Object> subjectIdExtractor, @NotNull Boolean singleState) {
+        this(definition, subjectIdExtractor, singleState, UNBOUNDED);
+    }
+
+    public InMemoryMarkingStore(@NotNull Definition definition, @NotNull Function<Object, Object> subjectIdExtractor) {
+        this(definition, subjectIdExtractor, false, UNBOUNDED);
+    }
+
+    @Override
+    public @NotNull Boolean isSingleState() {
+        return this.singleState;
+    }
+
+    @Override
+    public @NotNull Object getSubjectId(@NotNull Object subject) {
+        return this.subjectIdExtractor.apply(subject);
+    }
+
+    @Override
+    public @NotNull Marking getMarking(@NotNull Object subject) {
+        return this.getMarkingBySubjectId(this.subjectIdExtractor.apply(subject));
+    }
+
+    @Override
+    public void setMarking(@NotNull Object subject, @NotNull Marking marking) {
+        this.setMarkingBySubjectId(this.subjectIdExtractor.apply(subject), marking);
+    }
+
+    public @NotNull Marking getMarkingBySubjectId(@NotNull Object subjectId) {
+        Entry entry = this.entries.get(subjectId);
+
+        return null == entry ? new BitSetMarking(this.definition) : new BitSetMarking(this.definition, entry.words);
+    }
+
+    public void setMarkingBySubjectId(@NotNull Object subjectId, @NotNull Marking marking) {
+        long[] words = this.encode(marking);
+
+        if (!this.isBounded()) {
+            this.put(subjectId, words);
+
+            return;
+        }
+
+        synchronized (this.insertionOrder) {
+            this.put(subjectId, words);
+            this.inserted(subjectId);
+        }
+    }
+
+    public void forEachMarking(@NotNull BiConsumer<Object, Marking> action) {
+        this.entries.forEach((Object subjectId, Entry entry) -> action.accept(subjectId, new BitSetMarking(this.definition, entry.words)));
+    }
+
+    public @NotNull Definition getDefinition() {
+        return definition;
+    }
+
+    @Override
+    public @NotNull VersionedMarking getVersionedMarking(@NotNull Object subject) {
+        Entry entry = this.entries.get(this.subjectIdExtractor.apply(subject));
+        if (null == entry) {
+            return new VersionedMarking(new BitSetMarking(this.definition), 0);
+        }
+
+        return new VersionedMarking(new BitSetMarking(this.definition, entry.words), entry.version);
+    }
+
+    @Override
+    public @NotNull Boolean compareAndSetMarking(@NotNull Object subject, long expectedVersion, @NotNull Marking marking) {
+        Object subjectId = this.subjectIdExtractor.apply(subject);
+        long[] words = this.encode(marking);
+
+        if (!this.isBounded()) {
+            return this.compareAndPut(subjectId, expectedVersion, words);
+        }
+
+        synchronized (this.insertionOrder) {
+            if (!this.compareAndPut(subjectId, expectedVersion, words)) {
+                return false;
+            }
+
+            this.inserted(subjectId);
+
+            return true;
+        }
+    }
+
+    public void removeMarking(@NotNull Object subject) {
+        Object subjectId = this.subjectIdExtractor.apply(subject);
+
+        if (!this.isBounded()) {
+            this.entries.remove(subjectId);
+
+            return;
+        }
+
+        synchronized (this.insertionOrder) {
+            this.entries.remove(subjectId);
+            this.insertionOrder.remove(subjectId);
+        }
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    private @NotNull long[] encode(@NotNull Marking marking) {
+        return MarkingWords.encode(this.definition, marking, this.singleState);
+    }
+
+    private boolean isBounded() {
+        return UNBOUNDED != this.maxSize;
+    }
+
+    private void put(@NotNull Object subjectId, @NotNull long[] words) {
+        this.entries.compute(subjectId, (Object id, Entry currentEntry) -> new Entry(words, this.lastVersion.incrementAndGet()));
+    }
+
+    // the new entry is the only one holding the words, so it tells whether the expected version matched
+    private boolean compareAndPut(@NotNull Object subjectId, long expectedVersion, @NotNull long[] words) {
+        Entry entry = this.entries.compute(subjectId, (Object id, Entry currentEntry) -> {
+            long currentVersion = null == currentEntry ? 0 : currentEntry.version;
+
+            return expectedVersion == currentVersion ? new Entry(words, this.lastVersion.incrementAndGet()) : currentEntry;
+        });
+
+        return null != entry && words == entry.words;
+    }
+
+    // first in, first out eviction under the lock of the insertion order, an updated subject keeps its position
+    private void inserted(@NotNull Object subjectId) {
+        this.insertionOrder.add(subjectId);
+
+        Iterator<Object> subjectIds = this.insertionOrder.iterator();
+        while (this.insertionOrder.size() > this.maxSize) {
+            Object evictedSubjectId = subjectIds.next();
+            subjectIds.remove();
+            this.entries.remove(evictedSubjectId);
+        }
+    }
+
+    private static final class Entry {
+        private final long[] words;
+        private final long version;
+
+        private Entry(@NotNull long[] words, long version) {
+            this.words = words;
+            this.version = version;
+        }
+    }
+}
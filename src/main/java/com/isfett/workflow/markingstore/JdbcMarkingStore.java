@@ -0,0 +1,279 @@
+package com.isfett.workflow.markingstore;
+
+import com.isfett.workflow.Marking;
+import com.isfett.workflow.exception.InvalidTableNameException;
+import com.isfett.workflow.exception.JdbcMarkingStoreException;
+import com.isfett.workflow.exception.MarkingTooLargeForJdbcMarkingStoreException;
+import com.isfett.workflow.exception.PlaceNotStorableInJdbcMarkingStoreException;
+
+import javax.sql.DataSource;
+import javax.validation.constraints.NotNull;
+import java.sql.*;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+// one row per subject id with the comma separated places and a version that every write increments.
+// places with a comma in their name and markings longer than the places column are rejected before anything is written
+public class JdbcMarkingStore implements VersionedMarkingStoreInterface {
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)?");
+    private static final String PLACE_SEPARATOR = ",";
+    private static final int MAX_PLACES_LENGTH = 4000;
+
+    private final DataSource dataSource;
+    private final String tableName;
+    private final Function<Object, String> subjectIdExtractor;
+    private final Boolean singleState;
+    private final String selectSql;
+    private final String updateSql;
+    private final String insertSql;
+    private final String compareAndSetSql;
+    private final String existsSql;
+
+    public JdbcMarkingStore(@NotNull DataSource dataSource, @NotNull String tableName, @NotNull Function<Object, String> subjectIdExtractor, @NotNull Boolean singleState) {
+        if (!TABLE_NAME.matcher(tableName).matches()) {
+            throw new InvalidTableNameException(tableName);
+        }
+
+        this.dataSource = dataSource;
+        this.tableName = tableName;
+        this.subjectIdExtractor = subjectIdExtractor;
+        this.singleState = singleState;
+        this.selectSql = "SELECT places, version FROM " + tableName + " WHERE subject_id = ?";
+        this.updateSql = "UPDATE " + tableName + " SET places = ?, version = version + 1 WHERE subject_id = ?";
+        this.insertSql = "INSERT INTO " + tableName + " (subject_id, places, version) VALUES (?, ?, 1)";
+        this.compareAndSetSql = "UPDATE " + tableName + " SET places = ?, version = version + 1 WHERE subject_id = ? AND version = ?";
+        this.existsSql = "SELECT 1 FROM " + tableName + " WHERE subject_id = ?";
+    }
+
+    public JdbcMarkingStore(@NotNull DataSource dataSource, @NotNull String tableName, @NotNull Function<Object, String> subjectIdExtractor) {
+        this(dataSource, tableName, subjectIdExtractor, false);
+    }
+
+    public void createTable() {
+        this.execute((Connection connection) -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS " + this.tableName + " (subject_id VARCHAR(255) NOT NULL PRIMARY KEY, places VARCHAR(" + MAX_PLACES_LENGTH + ") NOT NULL, version BIGINT NOT NULL)");
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public @NotNull Boolean isSingleState() {
+        return this.singleState;
+    }
+
+    @Override
+    public @NotNull Object getSubjectId(@NotNull Object subject) {
+        return this.subjectIdExtractor.apply(subject);
+    }
+
+    @Override
+    public @NotNull Marking getMarking(@NotNull Object subject) {
+        return this.getVersionedMarking(subject).getMarking();
+    }
+
+    @Override
+    public @NotNull VersionedMarking getVersionedMarking(@NotNull Object subject) {
+        String subjectId = this.subjectIdExtractor.apply(subject);
+
+        return this.execute((Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement(this.selectSql)) {
+                statement.setString(1, subjectId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (!resultSet.next()) {
+                        return new VersionedMarking(new Marking(List.of()), 0);
+                    }
+
+                    return new VersionedMarking(new Marking(decode(resultSet.getString(1))), resultSet.getLong(2));
+                }
+            }
+        });
+    }
+
+    @Override
+    public void setMarking(@NotNull Object subject, @NotNull Marking marking) {
+        this.setMarkings(Map.of(subject, marking));
+    }
+
+    // one batch of updates, then one batch of inserts for the subjects without a row, in a single transaction
+    @Override
+    public void setMarkings(@NotNull Map<Object, Marking> markings) {
+        if (markings.isEmpty()) {
+            return;
+        }
+
+        List<String> subjectIds = new ArrayList<>(markings.size());
+        List<String> places = new ArrayList<>(markings.size());
+        markings.forEach((Object subject, Marking marking) -> {
+            subjectIds.add(this.subjectIdExtractor.apply(subject));
+            places.add(this.encode(marking));
+        });
+
+        // a concurrent writer can insert a row between the update and the insert, the second attempt updates that row
+        for (int attempt = 1; ; attempt++) {
+            try {
+                this.writeMarkings(subjectIds, places);
+
+                return;
+            } catch (JdbcMarkingStoreException exception) {
+                if (attempt > 1 || !(exception.getCause() instanceof SQLException sqlException) || !isDuplicateKey(sqlException)) {
+                    throw exception;
+                }
+            }
+        }
+    }
+
+    private void writeMarkings(@NotNull List<String> subjectIds, @NotNull List<String> places) {
+        this.executeInTransaction((Connection connection) -> {
+            int[] updateCounts;
+            try (PreparedStatement statement = connection.prepareStatement(this.updateSql)) {
+                for (int i = 0; i < subjectIds.size(); i++) {
+                    statement.setString(1, places.get(i));
+                    statement.setString(2, subjectIds.get(i));
+                    statement.addBatch();
+                }
+                updateCounts = statement.executeBatch();
+            }
+
+            List<Integer> missingRows = new ArrayList<>();
+            for (int i = 0; i < updateCounts.length; i++) {
+                if (0 == updateCounts[i] || (Statement.SUCCESS_NO_INFO == updateCounts[i] && !this.exists(connection, subjectIds.get(i)))) {
+                    missingRows.add(i);
+                }
+            }
+
+            if (!missingRows.isEmpty()) {
+                try (PreparedStatement statement = connection.prepareStatement(this.insertSql)) {
+                    for (int i : missingRows) {
+                        statement.setString(1, subjectIds.get(i));
+                        statement.setString(2, places.get(i));
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            }
+
+            return null;
+        });
+    }
+
+    // drivers that can't tell the count of a batched statement report success without info, the row is looked up then
+    private boolean exists(@NotNull Connection connection, @NotNull String subjectId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(this.existsSql)) {
+            statement.setString(1, subjectId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+
+    @Override
+    public @NotNull Boolean compareAndSetMarking(@NotNull Object subject, long expectedVersion, @NotNull Marking marking) {
+        String subjectId = this.subjectIdExtractor.apply(subject);
+        String places = this.encode(marking);
+
+        return this.execute((Connection connection) -> {
+            if (0 == expectedVersion) {
+                try (PreparedStatement statement = connection.prepareStatement(this.insertSql)) {
+                    statement.setString(1, subjectId);
+                    statement.setString(2, places);
+
+                    return 1 == statement.executeUpdate();
+                } catch (SQLException exception) {
+                    if (isDuplicateKey(exception)) {
+                        return false;
+                    }
+
+                    throw exception;
+                }
+            }
+
+            try (PreparedStatement statement = connection.prepareStatement(this.compareAndSetSql)) {
+                statement.setString(1, places);
+                statement.setString(2, subjectId);
+                statement.setLong(3, expectedVersion);
+
+                return 1 == statement.executeUpdate();
+            }
+        });
+    }
+
+    public @NotNull String getTableName() {
+        return tableName;
+    }
+
+    private @NotNull String encode(@NotNull Marking marking) {
+        List<String> places = marking.getPlaces();
+        if (this.singleState && places.size() > 1) {
+            // like the other stores, a single state subject only keeps the last place of the marking
+            places = places.subList(places.size() - 1, places.size());
+        }
+
+        for (String place : places) {
+            if (place.contains(PLACE_SEPARATOR)) {
+                throw new PlaceNotStorableInJdbcMarkingStoreException(place, this.tableName);
+            }
+        }
+
+        String encodedPlaces = String.join(PLACE_SEPARATOR, places);
+        if (encodedPlaces.length() > MAX_PLACES_LENGTH) {
+            throw new MarkingTooLargeForJdbcMarkingStoreException(this.tableName, encodedPlaces.length(), MAX_PLACES_LENGTH);
+        }
+
+        return encodedPlaces;
+    }
+
+    private static @NotNull List<String> decode(String places) {
+        if (null == places || places.isEmpty()) {
+            return List.of();
+        }
+
+        return Arrays.asList(places.split(PLACE_SEPARATOR));
+    }
+
+    // integrity constraint violations have the sql state class 23
+    private static boolean isDuplicateKey(@NotNull SQLException exception) {
+        // batch updates report the failing statement as the next exception
+        for (SQLException current = exception; null != current; current = current.getNextException()) {
+            if (current instanceof SQLIntegrityConstraintViolationException || (null != current.getSQLState() && current.getSQLState().startsWith("23"))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private <T> T execute(@NotNull SqlFunction<T> function) {
+        try (Connection connection = this.dataSource.getConnection()) {
+            return function.apply(connection);
+        } catch (SQLException exception) {
+            throw new JdbcMarkingStoreException(this.tableName, exception);
+        }
+    }
+
+    private <T> T executeInTransaction(@NotNull SqlFunction<T> function) {
+        return this.execute((Connection connection) -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                T result = function.apply(connection);
+                connection.commit();
+
+                return result;
+            } catch (SQLException | RuntimeException exception) {
+                connection.rollback();
+                throw exception;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface SqlFunction<T> {
+        T apply(@NotNull Connection connection) throws SQLException;
+    }
+}
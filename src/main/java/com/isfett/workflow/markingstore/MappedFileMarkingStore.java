@@ -0,0 +1,218 @@
+package com.isfett.workflow.markingstore;
+
+import com.isfett.workflow.Definition;
+import com.isfett.workflow.Marking;
+import com.isfett.workflow.exception.InvalidMarkingStoreFileSizeException;
+import com.isfett.workflow.exception.MarkingStoreFileException;
+
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.ToLongFunction;
+import java.util.zip.CRC32;
+
+// maps a slot file into memory, so reopening the store does not load anything
+// every write is appended to a redo log first, the log is replayed on open and truncated whenever the mapped slots are forced to disk.
+// by default the log is forced on every write, a log force interval above 1 groups the forces of that many writes (group commit),
+// a crash of the machine can then lose the writes since the last forced one
+public class MappedFileMarkingStore extends AbstractSlotMarkingStore implements AutoCloseable {
+    private final Path slotFile;
+    private final Path logFile;
+    private final int forceInterval;
+    private final int logForceInterval;
+    private final FileChannel slotChannel;
+    private final FileChannel logChannel;
+    private final ByteBuffer logRecord;
+    private int writesSinceForce = 0;
+    private int writesSinceLogForce = 0;
+
+    public MappedFileMarkingStore(@NotNull Definition definition, @NotNull ToLongFunction<Object> subjectIndexExtractor, @NotNull Boolean singleState, long capacity, @NotNull Path slotFile, int forceInterval, int logForceInterval) {
+        super(definition, subjectIndexExtractor, singleState, capacity);
+
+        this.slotFile = slotFile;
+        this.logFile = slotFile.resolveSibling(slotFile.getFileName() + ".log");
+        this.forceInterval = Math.max(1, forceInterval);
+        this.logForceInterval = Math.max(1, logForceInterval);
+        this.logRecord = ByteBuffer.allocate(Long.BYTES + this.slotSize + Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        FileChannel slotChannel = null;
+        FileChannel logChannel = null;
+        try {
+            slotChannel = FileChannel.open(slotFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.slotChannel = slotChannel;
+            long expectedFileSize = capacity * this.slotSize;
+            long fileSize = slotChannel.size();
+            if (0 != fileSize && expectedFileSize != fileSize) {
+                throw new InvalidMarkingStoreFileSizeException(slotFile.toString(), fileSize, expectedFileSize);
+            }
+
+            for (int chunkIndex = 0; chunkIndex < this.getChunkCount(); chunkIndex++) {
+                this.getOrCreateChunk(chunkIndex);
+            }
+
+            logChannel = FileChannel.open(this.logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.logChannel = logChannel;
+            this.replayLog();
+        } catch (IOException exception) {
+            MarkingStoreFileException markingStoreFileException = new MarkingStoreFileException(slotFile.toString(), exception);
+            closeAfterFailure(markingStoreFileException, logChannel, slotChannel);
+            throw markingStoreFileException;
+        } catch (RuntimeException exception) {
+            closeAfterFailure(exception, logChannel, slotChannel);
+            throw exception;
+        }
+    }
+
+    public MappedFileMarkingStore(@NotNull Definition definition, @NotNull ToLongFunction<Object> subjectIndexExtractor, @NotNull Boolean singleState, long capacity, @NotNull Path slotFile, int forceInterval) {
+        this(definition, subjectIndexExtractor, singleState, capacity, slotFile, forceInterval, 1);
+    }
+
+    public MappedFileMarkingStore(@NotNull Definition definition, @NotNull ToLongFunction<Object> subjectIndexExtractor, long capacity, @NotNull Path slotFile) {
+        this(definition, subjectIndexExtractor, false, capacity, slotFile, 1024);
+    }
+
+    @Override
+    public synchronized void setMarking(@NotNull Object subject, @NotNull Marking marking) {
+        long subjectIndex = this.getSubjectIndex(subject);
+        long[] words = MarkingWords.encode(this.definition, marking, this.isSingleState());
+
+        try {
+            this.appendLogRecord(subjectIndex, words);
+
+            if (++this.writesSinceLogForce >= this.logForceInterval) {
+                this.logChannel.force(false);
+                this.writesSinceLogForce = 0;
+            }
+        } catch (IOException exception) {
+            throw new MarkingStoreFileException(this.logFile.toString(), exception);
+        }
+
+        this.writeSlot(subjectIndex, words);
+
+        if (++this.writesSinceForce >= this.forceInterval) {
+            this.force();
+        }
+    }
+
+    // writes the mapped slots to disk, after that the redo log is not needed anymore
+    public synchronized void force() {
+        for (int chunkIndex = 0; chunkIndex < this.getChunkCount(); chunkIndex++) {
+            ((MappedByteBuffer) this.getOrCreateChunk(chunkIndex)).force();
+        }
+
+        try {
+            this.logChannel.truncate(0);
+            this.logChannel.force(true);
+        } catch (IOException exception) {
+            throw new MarkingStoreFileException(this.logFile.toString(), exception);
+        }
+
+        this.writesSinceForce = 0;
+        this.writesSinceLogForce = 0;
+    }
+
+    @Override
+    public synchronized void close() {
+        this.force();
+
+        try {
+            this.logChannel.close();
+            this.slotChannel.close();
+        } catch (IOException exception) {
+            throw new MarkingStoreFileException(this.slotFile.toString(), exception);
+        }
+    }
+
+    public @NotNull Path getSlotFile() {
+        return slotFile;
+    }
+
+    public @NotNull Path getLogFile() {
+        return logFile;
+    }
+
+    public int getLogForceInterval() {
+        return logForceInterval;
+    }
+
+    @Override
+    protected @NotNull ByteBuffer createChunk(int chunkIndex, int chunkSize) {
+        try {
+            return this.slotChannel.map(FileChannel.MapMode.READ_WRITE, (long) chunkIndex * this.slotsPerChunk * this.slotSize, chunkSize);
+        } catch (IOException exception) {
+            throw new MarkingStoreFileException(this.slotFile.toString(), exception);
+        }
+    }
+
+    // a record is the subject index, the slot words and a checksum, so a record torn by a crash is ignored
+    private void appendLogRecord(long subjectIndex, @NotNull long[] words) throws IOException {
+        this.logRecord.clear();
+        this.logRecord.putLong(subjectIndex);
+        for (int i = 0; i < this.wordCount; i++) {
+            this.logRecord.putLong(i < words.length ? words[i] : 0L);
+        }
+        this.logRecord.putLong(getChecksum(this.logRecord, this.logRecord.position()));
+        this.logRecord.flip();
+
+        while (this.logRecord.hasRemaining()) {
+            this.logChannel.write(this.logRecord, this.logChannel.size());
+        }
+    }
+
+    private void replayLog() throws IOException {
+        long position = 0;
+        while (true) {
+            this.logRecord.clear();
+            while (this.logRecord.hasRemaining()) {
+                if (this.logChannel.read(this.logRecord, position + this.logRecord.position()) < 0) {
+                    break;
+                }
+            }
+
+            if (this.logRecord.hasRemaining() || this.logRecord.getLong(this.logRecord.limit() - Long.BYTES) != getChecksum(this.logRecord, this.logRecord.limit() - Long.BYTES)) {
+                break;
+            }
+
+            long subjectIndex = this.logRecord.getLong(0);
+            if (subjectIndex < 0 || subjectIndex >= this.capacity) {
+                break;
+            }
+
+            long[] words = new long[this.wordCount];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = this.logRecord.getLong(Long.BYTES + i * Long.BYTES);
+            }
+
+            this.writeSlot(subjectIndex, words);
+            position += this.logRecord.limit();
+        }
+
+        this.force();
+    }
+
+    private static long getChecksum(@NotNull ByteBuffer record, int length) {
+        CRC32 checksum = new CRC32();
+        checksum.update(record.array(), 0, length);
+
+        return checksum.getValue();
+    }
+
+    private static void closeAfterFailure(@NotNull Exception exception, FileChannel... channels) {
+        for (FileChannel channel : channels) {
+            if (null == channel) {
+                continue;
+            }
+
+            try {
+                channel.close();
+            } catch (IOException closeException) {
+                exception.addSuppressed(closeException);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.isfett.workflow.markingstore;
+
+import org.hibernate.validator.constraints.NotEmpty;
+
+import javax.validation.constraints.NotNull;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+final class MarkingAccessor {
+    @FunctionalInterface
+    interface Reader {
+        @NotNull List<String> read(@NotNull Object subject) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface Writer {
+        void write(@NotNull Object subject, @NotEmpty List<String> places) throws Throwable;
+    }
+
+    private MarkingAccessor() {
+    }
+
+    // a misconfiguration found while resolving the accessor is thrown on every call, like the reflective lookup did
+    @SuppressWarnings("unchecked")
+    static @NotNull Reader createReader(@NotNull MethodHandle getter, @NotNull Type type, boolean singleState) {
+        try {
+            MethodHandle handle = getter.asType(MethodType.methodType(Object.class, Object.class));
+
+            if (singleState) {
+                if (getRawClass(type).isEnum()) {
+                    return (Object subject) -> {
+                        Object value = handle.invokeExact(subject);
+
+                        return null == value ? List.of() : List.of(value.toString());
+                    };
+                }
+
+                return (Object subject) -> {
+                    Object value = handle.invokeExact(subject);
+
+                    return null == value ? List.of() : List.of((String) value);
+                };
+            }
+
+            if (getElementClass(type).isEnum()) {
+                return (Object subject) -> {
+                    Object value = handle.invokeExact(subject);
+                    if (null == value) {
+                        return List.of();
+                    }
+
+                    List<?> enumPlaces = (List<?>) value;
+                    List<String> places = new ArrayList<>(enumPlaces.size());
+                    for (Object place : enumPlaces) {
+                        places.add(place.toString());
+                    }
+
+                    return places;
+                };
+            }
+
+            return (Object subject) -> {
+                Object value = handle.invokeExact(subject);
+
+                return null == value ? List.of() : (List<String>) value;
+            };
+        } catch (RuntimeException exception) {
+            return createFailingReader(exception);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static @NotNull Writer createWriter(@NotNull MethodHandle setter, @NotNull Type type, boolean singleState) {
+        try {
+            MethodHandle handle = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+
+            if (singleState) {
+                if (getRawClass(type).isEnum()) {
+                    Class<Enum> enumClass = (Class<Enum>) getRawClass(type);
+
+                    return (Object subject, List<String> places) -> {
+                        handle.invokeExact(subject, (Object) Enum.valueOf(enumClass, places.get(places.size() - 1)));
+                    };
+                }
+
+                return (Object subject, List<String> places) -> {
+                    handle.invokeExact(subject, (Object) places.get(places.size() - 1));
+                };
+            }
+
+            if (getElementClass(type).isEnum()) {
+                Class<Enum> enumClass = (Class<Enum>) getElementClass(type);
+
+                return (Object subject, List<String> places) -> {
+                    List<Enum> newPlaces = new ArrayList<>(places.size());
+                    for (String place : places) {
+                        newPlaces.add(Enum.valueOf(enumClass, place));
+                    }
+
+                    handle.invokeExact(subject, (Object) newPlaces);
+                };
+            }
+
+            return (Object subject, List<String> places) -> {
+                handle.invokeExact(subject, (Object) places);
+            };
+        } catch (RuntimeException exception) {
+            return createFailingWriter(exception);
+        }
+    }
+
+    static @NotNull Reader createFailingReader(@NotNull Throwable throwable) {
+        return (Object subject) -> {
+            throw throwable;
+        };
+    }
+
+    static @NotNull Writer createFailingWriter(@NotNull Throwable throwable) {
+        return (Object subject, List<String> places) -> {
+            throw throwable;
+        };
+    }
+
+    private static @NotNull Class<?> getRawClass(@NotNull Type type) {
+        if (type instanceof ParameterizedType parameterizedType) {
+            return (Class<?>) parameterizedType.getRawType();
+        }
+
+        return (Class<?>) type;
+    }
+
+    private static @NotNull Class<?> getElementClass(@NotNull Type type) {
+        return (Class<?>) ((ParameterizedType) type).getActualTypeArguments()[0];
+    }
+}
@@ -3,6 +3,9 @@ package com.isfett.workflow.markingstore;
 import com.isfett.workflow.Marking;
 
 import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 public interface MarkingStoreInterface {
     @NotNull
@@ -10,5 +13,26 @@ public interface MarkingStoreInterface {
 
     void setMarking(@NotNull Object subject, @NotNull Marking marking);
 
+    // the markings in the order of the subjects, stores that can read several markings in one round trip should override this
+    default @NotNull List<Marking> getMarkings(@NotNull List<?> subjects) {
+        List<Marking> markings = new ArrayList<>(subjects.size());
+        for (Object subject : subjects) {
+            markings.add(this.getMarking(subject));
+        }
+
+        return markings;
+    }
+
+    // stores that can write several markings in one round trip should override this
+    default void setMarkings(@NotNull Map<Object, Marking> markings) {
+        markings.forEach(this::setMarking);
+    }
+
     @NotNull Boolean isSingleState();
+
+    // the key the marking of a subject is stored under, two subjects with the same key share one marking.
+    // stores that keep the marking on the subject itself use the subject
+    default @NotNull Object getSubjectId(@NotNull Object subject) {
+        return subject;
+    }
 }
@@ -0,0 +1,33 @@
+package com.isfett.workflow.markingstore;
+
+import com.isfett.workflow.BitSetMarking;
+import com.isfett.workflow.Definition;
+import com.isfett.workflow.Marking;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+// encodes markings as the place id bit set words of a definition for the stores that keep markings themselves
+final class MarkingWords {
+    private MarkingWords() {
+    }
+
+    static @NotNull long[] encode(@NotNull Definition definition, @NotNull Marking marking, boolean singleState) {
+        BitSetMarking bitSetMarking;
+        if (marking instanceof BitSetMarking otherBitSetMarking && definition == otherBitSetMarking.getDefinition()) {
+            bitSetMarking = otherBitSetMarking;
+        } else {
+            bitSetMarking = new BitSetMarking(definition, marking.getPlaces());
+        }
+
+        if (singleState) {
+            // like the reflective stores, a single state subject only keeps the last place of the marking
+            List<String> places = bitSetMarking.getPlaces();
+            if (places.size() > 1) {
+                bitSetMarking = new BitSetMarking(definition, List.of(places.get(places.size() - 1)));
+            }
+        }
+
+        return bitSetMarking.toLongArray();
+    }
+}
@@ -4,25 +4,33 @@ import com.isfett.workflow.Marking;
 import com.isfett.workflow.exception.InvalidMethodMarkingStoreConfigurationException;
 import com.isfett.workflow.exception.MethodNotFoundInClassException;
 
-import java.lang.reflect.ParameterizedType;
-import java.util.Arrays;
 import javax.validation.constraints.NotNull;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.util.ArrayList;
-import java.util.List;
+import java.lang.reflect.Type;
 
 public class MethodMarkingStore implements MarkingStoreInterface {
     private final String property;
+    private final String getterName;
+    private final String setterName;
     private Boolean singleState = false;
+    private final ClassValue<Accessor> accessors = new ClassValue<>() {
+        @Override
+        protected Accessor computeValue(Class<?> subjectClass) {
+            return new Accessor(subjectClass);
+        }
+    };
 
     public MethodMarkingStore(@NotNull Boolean singleState, @NotNull String property) {
+        this(property);
         this.singleState = singleState;
-        this.property = property;
     }
 
     public MethodMarkingStore(@NotNull String property) {
         this.property = property;
+        this.getterName = "get" + this.property.substring(0, 1).toUpperCase() + this.property.substring(1);
+        this.setterName = "set" + this.property.substring(0, 1).toUpperCase() + this.property.substring(1);
     }
 
     @Override
@@ -30,102 +38,73 @@ public class MethodMarkingStore implements MarkingStoreInterface {
         return this.singleState;
     }
 
-    @SuppressWarnings({"unchecked","rawtypes"})
     public @NotNull Marking getMarking(@NotNull Object subject) {
-        String methodName = "get" + this.property.substring(0, 1).toUpperCase() + this.property.substring(1);
-        Method methodFound = null;
+        Accessor accessor = this.accessors.get(subject.getClass());
 
-        Method[] methods = subject.getClass().getDeclaredMethods();
-        for (Method method : methods) {
-            if (method.getName().equals(methodName) && Modifier.isPublic(method.getModifiers())) {
-                methodFound = method;
-                break;
-            }
+        if (null == accessor.reader) {
+            throw new MethodNotFoundInClassException(this.getterName, subject.getClass().getName());
         }
 
-        if (null == methodFound) {
-            throw new MethodNotFoundInClassException(methodName, subject.getClass().getName());
+        try {
+            return new Marking(accessor.reader.read(subject));
+        } catch (Throwable e) {
+            throw new InvalidMethodMarkingStoreConfigurationException(this.getterName, subject.getClass().getName(), e);
         }
+    }
+
+    public void setMarking(@NotNull Object subject, @NotNull Marking marking) {
+        Accessor accessor = this.accessors.get(subject.getClass());
 
-        List<String> markingValue = new ArrayList<>();
+        if (null == accessor.writer) {
+            throw new MethodNotFoundInClassException(this.setterName, subject.getClass().getName());
+        }
 
         try {
-            if (this.singleState) {
-                String value = null;
-                if (methodFound.getReturnType().isEnum()) {
-                    Enum<?> tempValue = (Enum<?>) methodFound.invoke(subject);
-                    if (null != tempValue) {
-                        value = tempValue.toString();
-                    }
-                } else {
-                    value = (String) methodFound.invoke(subject);
-                }
-                if (null != value) {
-                    markingValue.add(value);
-                }
-            } else {
-                List<String> value = null;
-                if (((Class<?>) ((ParameterizedType) methodFound.getGenericReturnType()).getActualTypeArguments()[0]).isEnum()) {
-                    List<Enum> tempValue = (List<Enum>) methodFound.invoke(subject);
-                    if (null != tempValue) {
-                        value = tempValue.stream().map(Enum::toString).toList();
-                    }
-                } else {
-                    value = (List<String>) methodFound.invoke(subject);
-                }
-                if (null != value) {
-                    markingValue = value;
-                }
+            accessor.writer.write(subject, marking.getPlaces());
+        } catch (Throwable e) {
+            throw new InvalidMethodMarkingStoreConfigurationException(this.setterName, subject.getClass().getName(), e);
+        }
+    }
+
+    private static Method findPublicMethod(@NotNull Class<?> subjectClass, @NotNull String methodName) {
+        for (Method method : subjectClass.getDeclaredMethods()) {
+            if (method.getName().equals(methodName) && Modifier.isPublic(method.getModifiers())) {
+                return method;
             }
-        } catch (Exception e) {
-            throw new InvalidMethodMarkingStoreConfigurationException(methodName, subject.getClass().getName(), e);
         }
 
-        return new Marking(markingValue);
+        return null;
     }
 
-    @SuppressWarnings({"unchecked","rawtypes"})
-    public void setMarking(@NotNull Object subject, @NotNull Marking marking) {
-        List<String> places = marking.getPlaces();
+    // resolved once per subject class, a null reader or writer means the method does not exist or is not public
+    private final class Accessor {
+        private final MarkingAccessor.Reader reader;
+        private final MarkingAccessor.Writer writer;
 
-        String methodName = "set" + this.property.substring(0, 1).toUpperCase() + this.property.substring(1);
+        private Accessor(@NotNull Class<?> subjectClass) {
+            Method getter = findPublicMethod(subjectClass, getterName);
+            Method setter = findPublicMethod(subjectClass, setterName);
 
-        Method methodFound = null;
+            this.reader = null == getter ? null : this.createReader(getter);
+            this.writer = null == setter ? null : this.createWriter(setter);
+        }
 
-        Method[] methods = subject.getClass().getDeclaredMethods();
-        for (Method method : methods) {
-            if (method.getName().equals(methodName) && Modifier.isPublic(method.getModifiers())) {
-                methodFound = method;
-                break;
+        private @NotNull MarkingAccessor.Reader createReader(@NotNull Method getter) {
+            try {
+                return MarkingAccessor.createReader(MethodHandles.publicLookup().unreflect(getter), getter.getGenericReturnType(), singleState);
+            } catch (IllegalAccessException e) {
+                return MarkingAccessor.createFailingReader(e);
             }
         }
 
-        if (null == methodFound) {
-            throw new MethodNotFoundInClassException(methodName, subject.getClass().getName());
-        }
+        private @NotNull MarkingAccessor.Writer createWriter(@NotNull Method setter) {
+            Type parameterType = 1 == setter.getParameterCount() ? setter.getGenericParameterTypes()[0] : Object.class;
 
-        try {
-            if (this.singleState) {
-                if (Arrays.stream(methodFound.getParameterTypes()).toList().get(0).isEnum()) {
-                    Class<Enum> classname = (Class<Enum>) Arrays.stream(methodFound.getParameterTypes()).toList().get(0);
-                    methodFound.invoke(subject, Enum.valueOf(classname, places.get(places.size() - 1)));
-                } else {
-                    methodFound.invoke(subject, places.get(places.size() - 1));
-                }
-            } else {
-                if (((Class<?>) ((ParameterizedType) Arrays.stream(methodFound.getGenericParameterTypes()).toList().get(0)).getActualTypeArguments()[0]).isEnum()) {
-                    Class classname = (Class<Enum>) ((ParameterizedType) Arrays.stream(methodFound.getGenericParameterTypes()).toList().get(0)).getActualTypeArguments()[0];
-                    List<Enum> newPlaces = new ArrayList();
-                    for (String place : places) {
-                        newPlaces.add(Enum.valueOf(classname, place));
-                    }
-                    methodFound.invoke(subject, newPlaces);
-                } else {
-                    methodFound.invoke(subject, places);
-                }
+            try {
+                return MarkingAccessor.createWriter(MethodHandles.publicLookup().unreflect(setter), parameterType, singleState);
+            } catch (IllegalAccessException e) {
+                return MarkingAccessor.createFailingWriter(e);
             }
-        } catch (Exception e) {
-            throw new InvalidMethodMarkingStoreConfigurationException(methodName, subject.getClass().getName(), e);
         }
     }
 }
@@ -0,0 +1,23 @@
+package com.isfett.workflow.markingstore;
+
+import com.isfett.workflow.Definition;
+
+import javax.validation.constraints.NotNull;
+import java.nio.ByteBuffer;
+import java.util.function.ToLongFunction;
+
+// keeps the markings in direct buffers outside of the garbage collected heap, a buffer is only allocated on its first write
+public class OffHeapMarkingStore extends AbstractSlotMarkingStore {
+    public OffHeapMarkingStore(@NotNull Definition definition, @NotNull ToLongFunction<Object> subjectIndexExtractor, @NotNull Boolean singleState, long capacity) {
+        super(definition, subjectIndexExtractor, singleState, capacity);
+    }
+
+    public OffHeapMarkingStore(@NotNull Definition definition, @NotNull ToLongFunction<Object> subjectIndexExtractor, long capacity) {
+        super(definition, subjectIndexExtractor, false, capacity);
+    }
+
+    @Override
+    protected @NotNull ByteBuffer createChunk(int chunkIndex, int chunkSize) {
+        return ByteBuffer.allocateDirect(chunkSize);
+    }
+}
@@ -4,16 +4,20 @@ import com.isfett.workflow.Marking;
 import com.isfett.workflow.exception.InvalidPropertyMarkingStoreConfigurationException;
 import com.isfett.workflow.exception.PropertyNotFoundInClassException;
 
-import java.lang.reflect.ParameterizedType;
-import java.util.Arrays;
 import javax.validation.constraints.NotNull;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.lang.reflect.Field;
-import java.util.ArrayList;
-import java.util.List;
 
 public class PropertyMarkingStore implements MarkingStoreInterface {
     private final String property;
     private Boolean singleState = false;
+    private final ClassValue<Accessor> accessors = new ClassValue<>() {
+        @Override
+        protected Accessor computeValue(Class<?> subjectClass) {
+            return new Accessor(subjectClass);
+        }
+    };
 
     public PropertyMarkingStore(@NotNull Boolean singleState, @NotNull String property) {
         this.singleState = singleState;
@@ -29,87 +33,69 @@ public class PropertyMarkingStore implements MarkingStoreInterface {
         return this.singleState;
     }
 
-    @SuppressWarnings({"unchecked","rawtypes"})
     public @NotNull Marking getMarking(@NotNull Object subject) {
-        Field field;
+        Accessor accessor = this.getAccessor(subject);
 
         try {
-            field = subject.getClass().getField(this.property);
-        } catch (NoSuchFieldException e) {
-            throw new PropertyNotFoundInClassException(this.property, subject.getClass().getName(), e);
+            return new Marking(accessor.reader.read(subject));
+        } catch (Throwable e) {
+            throw new InvalidPropertyMarkingStoreConfigurationException(this.property, subject.getClass().getName(), e);
         }
+    }
 
-        List<String> markingValue = new ArrayList<>();
+    public void setMarking(@NotNull Object subject, @NotNull Marking marking) {
+        Accessor accessor = this.getAccessor(subject);
 
         try {
-            if (this.singleState) {
-                String value = null;
-                if (((Class<?>) field.getGenericType()).isEnum()) {
-                    Enum<?> tempValue = (Enum<?>) field.get(subject);
-                    if (null != tempValue) {
-                        value = tempValue.toString();
-                    }
-                } else {
-                    value = (String) field.get(subject);
-                }
-                if (null != value) {
-                    markingValue.add(value);
-                }
-            } else {
-                List<String> value = null;
-                if ((((Class<?>) ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0]).isEnum())) {
-                    List<Enum> tempValue = (List<Enum>) field.get(subject);
-                    if (null != tempValue) {
-                        value = tempValue.stream().map(Enum::toString).toList();
-                    }
-                } else {
-                    value = (List<String>) field.get(subject);
-                }
-                if (null != value) {
-                    markingValue = value;
-                }
-            }
-        } catch (Exception e) {
-            throw new InvalidPropertyMarkingStoreConfigurationException(field.getName(), subject.getClass().getName(), e);
+            accessor.writer.write(subject, marking.getPlaces());
+        } catch (Throwable e) {
+            throw new InvalidPropertyMarkingStoreConfigurationException(this.property, subject.getClass().getName(), e);
         }
+    }
 
-        return new Marking(markingValue);
+    private @NotNull Accessor getAccessor(@NotNull Object subject) {
+        Accessor accessor = this.accessors.get(subject.getClass());
+
+        if (null != accessor.fieldNotFound) {
+            throw new PropertyNotFoundInClassException(this.property, subject.getClass().getName(), accessor.fieldNotFound);
+        }
+
+        return accessor;
     }
 
-    @SuppressWarnings({"unchecked","rawtypes"})
-    public void setMarking(@NotNull Object subject, @NotNull Marking marking) {
-        List<String> places = marking.getPlaces();
+    // resolved once per subject class, the field is accessed through a VarHandle instead of Field.get/set
+    private final class Accessor {
+        private final NoSuchFieldException fieldNotFound;
+        private final MarkingAccessor.Reader reader;
+        private final MarkingAccessor.Writer writer;
 
-        Field field;
+        private Accessor(@NotNull Class<?> subjectClass) {
+            Field field;
 
-        try {
-            field = subject.getClass().getField(this.property);
-        } catch (NoSuchFieldException e) {
-            throw new PropertyNotFoundInClassException(this.property, subject.getClass().getName(), e);
-        }
+            try {
+                field = subjectClass.getField(property);
+            } catch (NoSuchFieldException e) {
+                this.fieldNotFound = e;
+                this.reader = null;
+                this.writer = null;
 
-        try {
-            if (this.singleState) {
-                if (((Class<?>) field.getGenericType()).isEnum()) {
-                    Class<Enum> classname = (Class<Enum>) field.getGenericType();
-                    field.set(subject, Enum.valueOf(classname, places.get(places.size() - 1)));
-                } else {
-                    field.set(subject, places.get(places.size() - 1));
-                }
-            } else {
-                if (((Class<?>) ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0]).isEnum()) {
-                    Class classname = ((Class<Enum>) ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0]);
-                    List<Enum> newPlaces = new ArrayList();
-                    for (String place : places) {
-                        newPlaces.add(Enum.valueOf(classname, place));
-                    }
-                    field.set(subject, newPlaces);
-                } else {
-                    field.set(subject, places);
-                }
+                return;
+            }
+
+            this.fieldNotFound = null;
+
+            VarHandle varHandle;
+            try {
+                varHandle = MethodHandles.publicLookup().unreflectVarHandle(field);
+            } catch (IllegalAccessException e) {
+                this.reader = MarkingAccessor.createFailingReader(e);
+                this.writer = MarkingAccessor.createFailingWriter(e);
+
+                return;
             }
-        } catch (Exception e) {
-            throw new InvalidPropertyMarkingStoreConfigurationException(field.getName(), subject.getClass().getName(), e);
+
+            this.reader = MarkingAccessor.createReader(varHandle.toMethodHandle(VarHandle.AccessMode.GET), field.getGenericType(), singleState);
+            this.writer = MarkingAccessor.createWriter(varHandle.toMethodHandle(VarHandle.AccessMode.SET), field.getGenericType(), singleState);
         }
     }
 }
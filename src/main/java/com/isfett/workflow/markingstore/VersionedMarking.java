@@ -0,0 +1,23 @@
+package com.isfett.workflow.markingstore;
+
+import com.isfett.workflow.Marking;
+
+import javax.validation.constraints.NotNull;
+
+public final class VersionedMarking {
+    private final Marking marking;
+    private final long version;
+
+    public VersionedMarking(@NotNull Marking marking, long version) {
+        this.marking = marking;
+        this.version = version;
+    }
+
+    public @NotNull Marking getMarking() {
+        return marking;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
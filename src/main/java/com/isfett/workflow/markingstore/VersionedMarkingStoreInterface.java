@@ -0,0 +1,13 @@
+package com.isfett.workflow.markingstore;
+
+import com.isfett.workflow.Marking;
+
+import javax.validation.constraints.NotNull;
+
+// a store that can detect a concurrent writer, every successful write increments the version of the subject by one
+public interface VersionedMarkingStoreInterface extends MarkingStoreInterface {
+    @NotNull VersionedMarking getVersionedMarking(@NotNull Object subject);
+
+    // writes the marking only if the subject is still at the expected version
+    @NotNull Boolean compareAndSetMarking(@NotNull Object subject, long expectedVersion, @NotNull Marking marking);
+}
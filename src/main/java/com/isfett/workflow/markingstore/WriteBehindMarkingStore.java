@@ -0,0 +1,172 @@
+package com.isfett.workflow.markingstore;
+
+import com.isfett.workflow.Marking;
+import com.isfett.workflow.exception.MarkingStoreClosedException;
+
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+// buffers writes and hands them to the wrapped store in batches, a subject written again before the flush is only written once
+public class WriteBehindMarkingStore implements MarkingStoreInterface, AutoCloseable {
+    private final MarkingStoreInterface markingStore;
+    private final int batchSize;
+    private final ConcurrentHashMap<Object, Marking> pendingMarkings = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService scheduler;
+    private final BiConsumer<Map<Object, Marking>, RuntimeException> exceptionHandler;
+    private volatile Map<Object, Marking> flushingMarkings = Map.of();
+    private volatile boolean closed = false;
+
+    // the handler gets the markings of a failed background flush, they stay pending and the next flush tries again.
+    // without a handler the failure goes to the uncaught exception handler of the flushing thread
+    public WriteBehindMarkingStore(@NotNull MarkingStoreInterface markingStore, int batchSize, @NotNull Duration flushInterval, BiConsumer<Map<Object, Marking>, RuntimeException> exceptionHandler) {
+        this.markingStore = markingStore;
+        this.batchSize = Math.max(1, batchSize);
+        this.exceptionHandler = exceptionHandler;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor((Runnable runnable) -> {
+            Thread thread = new Thread(runnable, "write-behind-marking-store");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        long flushIntervalMillis = Math.max(1, flushInterval.toMillis());
+        this.scheduler.scheduleWithFixedDelay(this::flushInBackground, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public WriteBehindMarkingStore(@NotNull MarkingStoreInterface markingStore, int batchSize, @NotNull Duration flushInterval) {
+        this(markingStore, batchSize, flushInterval, null);
+    }
+
+    public WriteBehindMarkingStore(@NotNull MarkingStoreInterface markingStore) {
+        this(markingStore, 1000, Duration.ofSeconds(1));
+    }
+
+    @Override
+    public @NotNull Marking getMarking(@NotNull Object subject) {
+        Marking marking = this.pendingMarkings.get(subject);
+        if (null == marking) {
+            marking = this.flushingMarkings.get(subject);
+        }
+        if (null == marking) {
+            return this.markingStore.getMarking(subject);
+        }
+
+        return marking.copy();
+    }
+
+    @Override
+    public void setMarking(@NotNull Object subject, @NotNull Marking marking) {
+        this.checkNotClosed();
+
+        this.pendingMarkings.put(subject, marking.copy());
+
+        this.flushIfFullOrClosed();
+    }
+
+    @Override
+    public void setMarkings(@NotNull Map<Object, Marking> markings) {
+        this.checkNotClosed();
+
+        markings.forEach((Object subject, Marking marking) -> this.pendingMarkings.put(subject, marking.copy()));
+
+        this.flushIfFullOrClosed();
+    }
+
+    @Override
+    public @NotNull Boolean isSingleState() {
+        return this.markingStore.isSingleState();
+    }
+
+    @Override
+    public @NotNull Object getSubjectId(@NotNull Object subject) {
+        return this.markingStore.getSubjectId(subject);
+    }
+
+    // returns once everything written before the call has reached the wrapped store
+    public void flush() {
+        this.flush((Map<Object, Marking> markings, RuntimeException exception) -> {
+            throw exception;
+        });
+    }
+
+    public int getPendingCount() {
+        return this.pendingMarkings.size();
+    }
+
+    public @NotNull MarkingStoreInterface getMarkingStore() {
+        return markingStore;
+    }
+
+    // writes after close are rejected, everything written before is flushed
+    @Override
+    public void close() {
+        this.closed = true;
+        this.scheduler.shutdown();
+        this.flush();
+    }
+
+    private void checkNotClosed() {
+        if (this.closed) {
+            throw new MarkingStoreClosedException();
+        }
+    }
+
+    // a write that raced with close may have missed its flush, so it is flushed here
+    private void flushIfFullOrClosed() {
+        if (this.closed || this.pendingMarkings.size() >= this.batchSize) {
+            this.flush();
+        }
+    }
+
+    private void flush(@NotNull BiConsumer<Map<Object, Marking>, RuntimeException> failureHandler) {
+        synchronized (this.flushLock) {
+            if (this.pendingMarkings.isEmpty()) {
+                return;
+            }
+
+            Map<Object, Marking> markings = new HashMap<>(this.pendingMarkings);
+            // stays readable until the wrapped store has it
+            this.flushingMarkings = markings;
+            markings.forEach((Object subject, Marking marking) -> this.pendingMarkings.remove(subject, marking));
+
+            try {
+                this.markingStore.setMarkings(markings);
+            } catch (RuntimeException exception) {
+                // newer writes win over the failed batch, which is retried with the next flush
+                markings.forEach(this.pendingMarkings::putIfAbsent);
+                failureHandler.accept(Collections.unmodifiableMap(markings), exception);
+            } finally {
+                this.flushingMarkings = Map.of();
+            }
+        }
+    }
+
+    // an exception leaving the scheduled task would stop every later flush
+    private void flushInBackground() {
+        try {
+            this.flush(this::handleException);
+        } catch (RuntimeException exception) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, exception);
+        }
+    }
+
+    private void handleException(@NotNull Map<Object, Marking> markings, @NotNull RuntimeException exception) {
+        if (null != this.exceptionHandler) {
+            this.exceptionHandler.accept(markings, exception);
+
+            return;
+        }
+
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, exception);
+    }
+}
@@ -0,0 +1,46 @@
+package com.isfett.workflow.ringbuffer;
+
+import javax.validation.constraints.NotNull;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+// handler threads sleep on a condition, every publish pays for the signal
+public class BlockingWaitStrategy implements WaitStrategyInterface {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = this.lock.newCondition();
+
+    @Override
+    public long waitFor(long sequence, @NotNull LongSupplier cursor, @NotNull BooleanSupplier alerted) {
+        long availableSequence = cursor.getAsLong();
+        if (availableSequence >= sequence) {
+            return availableSequence;
+        }
+
+        this.lock.lock();
+        try {
+            while ((availableSequence = cursor.getAsLong()) < sequence && !alerted.getAsBoolean()) {
+                // the timeout lets a handler notice it was alerted without a publish
+                this.published.await(1, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.lock.unlock();
+        }
+
+        return availableSequence;
+    }
+
+    @Override
+    public void signalAllWhenBlocking() {
+        this.lock.lock();
+        try {
+            this.published.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+}
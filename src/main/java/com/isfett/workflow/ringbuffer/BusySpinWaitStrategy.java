@@ -0,0 +1,18 @@
+package com.isfett.workflow.ringbuffer;
+
+import javax.validation.constraints.NotNull;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+// lowest latency, but every handler keeps a core busy
+public class BusySpinWaitStrategy implements WaitStrategyInterface {
+    @Override
+    public long waitFor(long sequence, @NotNull LongSupplier cursor, @NotNull BooleanSupplier alerted) {
+        long availableSequence;
+        while ((availableSequence = cursor.getAsLong()) < sequence && !alerted.getAsBoolean()) {
+            Thread.onSpinWait();
+        }
+
+        return availableSequence;
+    }
+}
@@ -0,0 +1,266 @@
+package com.isfett.workflow.ringbuffer;
+
+import com.isfett.workflow.BitSetMarking;
+import com.isfett.workflow.Workflow;
+import com.isfett.workflow.exception.InvalidRingBufferSizeException;
+import com.isfett.workflow.exception.RingBufferAlreadyStartedException;
+import com.isfett.workflow.exception.RingBufferClosedException;
+
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+// workflows copy their events into preallocated slots instead of creating event objects, every handler reads every slot
+// in order on its own thread. a producer waits while the slowest handler is a whole buffer behind
+public class RingBufferEventPublisher implements AutoCloseable {
+    public enum ProducerType {
+        // only one thread publishes, claiming a slot is a plain increment
+        SINGLE,
+        MULTI
+    }
+
+    private final WorkflowEventSlot[] slots;
+    private final int mask;
+    private final int indexShift;
+    private final ProducerType producerType;
+    private final WaitStrategyInterface waitStrategy;
+    private final Set<Workflow.events> publishedEvents;
+    // the last claimed sequence for multiple producers, the last published one for a single producer
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final LongSupplier cursorSupplier = this.cursor::get;
+    // the round of the sequence that was last published into a slot, only used by multiple producers
+    private final AtomicIntegerArray availableRounds;
+    private final List<Handler> handlers = new ArrayList<>();
+    private volatile Handler[] startedHandlers = new Handler[0];
+    private volatile long cachedGatingSequence = -1;
+    private long nextSequence = -1;
+    private volatile boolean started;
+    private volatile boolean running;
+    private volatile boolean closed;
+    private volatile BiConsumer<WorkflowEventSlot, RuntimeException> exceptionHandler;
+
+    public RingBufferEventPublisher(int bufferSize, @NotNull ProducerType producerType, @NotNull WaitStrategyInterface waitStrategy, @NotNull Set<Workflow.events> publishedEvents) {
+        if (bufferSize < 1 || 0 != (bufferSize & (bufferSize - 1))) {
+            throw new InvalidRingBufferSizeException(bufferSize);
+        }
+
+        this.slots = new WorkflowEventSlot[bufferSize];
+        for (int i = 0; i < bufferSize; i++) {
+            this.slots[i] = new WorkflowEventSlot();
+        }
+        this.mask = bufferSize - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(bufferSize);
+        this.producerType = producerType;
+        this.waitStrategy = waitStrategy;
+        this.publishedEvents = publishedEvents.isEmpty() ? EnumSet.noneOf(Workflow.events.class) : EnumSet.copyOf(publishedEvents);
+        this.availableRounds = new AtomicIntegerArray(ProducerType.MULTI == producerType ? bufferSize : 0);
+        for (int i = 0; i < this.availableRounds.length(); i++) {
+            this.availableRounds.set(i, -1);
+        }
+    }
+
+    public RingBufferEventPublisher(int bufferSize, @NotNull ProducerType producerType, @NotNull WaitStrategyInterface waitStrategy) {
+        this(bufferSize, producerType, waitStrategy, EnumSet.allOf(Workflow.events.class));
+    }
+
+    public RingBufferEventPublisher(int bufferSize) {
+        this(bufferSize, ProducerType.MULTI, new BlockingWaitStrategy());
+    }
+
+    public synchronized void addHandler(@NotNull WorkflowEventHandlerInterface eventHandler) {
+        if (this.started) {
+            throw new RingBufferAlreadyStartedException();
+        }
+
+        this.handlers.add(new Handler(eventHandler, this.handlers.size()));
+    }
+
+    // events published before the start are not handed to the handlers
+    public synchronized void start() {
+        if (this.started) {
+            throw new RingBufferAlreadyStartedException();
+        }
+
+        this.started = true;
+        this.running = true;
+        for (Handler handler : this.handlers) {
+            handler.sequence.set(this.cursor.get());
+        }
+        this.startedHandlers = this.handlers.toArray(new Handler[0]);
+        for (Handler handler : this.startedHandlers) {
+            handler.thread.start();
+        }
+    }
+
+    public @NotNull Boolean isPublished(@NotNull Workflow.events event) {
+        return this.publishedEvents.contains(event);
+    }
+
+    public void publish(@NotNull Workflow.events event, @NotNull Object subject, @NotNull Workflow workflow, int transitionId, @NotNull BitSetMarking marking) {
+        long sequence = this.next();
+        this.slots[(int) sequence & this.mask].set(event, subject, workflow, transitionId, marking);
+
+        if (ProducerType.SINGLE == this.producerType) {
+            this.cursor.set(sequence);
+        } else {
+            this.availableRounds.set((int) sequence & this.mask, (int) (sequence >>> this.indexShift));
+        }
+
+        this.waitStrategy.signalAllWhenBlocking();
+    }
+
+    // without a handler a failing event handler is reported to the uncaught exception handler of its thread
+    public void setExceptionHandler(BiConsumer<WorkflowEventSlot, RuntimeException> exceptionHandler) {
+        this.exceptionHandler = exceptionHandler;
+    }
+
+    public int getBufferSize() {
+        return this.slots.length;
+    }
+
+    // the number of published events the slowest handler has not finished yet
+    public long getBacklog() {
+        long cursor = this.cursor.get();
+
+        return cursor - this.getMinimumSequence(cursor);
+    }
+
+    // waits until the handlers finished every published event, then stops their threads. publishing afterwards is rejected.
+    // an interrupt stops the waiting, the handler threads are daemons and stop once they see the buffer is not running anymore
+    @Override
+    public void close() {
+        this.closed = true;
+        if (!this.started) {
+            return;
+        }
+
+        while (this.getMinimumSequence(this.cursor.get()) < this.cursor.get() && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(100_000);
+        }
+
+        this.running = false;
+        this.waitStrategy.signalAllWhenBlocking();
+        for (Handler handler : this.startedHandlers) {
+            try {
+                handler.thread.join();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+
+                return;
+            }
+        }
+    }
+
+    // a closed buffer is checked before a sequence is claimed, an unpublished claimed sequence would stop the handlers
+    private long next() {
+        if (this.closed) {
+            throw new RingBufferClosedException();
+        }
+
+        long sequence = ProducerType.SINGLE == this.producerType ? ++this.nextSequence : this.cursor.incrementAndGet();
+        long wrapPoint = sequence - this.slots.length;
+
+        if (wrapPoint > this.cachedGatingSequence) {
+            long gatingSequence;
+            while (wrapPoint > (gatingSequence = this.getMinimumSequence(sequence - 1))) {
+                // the handlers stopped, nobody frees a slot anymore
+                if (this.started && !this.running) {
+                    throw new RingBufferClosedException();
+                }
+
+                LockSupport.parkNanos(1);
+            }
+
+            this.cachedGatingSequence = gatingSequence;
+        }
+
+        return sequence;
+    }
+
+    private long getMinimumSequence(long minimumSequence) {
+        for (Handler handler : this.startedHandlers) {
+            minimumSequence = Math.min(minimumSequence, handler.sequence.get());
+        }
+
+        return minimumSequence;
+    }
+
+    // multiple producers publish out of order, a handler only reads up to the first slot that is still being written
+    private long getHighestPublishedSequence(long lowerBound, long availableSequence) {
+        if (ProducerType.SINGLE == this.producerType) {
+            return availableSequence;
+        }
+
+        for (long sequence = lowerBound; sequence <= availableSequence; sequence++) {
+            if (this.availableRounds.get((int) sequence & this.mask) != (int) (sequence >>> this.indexShift)) {
+                return sequence - 1;
+            }
+        }
+
+        return availableSequence;
+    }
+
+    private void handleException(@NotNull WorkflowEventSlot slot, @NotNull RuntimeException exception) {
+        BiConsumer<WorkflowEventSlot, RuntimeException> exceptionHandler = this.exceptionHandler;
+        if (null != exceptionHandler) {
+            exceptionHandler.accept(slot, exception);
+
+            return;
+        }
+
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, exception);
+    }
+
+    private final class Handler implements Runnable {
+        private final WorkflowEventHandlerInterface eventHandler;
+        private final AtomicLong sequence = new AtomicLong(-1);
+        private final BooleanSupplier alerted = () -> !running;
+        private final Thread thread;
+
+        private Handler(@NotNull WorkflowEventHandlerInterface eventHandler, int index) {
+            this.eventHandler = eventHandler;
+            this.thread = new Thread(this, "ring-buffer-event-handler-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long nextSequence = this.sequence.get() + 1;
+
+            while (true) {
+                long availableSequence = waitStrategy.waitFor(nextSequence, cursorSupplier, this.alerted);
+                long highestSequence = getHighestPublishedSequence(nextSequence, availableSequence);
+
+                if (highestSequence < nextSequence) {
+                    if (!running) {
+                        return;
+                    }
+
+                    Thread.onSpinWait();
+                    continue;
+                }
+
+                for (long sequence = nextSequence; sequence <= highestSequence; sequence++) {
+                    WorkflowEventSlot slot = slots[(int) sequence & mask];
+                    try {
+                        this.eventHandler.onEvent(slot, sequence, sequence == highestSequence);
+                    } catch (RuntimeException exception) {
+                        handleException(slot, exception);
+                    }
+                }
+
+                this.sequence.set(highestSequence);
+                nextSequence = highestSequence + 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.isfett.workflow.ringbuffer;
+
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+// spins, then yields and finally parks, trades latency for an almost idle handler thread
+public class SleepingWaitStrategy implements WaitStrategyInterface {
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+
+    private final long sleepNanos;
+
+    public SleepingWaitStrategy(@NotNull Duration sleep) {
+        this.sleepNanos = Math.max(1, sleep.toNanos());
+    }
+
+    public SleepingWaitStrategy() {
+        this(Duration.ofNanos(100_000));
+    }
+
+    @Override
+    public long waitFor(long sequence, @NotNull LongSupplier cursor, @NotNull BooleanSupplier alerted) {
+        int counter = SPIN_TRIES + YIELD_TRIES;
+        long availableSequence;
+        while ((availableSequence = cursor.getAsLong()) < sequence && !alerted.getAsBoolean()) {
+            if (counter > YIELD_TRIES) {
+                counter--;
+                Thread.onSpinWait();
+            } else if (0 < counter) {
+                counter--;
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(this.sleepNanos);
+            }
+        }
+
+        return availableSequence;
+    }
+}
@@ -0,0 +1,14 @@
+package com.isfett.workflow.ringbuffer;
+
+import javax.validation.constraints.NotNull;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+public interface WaitStrategyInterface {
+    // returns the cursor once it reached the sequence, or earlier with a smaller value when the handler was alerted to stop
+    long waitFor(long sequence, @NotNull LongSupplier cursor, @NotNull BooleanSupplier alerted);
+
+    // called after every publish, only strategies that block a handler thread need it
+    default void signalAllWhenBlocking() {
+    }
+}
@@ -0,0 +1,9 @@
+package com.isfett.workflow.ringbuffer;
+
+import javax.validation.constraints.NotNull;
+
+@FunctionalInterface
+public interface WorkflowEventHandlerInterface {
+    // the slot is reused once the handler returns, endOfBatch is true for the last slot that was available without waiting
+    void onEvent(@NotNull WorkflowEventSlot slot, long sequence, boolean endOfBatch);
+}
@@ -0,0 +1,73 @@
+package com.isfett.workflow.ringbuffer;
+
+import com.isfett.workflow.BitSetMarking;
+import com.isfett.workflow.Transition;
+import com.isfett.workflow.Workflow;
+
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.List;
+
+// one preallocated entry of the ring buffer, the producer overwrites it once every handler is done with it
+public final class WorkflowEventSlot {
+    private Workflow.events event;
+    private Object subject;
+    private Workflow workflow;
+    private int transitionId;
+    private long[] words = new long[0];
+    private int wordCount;
+
+    WorkflowEventSlot() {
+    }
+
+    void set(@NotNull Workflow.events event, @NotNull Object subject, @NotNull Workflow workflow, int transitionId, @NotNull BitSetMarking marking) {
+        this.event = event;
+        this.subject = subject;
+        this.workflow = workflow;
+        this.transitionId = transitionId;
+        this.wordCount = BitSetMarking.getWordCount(marking.getDefinition());
+        if (this.words.length < this.wordCount) {
+            this.words = new long[this.wordCount];
+        }
+        marking.copyInto(this.words);
+    }
+
+    public @NotNull Workflow.events getEvent() {
+        return event;
+    }
+
+    public @NotNull Object getSubject() {
+        return subject;
+    }
+
+    public @NotNull Workflow getWorkflow() {
+        return workflow;
+    }
+
+    // -1 when the subject entered the initial places
+    public int getTransitionId() {
+        return transitionId;
+    }
+
+    public Transition getTransition() {
+        return -1 == this.transitionId ? null : this.workflow.getCompiledDefinition().getTransition(this.transitionId);
+    }
+
+    // the marking when the event was published, leave and enter events see it before the places change
+    public boolean has(int placeId) {
+        int wordIndex = placeId >>> 6;
+
+        return wordIndex < this.wordCount && 0 != (this.words[wordIndex] & (1L << placeId));
+    }
+
+    public @NotNull List<String> getPlaces() {
+        List<String> places = new ArrayList<>();
+        for (int placeId = 0; placeId < this.workflow.getDefinition().getPlaceCount(); placeId++) {
+            if (this.has(placeId)) {
+                places.add(this.workflow.getDefinition().getPlaceName(placeId));
+            }
+        }
+
+        return places;
+    }
+}
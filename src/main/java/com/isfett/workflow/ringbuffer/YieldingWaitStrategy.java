@@ -0,0 +1,26 @@
+package com.isfett.workflow.ringbuffer;
+
+import javax.validation.constraints.NotNull;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+// spins a while and then yields, other threads get the core when there is nothing to handle
+public class YieldingWaitStrategy implements WaitStrategyInterface {
+    private static final int SPIN_TRIES = 100;
+
+    @Override
+    public long waitFor(long sequence, @NotNull LongSupplier cursor, @NotNull BooleanSupplier alerted) {
+        int counter = SPIN_TRIES;
+        long availableSequence;
+        while ((availableSequence = cursor.getAsLong()) < sequence && !alerted.getAsBoolean()) {
+            if (0 < counter) {
+                counter--;
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+
+        return availableSequence;
+    }
+}
@@ -10,6 +10,10 @@ final public class InstanceOfSupportStrategy implements SupportStrategyInterface
     }
 
     public Boolean supports(WorkflowInterface workflowInterface, Object subject) {
-        return this.className.toString().equals(subject.getClass().toString());
+        return this.className == subject.getClass();
+    }
+
+    public Class<?> getClassName() {
+        return className;
     }
 }
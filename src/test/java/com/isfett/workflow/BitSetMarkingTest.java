@@ -0,0 +1,86 @@
+package com.isfett.workflow;
+
+import com.isfett.workflow.exception.PlaceNotFoundInDefinitionException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitSetMarkingTest {
+    @Test
+    void testMarking() {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinition();
+        BitSetMarking marking = new BitSetMarking(definition, List.of("a"));
+
+        assertTrue(marking.has("a"));
+        assertFalse(marking.has("b"));
+        assertFalse(marking.has("nope"));
+        assertEquals(List.of("a"), marking.getPlaces());
+
+        marking.mark("c");
+        marking.mark("b");
+
+        assertEquals(List.of("a", "b", "c"), marking.getPlaces());
+
+        marking.unmark("a");
+
+        assertFalse(marking.has("a"));
+        assertEquals(List.of("b", "c"), marking.getPlaces());
+
+        marking.unmark("b");
+        marking.unmark("c");
+
+        assertTrue(marking.isEmpty());
+        assertEquals(0, marking.getPlaces().size());
+    }
+
+    @Test
+    void testMarkNotExistingPlace() {
+        BitSetMarking marking = new BitSetMarking(WorkflowTestHelper.createSimpleWorkflowDefinition());
+
+        Throwable exception = assertThrows(PlaceNotFoundInDefinitionException.class, () -> marking.mark("nope"));
+        assertEquals("Place nope does not exist in the definition.", exception.getMessage());
+    }
+
+    @Test
+    void testMasks() {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinition();
+        CompiledDefinition compiledDefinition = definition.getCompiledDefinition();
+        BitSetMarking marking = new BitSetMarking(definition, List.of("b"));
+
+        int t2 = compiledDefinition.getTransitionIds("t2")[0];
+        assertFalse(marking.hasAll(compiledDefinition.getFromMask(t2)));
+
+        marking.mark("c");
+        assertTrue(marking.hasAll(compiledDefinition.getFromMask(t2)));
+
+        marking.unmarkAll(compiledDefinition.getFromMask(t2));
+        marking.markAll(compiledDefinition.getToMask(t2));
+        assertEquals(List.of("d"), marking.getPlaces());
+    }
+
+    @Test
+    void testMoreThanOneWord() {
+        List<String> places = new ArrayList<>();
+        for (int i = 0; i < 130; i++) {
+            places.add("p" + i);
+        }
+        Definition definition = new Definition(places, List.of(new Transition("t", List.of("p1", "p64", "p129"), List.of("p0"))), List.of());
+        BitSetMarking marking = new BitSetMarking(definition, List.of("p1", "p64", "p129"));
+
+        assertEquals(3, BitSetMarking.getWordCount(definition));
+        assertEquals(List.of("p1", "p64", "p129"), marking.getPlaces());
+        assertEquals(64, marking.nextPlaceId(2));
+        assertEquals(-1, marking.nextPlaceId(130));
+        assertTrue(marking.hasAll(definition.getCompiledDefinition().getFromMask(0)));
+
+        BitSetMarking copy = marking.copy();
+        copy.unmark("p64");
+
+        assertTrue(marking.has("p64"));
+        assertFalse(copy.has("p64"));
+        assertFalse(copy.hasAll(definition.getCompiledDefinition().getFromMask(0)));
+    }
+}
@@ -0,0 +1,71 @@
+package com.isfett.workflow;
+
+import com.isfett.workflow.markingstore.MethodMarkingStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledDefinitionTest {
+    @Test
+    void testCompiledDefinitionIsBuiltOnce() {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinition();
+
+        assertSame(definition.getCompiledDefinition(), definition.getCompiledDefinition());
+        assertSame(definition.getCompiledDefinition(), new Workflow(definition, new MethodMarkingStore("status")).getCompiledDefinition());
+    }
+
+    @Test
+    void testGetTransitions() {
+        CompiledDefinition compiledDefinition = WorkflowTestHelper.createComplexWorkflowDefinition().getCompiledDefinition();
+
+        assertEquals(6, compiledDefinition.getTransitionCount());
+        assertTrue(compiledDefinition.hasTransition("t1"));
+        assertFalse(compiledDefinition.hasTransition("nope"));
+        assertEquals(1, compiledDefinition.getTransitions("t3").size());
+        assertEquals(List.of("e"), compiledDefinition.getTransitions("t3").get(0).getTos());
+        assertEquals(List.of(), compiledDefinition.getTransitions("nope"));
+        assertEquals(0, compiledDefinition.getTransitionIds("nope").length);
+    }
+
+    @Test
+    void testGetTransitionsWithSameNameTransitions() {
+        Definition definition = WorkflowTestHelper.createWorkflowWithSameNameTransitions();
+        CompiledDefinition compiledDefinition = definition.getCompiledDefinition();
+
+        List<Transition> transitions = compiledDefinition.getTransitions("to_a");
+        assertEquals(2, transitions.size());
+        assertSame(definition.getTransitions().get(2), transitions.get(0));
+        assertSame(definition.getTransitions().get(3), transitions.get(1));
+
+        int[] transitionIds = compiledDefinition.getTransitionIds("to_a");
+        assertEquals(2, transitionIds[0]);
+        assertEquals(3, transitionIds[1]);
+        assertSame(transitions.get(1), compiledDefinition.getTransition(transitionIds[1]));
+        assertEquals(3, compiledDefinition.getTransitionId(transitions.get(1)));
+        assertNull(compiledDefinition.getTransitionId(new Transition("to_a", List.of("c"), List.of("a"))));
+    }
+
+    @Test
+    void testGetOutgoingTransitions() {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinition();
+        CompiledDefinition compiledDefinition = definition.getCompiledDefinition();
+
+        List<Transition> transitions = compiledDefinition.getOutgoingTransitions(definition.getPlaceId("d"));
+        assertEquals(2, transitions.size());
+        assertEquals("t3", transitions.get(0).getName());
+        assertEquals("t4", transitions.get(1).getName());
+        assertEquals(List.of(), compiledDefinition.getOutgoingTransitions(definition.getPlaceId("g")));
+    }
+
+    @Test
+    void testGetCandidateTransitionIds() {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinition();
+        CompiledDefinition compiledDefinition = definition.getCompiledDefinition();
+
+        assertEquals("{1}", compiledDefinition.getCandidateTransitionIds(new BitSetMarking(definition, List.of("b", "c"))).toString());
+        assertEquals("{1, 4, 5}", compiledDefinition.getCandidateTransitionIds(new BitSetMarking(definition, List.of("b", "e", "f"))).toString());
+        assertTrue(compiledDefinition.getCandidateTransitionIds(new BitSetMarking(definition)).isEmpty());
+    }
+}
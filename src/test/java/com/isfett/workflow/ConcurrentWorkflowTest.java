@@ -0,0 +1,144 @@
+package com.isfett.workflow;
+
+import com.isfett.workflow.WorkflowTestHelper.MultiStateMethodSubject;
+import com.isfett.workflow.WorkflowTestHelper.TestEventListener;
+import com.isfett.workflow.event.EventDispatcher;
+import com.isfett.workflow.event.GuardEvent;
+import com.isfett.workflow.event.GuardListenerInterface;
+import com.isfett.workflow.exception.InvalidLockStripeCountException;
+import com.isfett.workflow.exception.TransitionNotEnabledException;
+import com.isfett.workflow.markingstore.InMemoryMarkingStore;
+import com.isfett.workflow.markingstore.MethodMarkingStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentWorkflowTest {
+    @Test
+    void testStripeCount() {
+        Workflow workflow = new Workflow(WorkflowTestHelper.createSimpleWorkflowDefinition(), new MethodMarkingStore("status"));
+
+        assertEquals(1, new ConcurrentWorkflow(workflow, 1).getStripeCount());
+        assertEquals(8, new ConcurrentWorkflow(workflow, 8).getStripeCount());
+        assertEquals(16, new ConcurrentWorkflow(workflow, 9).getStripeCount());
+        assertEquals(65536, new ConcurrentWorkflow(workflow, Integer.MAX_VALUE).getStripeCount());
+
+        Throwable exception = assertThrows(InvalidLockStripeCountException.class, () -> new ConcurrentWorkflow(workflow, 0));
+        assertEquals("The lock stripe count must be greater than 0, 0 given.", exception.getMessage());
+    }
+
+    @Test
+    void testDelegatesToWorkflow() {
+        MultiStateMethodSubject subject = new MultiStateMethodSubject();
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status"), "workflow_name", new EventDispatcher());
+        ConcurrentWorkflow concurrentWorkflow = new ConcurrentWorkflow(workflow);
+        TestEventListener eventListener = new TestEventListener();
+
+        concurrentWorkflow.addEventListener(eventListener, List.of("workflow.workflow_name.completed"));
+
+        assertTrue(concurrentWorkflow.can(subject, "t1"));
+        assertEquals(List.of("b", "c"), concurrentWorkflow.apply(subject, "t1").getPlaces());
+        assertEquals(List.of("b", "c"), concurrentWorkflow.getMarking(subject).getPlaces());
+        assertEquals("t2", concurrentWorkflow.getEnabledTransitions(subject).get(0).getName());
+        assertNull(concurrentWorkflow.getEnabledTransition(subject, "t1"));
+        assertEquals(1, concurrentWorkflow.buildTransitionBlockerList(subject, "t1").size());
+        assertEquals(List.of("workflow.workflow_name.completed"), eventListener.getFiredEvents());
+        assertSame(workflow, concurrentWorkflow.getWorkflow());
+        assertSame(workflow.getDefinition(), concurrentWorkflow.getDefinition());
+        assertSame(workflow.getMarkingStore(), concurrentWorkflow.getMarkingStore());
+        assertEquals("workflow_name", concurrentWorkflow.getName());
+    }
+
+    @Test
+    void testApplyIsSerializedPerSubject() throws Exception {
+        MultiStateMethodSubject subject = new MultiStateMethodSubject();
+        ConcurrentWorkflow concurrentWorkflow = new ConcurrentWorkflow(new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status")));
+        concurrentWorkflow.getMarking(subject);
+
+        int threadCount = 8;
+        AtomicInteger appliedCount = new AtomicInteger();
+        AtomicInteger notEnabledCount = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        concurrentWorkflow.apply(subject, "t1");
+                        appliedCount.incrementAndGet();
+                    } catch (TransitionNotEnabledException exception) {
+                        notEnabledCount.incrementAndGet();
+                    }
+
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, appliedCount.get());
+        assertEquals(threadCount - 1, notEnabledCount.get());
+        assertEquals(List.of("b", "c"), concurrentWorkflow.getMarking(subject).getPlaces());
+    }
+
+    @Test
+    void testApplyIsSerializedPerSubjectKey() throws Exception {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace();
+        Workflow workflow = new Workflow(definition, new InMemoryMarkingStore(definition, Function.identity()), "workflow_name", new EventDispatcher());
+        ConcurrentWorkflow concurrentWorkflow = new ConcurrentWorkflow(workflow, 65536, Function.identity());
+        AtomicInteger guardsRunning = new AtomicInteger();
+        AtomicInteger maxGuardsRunning = new AtomicInteger();
+        concurrentWorkflow.addEventListener((GuardListenerInterface) (GuardEvent event, String eventName) -> {
+            maxGuardsRunning.accumulateAndGet(guardsRunning.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            guardsRunning.decrementAndGet();
+        }, List.of("workflow.workflow_name.guard.t1"));
+
+        // two instances of the same entity, like the same row loaded twice
+        List<Object> subjects = List.of(new String("order_1"), new String("order_1"));
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(subjects.size());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Object subject : subjects) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        concurrentWorkflow.apply(subject, "t1");
+                    } catch (TransitionNotEnabledException ignored) {
+                    }
+
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, maxGuardsRunning.get());
+        assertEquals(List.of("b", "c"), concurrentWorkflow.getMarking("order_1").getPlaces());
+    }
+}
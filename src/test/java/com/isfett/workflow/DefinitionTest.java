@@ -26,6 +26,17 @@ class DefinitionTest {
         assertEquals(Map.of(0, "a"), definition.getInitialPlaces());
     }
 
+    @Test
+    void testPlaceIds() {
+        Definition definition = new Definition(List.of("a", "b", "a", "c"), List.of(), List.of());
+
+        assertEquals(3, definition.getPlaceCount());
+        assertEquals(0, definition.getPlaceId("a"));
+        assertEquals(2, definition.getPlaceId("c"));
+        assertNull(definition.getPlaceId("z"));
+        assertEquals("b", definition.getPlaceName(1));
+    }
+
     @Test
     void testSetInitialPlace() {
         List<String> places = new ArrayList<>();
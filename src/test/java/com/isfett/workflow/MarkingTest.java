@@ -37,4 +37,18 @@ class MarkingTest {
         assertFalse(marking.has("b"));
         assertEquals(0, marking.getPlaces().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCopy() {
+        Marking marking = new Marking(List.of("a"));
+        Marking copy = marking.copy();
+        copy.mark("b");
+
+        assertEquals(List.of("a"), marking.getPlaces());
+        assertTrue(copy.has("b"));
+
+        Marking bitSetMarking = new BitSetMarking(WorkflowTestHelper.createComplexWorkflowDefinition(), List.of("a"));
+        assertTrue(bitSetMarking.copy() instanceof BitSetMarking);
+        assertEquals(List.of("a"), bitSetMarking.copy().getPlaces());
+    }
+}
@@ -0,0 +1,34 @@
+package com.isfett.workflow;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkflowEventNamesTest {
+    @Test
+    void testEventNames() {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinition();
+        WorkflowEventNames eventNames = new WorkflowEventNames("workflow_name", definition);
+        int t2 = definition.getCompiledDefinition().getTransitionIds("t2")[0];
+
+        assertEquals("workflow.guard", eventNames.guard);
+        assertEquals("workflow.workflow_name.guard", eventNames.workflowGuard);
+        assertEquals("workflow.workflow_name.guard.t2", eventNames.guardTransition[t2]);
+        assertEquals(2, eventNames.leavePlaces[t2].length);
+        assertEquals("workflow.workflow_name.leave.b", eventNames.leavePlaces[t2][0]);
+        assertEquals("workflow.workflow_name.leave.c", eventNames.leavePlaces[t2][1]);
+        assertEquals("workflow.workflow_name.transition.t2", eventNames.transitionTransition[t2]);
+        assertEquals("workflow.workflow_name.enter.d", eventNames.enterPlaces[t2][0]);
+        assertEquals("workflow.workflow_name.entered.g", eventNames.enteredPlace[definition.getPlaceId("g")]);
+        assertEquals("workflow.workflow_name.completed.t2", eventNames.completedTransition[t2]);
+        assertEquals("workflow.workflow_name.announce.t2", eventNames.announceTransition[t2]);
+    }
+
+    @Test
+    void testEventNamesAreInterned() {
+        WorkflowEventNames eventNames = new WorkflowEventNames("workflow_name", WorkflowTestHelper.createSimpleWorkflowDefinition());
+
+        assertSame("workflow.workflow_name.enter", eventNames.workflowEnter);
+        assertSame("workflow.workflow_name.completed.t1", eventNames.completedTransition[0]);
+    }
+}
@@ -2,6 +2,9 @@ package com.isfett.workflow;
 
 import com.isfett.workflow.exception.NoWorkflowFoundInRegistryException;
 import com.isfett.workflow.exception.TooManyWorkflowsFoundInRegistryException;
+import com.isfett.workflow.exception.WorkflowNotFoundInRegistryException;
+import com.isfett.workflow.markingstore.MethodMarkingStore;
+import com.isfett.workflow.supportstrategy.InstanceOfSupportStrategy;
 import com.isfett.workflow.supportstrategy.SupportStrategyInterface;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,6 +12,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -126,6 +131,204 @@ class WorkflowRegistryTest {
         assertEquals(0, workflows.size());
     }
 
+    @Test
+    void testAllWithInstanceOfStrategiesIsSortedByName() {
+        WorkflowRegistry workflowRegistry = new WorkflowRegistry();
+        workflowRegistry.addWorkflow(createWorkflow("workflow_b"), new InstanceOfSupportStrategy(Subject1.class));
+        workflowRegistry.addWorkflow(createWorkflow("workflow_a"), new InstanceOfSupportStrategy(Subject1.class));
+        workflowRegistry.addWorkflow(createWorkflow("workflow_c"), new InstanceOfSupportStrategy(Subject2.class));
+
+        List<WorkflowInterface> workflows = workflowRegistry.all(new Subject1());
+        assertEquals(2, workflows.size());
+        assertEquals("workflow_a", workflows.get(0).getName());
+        assertEquals("workflow_b", workflows.get(1).getName());
+        assertSame(workflows, workflowRegistry.all(new Subject1()));
+
+        assertEquals("workflow_b", workflowRegistry.get(new Subject1(), "workflow_b").getName());
+        assertEquals("workflow_c", workflowRegistry.get(new Subject2()).getName());
+        assertTrue(workflowRegistry.has(new Subject1(), "workflow_a"));
+        assertFalse(workflowRegistry.has(new Subject1(), "workflow_c"));
+        assertFalse(workflowRegistry.has(new Subject3()));
+    }
+
+    @Test
+    void testAllWithInstanceOfStrategyIsUpdatedOnAddWorkflow() {
+        WorkflowRegistry workflowRegistry = new WorkflowRegistry();
+        workflowRegistry.addWorkflow(createWorkflow("workflow_b"), new InstanceOfSupportStrategy(Subject1.class));
+        assertEquals(1, workflowRegistry.all(new Subject1()).size());
+        assertFalse(workflowRegistry.has(new Subject2()));
+
+        workflowRegistry.addWorkflow(createWorkflow("workflow_a"), new InstanceOfSupportStrategy(Subject1.class));
+        workflowRegistry.addWorkflow(createWorkflow("workflow_c"), new InstanceOfSupportStrategy(Subject2.class));
+
+        List<WorkflowInterface> workflows = workflowRegistry.all(new Subject1());
+        assertEquals(2, workflows.size());
+        assertEquals("workflow_a", workflows.get(0).getName());
+        assertTrue(workflowRegistry.has(new Subject2()));
+    }
+
+    @Test
+    void testAllWithInstanceOfAndCustomStrategies() {
+        WorkflowRegistry workflowRegistry = new WorkflowRegistry();
+        workflowRegistry.addWorkflow(createWorkflow("workflow_b"), new InstanceOfSupportStrategy(Subject1.class));
+        workflowRegistry.addWorkflow(createWorkflow("workflow_a"), (WorkflowInterface workflow, Object subject) -> subject instanceof Subject1);
+        workflowRegistry.addWorkflow(createWorkflow("workflow_c"), (WorkflowInterface workflow, Object subject) -> subject instanceof Subject2);
+
+        List<WorkflowInterface> workflows = workflowRegistry.all(new Subject1());
+        assertEquals(2, workflows.size());
+        assertEquals("workflow_a", workflows.get(0).getName());
+        assertEquals("workflow_b", workflows.get(1).getName());
+
+        assertEquals(1, workflowRegistry.all(new Subject1(), "workflow_a").size());
+        assertEquals(1, workflowRegistry.all(new Subject1(), "workflow_b").size());
+        assertTrue(workflowRegistry.has(new Subject2()));
+        assertTrue(workflowRegistry.has(new Subject2(), "workflow_c"));
+        assertFalse(workflowRegistry.has(new Subject2(), "workflow_b"));
+    }
+
+    @Test
+    void testAddWorkflowWithSameStrategyKeepsBothWorkflows() {
+        WorkflowRegistry workflowRegistry = new WorkflowRegistry();
+        SupportStrategyInterface supportStrategy = new InstanceOfSupportStrategy(Subject1.class);
+        workflowRegistry.addWorkflow(createWorkflow("workflow_b"), supportStrategy);
+        workflowRegistry.addWorkflow(createWorkflow("workflow_a"), supportStrategy);
+
+        List<WorkflowInterface> workflows = workflowRegistry.all(new Subject1());
+        assertEquals(2, workflows.size());
+        assertEquals("workflow_a", workflows.get(0).getName());
+        assertEquals("workflow_b", workflows.get(1).getName());
+    }
+
+    @Test
+    void testAddWorkflowTwiceWithSameStrategy() {
+        WorkflowRegistry workflowRegistry = new WorkflowRegistry();
+        SupportStrategyInterface supportStrategy = new InstanceOfSupportStrategy(Subject1.class);
+        Workflow workflow = createWorkflow("workflow_a");
+        workflowRegistry.addWorkflow(workflow, supportStrategy);
+        workflowRegistry.addWorkflow(workflow, supportStrategy);
+
+        assertSame(workflow, workflowRegistry.get(new Subject1()));
+    }
+
+    @Test
+    void testRemoveWorkflow() {
+        WorkflowRegistry workflowRegistry = new WorkflowRegistry();
+        Workflow workflow = createWorkflow("workflow_a");
+        workflowRegistry.addWorkflow(workflow, new InstanceOfSupportStrategy(Subject1.class));
+        workflowRegistry.addWorkflow(workflow, (WorkflowInterface supportedWorkflow, Object subject) -> subject instanceof Subject2);
+        workflowRegistry.addWorkflow(createWorkflow("workflow_b"), new InstanceOfSupportStrategy(Subject1.class));
+
+        workflowRegistry.removeWorkflow(workflow);
+
+        assertEquals("workflow_b", workflowRegistry.get(new Subject1()).getName());
+        assertFalse(workflowRegistry.has(new Subject2()));
+    }
+
+    @Test
+    void testRemoveWorkflowNotRegistered() {
+        WorkflowRegistry workflowRegistry = new WorkflowRegistry();
+
+        Throwable exception = assertThrows(WorkflowNotFoundInRegistryException.class, () -> workflowRegistry.removeWorkflow(createWorkflow("workflow_a")));
+        assertEquals("The workflow (workflow_a) is not registered in the registry.", exception.getMessage());
+    }
+
+    @Test
+    void testReplaceWorkflow() {
+        WorkflowRegistry workflowRegistry = new WorkflowRegistry();
+        Workflow workflow = createWorkflow("workflow_a");
+        workflowRegistry.addWorkflow(workflow, new InstanceOfSupportStrategy(Subject1.class));
+        workflowRegistry.addWorkflow(workflow, (WorkflowInterface supportedWorkflow, Object subject) -> subject instanceof Subject2);
+
+        Workflow newWorkflow = createWorkflow("workflow_a");
+        workflowRegistry.replaceWorkflow(workflow, newWorkflow);
+
+        assertSame(newWorkflow, workflowRegistry.get(new Subject1()));
+        assertSame(newWorkflow, workflowRegistry.get(new Subject2(), "workflow_a"));
+        assertEquals(1, workflowRegistry.all(new Subject1()).size());
+    }
+
+    @Test
+    void testRemoveEqualWorkflow() {
+        WorkflowRegistry workflowRegistry = new WorkflowRegistry();
+        SupportStrategyInterface supportStrategy = new InstanceOfSupportStrategy(Subject1.class);
+        workflowRegistry.addWorkflow(createEqualWorkflow("workflow_a"), supportStrategy);
+        workflowRegistry.addWorkflow(createEqualWorkflow("workflow_a"), supportStrategy);
+
+        workflowRegistry.removeWorkflow(createEqualWorkflow("workflow_a"));
+
+        assertFalse(workflowRegistry.has(new Subject1()));
+    }
+
+    @Test
+    void testReplaceEqualWorkflow() {
+        WorkflowRegistry workflowRegistry = new WorkflowRegistry();
+        workflowRegistry.addWorkflow(createEqualWorkflow("workflow_a"), new InstanceOfSupportStrategy(Subject1.class));
+
+        Workflow newWorkflow = createWorkflow("workflow_b");
+        workflowRegistry.replaceWorkflow(createEqualWorkflow("workflow_a"), newWorkflow);
+
+        assertSame(newWorkflow, workflowRegistry.get(new Subject1()));
+    }
+
+    @Test
+    void testReplaceWorkflowNotRegistered() {
+        WorkflowRegistry workflowRegistry = new WorkflowRegistry();
+
+        Throwable exception = assertThrows(WorkflowNotFoundInRegistryException.class, () -> workflowRegistry.replaceWorkflow(createWorkflow("workflow_a"), createWorkflow("workflow_b")));
+        assertEquals("The workflow (workflow_a) is not registered in the registry.", exception.getMessage());
+    }
+
+    @Test
+    void testReplaceWorkflowWhileReading() throws InterruptedException {
+        WorkflowRegistry workflowRegistry = new WorkflowRegistry();
+        Workflow workflow = createWorkflow("workflow_a");
+        workflowRegistry.addWorkflow(workflow, new InstanceOfSupportStrategy(Subject1.class));
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger failedLookups = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                try {
+                    workflowRegistry.get(new Subject1());
+                } catch (RuntimeException exception) {
+                    failedLookups.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+
+        WorkflowInterface currentWorkflow = workflow;
+        for (int i = 0; i < 1000; i++) {
+            Workflow newWorkflow = createWorkflow("workflow_a");
+            workflowRegistry.replaceWorkflow(currentWorkflow, newWorkflow);
+            currentWorkflow = newWorkflow;
+        }
+        running.set(false);
+        reader.join();
+
+        assertEquals(0, failedLookups.get());
+        assertSame(currentWorkflow, workflowRegistry.get(new Subject1()));
+    }
+
+    private static Workflow createWorkflow(String name) {
+        return new Workflow(WorkflowTestHelper.createSimpleWorkflowDefinition(), new MethodMarkingStore("status"), name);
+    }
+
+    // workflows with the same name are equal, like an application could define them
+    private static Workflow createEqualWorkflow(String name) {
+        return new Workflow(WorkflowTestHelper.createSimpleWorkflowDefinition(), new MethodMarkingStore("status"), name) {
+            @Override
+            public boolean equals(Object object) {
+                return object instanceof Workflow workflow && this.getName().equals(workflow.getName());
+            }
+
+            @Override
+            public int hashCode() {
+                return this.getName().hashCode();
+            }
+        };
+    }
+
     public static class Subject1 {
 
     }
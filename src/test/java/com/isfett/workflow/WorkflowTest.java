@@ -1,19 +1,28 @@
 package com.isfett.workflow;
 
+import com.isfett.workflow.WorkflowTestHelper.AnnounceEnabledTransitionsEventListener;
 import com.isfett.workflow.WorkflowTestHelper.CheckPropertyEventListener;
+import com.isfett.workflow.WorkflowTestHelper.ConflictingVersionedMarkingStore;
 import com.isfett.workflow.WorkflowTestHelper.GuardBlockEventListener;
 import com.isfett.workflow.WorkflowTestHelper.GuardBlockUnblockEventListener;
 import com.isfett.workflow.WorkflowTestHelper.MethodNotPublicEventListener;
 import com.isfett.workflow.WorkflowTestHelper.MultiStateMethodSubject;
+import com.isfett.workflow.WorkflowTestHelper.SubjectIndependentGuardEventListener;
 import com.isfett.workflow.WorkflowTestHelper.TestEventListener;
+import com.isfett.workflow.event.AbstractWorkflowEvent;
 import com.isfett.workflow.event.EventDispatcher;
 import com.isfett.workflow.event.GuardEvent;
 import com.isfett.workflow.exception.*;
 import com.isfett.workflow.markingstore.MarkingStoreInterface;
 import com.isfett.workflow.markingstore.MethodMarkingStore;
+import com.isfett.workflow.markingstore.OffHeapMarkingStore;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -264,8 +273,9 @@ class WorkflowTest {
         MultiStateMethodSubject subject = new MultiStateMethodSubject();
         Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status"));
 
-        Throwable exception = assertThrows(TransitionNotEnabledException.class, () -> workflow.apply(subject, "t2"));
+        TransitionNotEnabledException exception = assertThrows(TransitionNotEnabledException.class, () -> workflow.apply(subject, "t2"));
         assertEquals("Transition t2 is not enabled for workflow unnamed.", exception.getMessage());
+        assertEquals("blocked_by_marking", exception.getTransitionBlockers().get(0).getCode());
     }
 
     @Test
@@ -346,6 +356,266 @@ class WorkflowTest {
         assertFalse(marking.has("d"));
     }
 
+    @Test
+    void testApplyWithVersionedMarkingStore() {
+        Object subject = new Object();
+        ConflictingVersionedMarkingStore markingStore = new ConflictingVersionedMarkingStore(0);
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace(), markingStore);
+
+        Marking marking = workflow.apply(subject, "t1");
+
+        assertEquals(List.of("b", "c"), marking.getPlaces());
+        assertEquals(List.of("b", "c"), markingStore.getMarking(subject).getPlaces());
+        assertEquals(2, markingStore.getVersionedMarking(subject).getVersion());
+        assertEquals(0, workflow.getApplyRetryCount());
+    }
+
+    @Test
+    void testApplyWithVersionedMarkingStoreRetriesOnConcurrentChange() {
+        Object subject = new Object();
+        ConflictingVersionedMarkingStore markingStore = new ConflictingVersionedMarkingStore(2);
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace(), markingStore);
+
+        Marking marking = workflow.apply(subject, "t1");
+
+        assertEquals(List.of("b", "c"), marking.getPlaces());
+        assertEquals(List.of("b", "c"), markingStore.getMarking(subject).getPlaces());
+        assertEquals(2, workflow.getApplyRetryCount());
+    }
+
+    @Test
+    void testApplyWithVersionedMarkingStoreGivesUpAfterMaxAttempts() {
+        ConflictingVersionedMarkingStore markingStore = new ConflictingVersionedMarkingStore(10);
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace(), markingStore, "workflow_name");
+        workflow.setMaxApplyAttempts(3);
+
+        Throwable exception = assertThrows(MarkingChangedConcurrentlyException.class, () -> workflow.apply(new Object(), "t1"));
+        assertEquals("Transition t1 could not be applied for workflow workflow_name, the marking was changed concurrently 3 times.", exception.getMessage());
+        assertEquals(2, workflow.getApplyRetryCount());
+    }
+
+    @Test
+    void testSetMaxApplyAttemptsWithInvalidValue() {
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace(), new ConflictingVersionedMarkingStore(0));
+
+        Throwable exception = assertThrows(InvalidApplyAttemptsException.class, () -> workflow.setMaxApplyAttempts(0));
+        assertEquals("The maximum apply attempts must be greater than 0, 0 given.", exception.getMessage());
+        assertEquals(16, workflow.getMaxApplyAttempts());
+    }
+
+    @Test
+    void testApplyAll() {
+        MultiStateMethodSubject subject1 = new MultiStateMethodSubject();
+        subject1.setStatus(List.of("a"));
+        MultiStateMethodSubject subject2 = new MultiStateMethodSubject();
+        subject2.setStatus(List.of("d"));
+        MultiStateMethodSubject subject3 = new MultiStateMethodSubject();
+        subject3.setStatus(List.of("a"));
+        List<Integer> batchSizes = new ArrayList<>();
+        MarkingStoreInterface markingStore = new MethodMarkingStore("status") {
+            @Override
+            public void setMarkings(Map<Object, Marking> markings) {
+                batchSizes.add(markings.size());
+                super.setMarkings(markings);
+            }
+        };
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), markingStore);
+
+        List<ApplyResult> results = workflow.applyAll(List.of(subject1, subject2, subject3), "t1");
+
+        assertEquals(3, results.size());
+        assertSame(subject1, results.get(0).getSubject());
+        assertTrue(results.get(0).isApplied());
+        assertEquals(List.of("b", "c"), results.get(0).getMarking().getPlaces());
+        assertSame(subject2, results.get(1).getSubject());
+        assertFalse(results.get(1).isApplied());
+        assertTrue(results.get(1).isBlocked());
+        assertNull(results.get(1).getMarking());
+        assertEquals("blocked_by_marking", results.get(1).getTransitionBlockers().get(0).getCode());
+        assertTrue(results.get(2).isApplied());
+        assertEquals(List.of("b", "c"), subject1.getStatus());
+        assertEquals(List.of("d"), subject2.getStatus());
+        assertEquals(List.of("b", "c"), subject3.getStatus());
+        assertEquals(List.of(2), batchSizes);
+    }
+
+    @Test
+    void testApplyAllWithNotExistingTransition() {
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status"));
+
+        Throwable exception = assertThrows(TransitionUndefinedException.class, () -> workflow.applyAll(List.of(new MultiStateMethodSubject()), "nope"));
+        assertEquals("Transition nope is not defined for workflow unnamed.", exception.getMessage());
+    }
+
+    @Test
+    void testApplyAllAppliesARepeatedSubjectAfterItsFirstWrite() {
+        MultiStateMethodSubject subject = new MultiStateMethodSubject();
+        subject.setStatus(List.of("a"));
+        Workflow workflow = new Workflow(WorkflowTestHelper.createWorkflowWithSameNameTransitions(), new MethodMarkingStore("status"));
+
+        List<ApplyResult> results = workflow.applyAll(List.of(subject, subject), "a_to_bc");
+
+        assertTrue(results.get(0).isApplied());
+        assertTrue(results.get(1).isBlocked());
+        assertEquals(List.of("b", "c"), subject.getStatus());
+    }
+
+    @Test
+    void testApplyAllWithSameNameTransitions() {
+        MultiStateMethodSubject subject = new MultiStateMethodSubject();
+        subject.setStatus(List.of("b", "c"));
+        Workflow workflow = new Workflow(WorkflowTestHelper.createWorkflowWithSameNameTransitions(), new MethodMarkingStore("status"));
+
+        List<ApplyResult> results = workflow.applyAll(List.of(subject), "to_a");
+
+        assertTrue(results.get(0).isApplied());
+        assertEquals(List.of("a"), subject.getStatus());
+    }
+
+    @Test
+    void testApplyAllReturnsBlockersProvidedInGuards() {
+        MultiStateMethodSubject subject = new MultiStateMethodSubject();
+        EventDispatcher eventDispatcher = new EventDispatcher();
+        Workflow workflow = new Workflow(WorkflowTestHelper.createSimpleWorkflowDefinition(), new MethodMarkingStore("status"), "workflow_name", eventDispatcher);
+        workflow.addEventListener(new GuardBlockEventListener(), List.of("workflow.guard"));
+
+        List<ApplyResult> results = workflow.applyAll(List.of(subject), "t1");
+
+        assertTrue(results.get(0).isBlocked());
+        assertEquals("Blocked by GuardBlockEventListener", results.get(0).getTransitionBlockers().get(0).getMessage());
+        assertEquals(List.of("a"), subject.getStatus());
+    }
+
+    @Test
+    void testApplyAllReturnsFailures() {
+        MultiStateMethodSubject subject = new MultiStateMethodSubject();
+        subject.setStatus(List.of("nope"));
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status"), "workflow_name");
+
+        List<ApplyResult> results = workflow.applyAll(List.of(subject), "t1");
+
+        assertFalse(results.get(0).isApplied());
+        assertFalse(results.get(0).isBlocked());
+        assertTrue(results.get(0).getException() instanceof PlaceNotValidForWorkflowException);
+    }
+
+    @Test
+    void testApplyAllReturnsFailuresWhenStoringFails() {
+        MultiStateMethodSubject subject1 = new MultiStateMethodSubject();
+        subject1.setStatus(List.of("a"));
+        MultiStateMethodSubject subject2 = new MultiStateMethodSubject();
+        subject2.setStatus(List.of("a"));
+        List<Integer> batchSizes = new ArrayList<>();
+        MarkingStoreInterface markingStore = new MethodMarkingStore("status") {
+            @Override
+            public void setMarkings(Map<Object, Marking> markings) {
+                batchSizes.add(markings.size());
+                if (1 == batchSizes.size()) {
+                    throw new IllegalStateException("store unavailable");
+                }
+
+                super.setMarkings(markings);
+            }
+        };
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), markingStore);
+
+        // the repeated subject starts a second batch, which is stored after the first one failed
+        List<ApplyResult> results = workflow.applyAll(List.of(subject1, subject2, subject1), "t1");
+
+        assertEquals(3, results.size());
+        assertFalse(results.get(0).isApplied());
+        assertEquals("store unavailable", results.get(0).getException().getMessage());
+        assertFalse(results.get(1).isApplied());
+        assertEquals("store unavailable", results.get(1).getException().getMessage());
+        assertTrue(results.get(2).isApplied());
+        assertEquals(List.of("b", "c"), subject1.getStatus());
+        assertEquals(List.of("a"), subject2.getStatus());
+        assertEquals(List.of(2, 1), batchSizes);
+    }
+
+    @Test
+    void testApplyAllWithSameSubjectIdAppliesTheTransitionOnce() {
+        AtomicLong subject1 = new AtomicLong(1);
+        AtomicLong subject2 = new AtomicLong(1);
+        OffHeapMarkingStore markingStore = new OffHeapMarkingStore(WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace(), (Object subject) -> ((AtomicLong) subject).get(), 10);
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace(), markingStore);
+
+        // both instances are stored under the same id, the second one sees the marking written for the first one
+        List<ApplyResult> results = workflow.applyAll(List.of(subject1, subject2), "t1");
+
+        assertTrue(results.get(0).isApplied());
+        assertTrue(results.get(1).isBlocked());
+        assertEquals(List.of("b", "c"), markingStore.getMarking(subject2).getPlaces());
+    }
+
+    @Test
+    void testApplyAllWithoutTransitionBlockersIsFailed() {
+        Object subject = new Object();
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace(), new ConflictingVersionedMarkingStore(0)) {
+            @Override
+            public Marking apply(Object subject, String transitionName) {
+                throw new TransitionNotEnabledException(transitionName, "workflow_name", List.of());
+            }
+        };
+
+        List<ApplyResult> results = workflow.applyAll(List.of(subject), "t1");
+
+        assertFalse(results.get(0).isApplied());
+        assertFalse(results.get(0).isBlocked());
+        assertTrue(results.get(0).getException() instanceof TransitionNotEnabledException);
+    }
+
+    @Test
+    void testApplyAllWithVersionedMarkingStoreReturnsBlockersProvidedInGuards() {
+        Object subject = new Object();
+        ConflictingVersionedMarkingStore markingStore = new ConflictingVersionedMarkingStore(0);
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace(), markingStore, "workflow_name", new EventDispatcher());
+        workflow.addEventListener(new GuardBlockEventListener(), List.of("workflow.guard"));
+
+        List<ApplyResult> results = workflow.applyAll(List.of(subject), "t1");
+
+        assertTrue(results.get(0).isBlocked());
+        assertEquals("Blocked by GuardBlockEventListener", results.get(0).getTransitionBlockers().get(0).getMessage());
+    }
+
+    @Test
+    void testApplyAllWithVersionedMarkingStore() {
+        Object subject = new Object();
+        ConflictingVersionedMarkingStore markingStore = new ConflictingVersionedMarkingStore(1);
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace(), markingStore);
+
+        List<ApplyResult> results = workflow.applyAll(List.of(subject), "t1");
+
+        assertTrue(results.get(0).isApplied());
+        assertEquals(List.of("b", "c"), markingStore.getMarking(subject).getPlaces());
+        assertEquals(1, workflow.getApplyRetryCount());
+    }
+
+    @Test
+    void testApplyAllWithForkJoinPool() {
+        List<MultiStateMethodSubject> subjects = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            MultiStateMethodSubject subject = new MultiStateMethodSubject();
+            subject.setStatus(List.of(0 == i % 2 ? "a" : "d"));
+            subjects.add(subject);
+        }
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status"));
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            List<ApplyResult> results = workflow.applyAll(subjects, "t1", pool);
+
+            assertEquals(2500, results.size());
+            for (int i = 0; i < 2500; i++) {
+                assertSame(subjects.get(i), results.get(i).getSubject());
+                assertEquals(0 == i % 2, results.get(i).isApplied());
+                assertEquals(0 == i % 2 ? List.of("b", "c") : List.of("d"), subjects.get(i).getStatus());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     @Test
     void testGetEnabledTransitions() {
         MultiStateMethodSubject subject = new MultiStateMethodSubject();
@@ -384,6 +654,82 @@ class WorkflowTest {
         assertEquals("to_a", enabledTransitions.get(2).getName());
     }
 
+    @Test
+    void testGetEnabledTransitionsForAll() {
+        List<MultiStateMethodSubject> subjects = new ArrayList<>();
+        for (String place : List.of("a", "d", "d", "a", "g")) {
+            MultiStateMethodSubject subject = new MultiStateMethodSubject();
+            subject.setStatus(List.of(place));
+            subjects.add(subject);
+        }
+        EventDispatcher eventDispatcher = new EventDispatcher();
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status"), "workflow_name", eventDispatcher);
+        SubjectIndependentGuardEventListener eventListener = new SubjectIndependentGuardEventListener("t4");
+        workflow.addEventListener(eventListener, List.of("workflow.guard"));
+
+        List<List<Transition>> enabledTransitions = workflow.getEnabledTransitionsForAll(subjects);
+
+        assertEquals(5, enabledTransitions.size());
+        assertEquals("t1", enabledTransitions.get(0).get(0).getName());
+        assertEquals(1, enabledTransitions.get(1).size());
+        assertEquals("t3", enabledTransitions.get(1).get(0).getName());
+        assertEquals("t3", enabledTransitions.get(2).get(0).getName());
+        assertEquals("t1", enabledTransitions.get(3).get(0).getName());
+        assertEquals(0, enabledTransitions.get(4).size());
+        // t1, t3 and t4 are guarded once for all subjects
+        assertEquals(3, eventListener.getGuardCount());
+    }
+
+    @Test
+    void testGetEnabledTransitionsForAllGuardsEverySubjectWithSubjectDependentGuards() {
+        MultiStateMethodSubject subject1 = new MultiStateMethodSubject();
+        subject1.setStatus(List.of("a"));
+        MultiStateMethodSubject subject2 = new MultiStateMethodSubject();
+        subject2.setStatus(List.of("a"));
+        EventDispatcher eventDispatcher = new EventDispatcher();
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status"), "workflow_name", eventDispatcher);
+        SubjectIndependentGuardEventListener subjectIndependentEventListener = new SubjectIndependentGuardEventListener("nope");
+        workflow.addEventListener(subjectIndependentEventListener, List.of("workflow.guard"));
+        GuardBlockEventListener eventListener = new GuardBlockEventListener();
+        workflow.addEventListener(eventListener, List.of("workflow.workflow_name.guard.t1"));
+
+        List<List<Transition>> enabledTransitions = workflow.getEnabledTransitionsForAll(List.of(subject1, subject2));
+
+        assertEquals(List.of(List.of(), List.of()), enabledTransitions);
+        assertEquals(2, subjectIndependentEventListener.getGuardCount());
+        assertEquals(2, eventListener.getEvents().size());
+        assertSame(subject1, eventListener.getEvents().get(0).getSource());
+        assertSame(subject2, eventListener.getEvents().get(1).getSource());
+    }
+
+    @Test
+    void testGetEnabledTransitionsForAllWithForkJoinPool() {
+        List<MultiStateMethodSubject> subjects = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            MultiStateMethodSubject subject = new MultiStateMethodSubject();
+            subject.setStatus(List.of(0 == i % 2 ? "a" : "d"));
+            subjects.add(subject);
+        }
+        EventDispatcher eventDispatcher = new EventDispatcher();
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status"), "workflow_name", eventDispatcher);
+        SubjectIndependentGuardEventListener eventListener = new SubjectIndependentGuardEventListener("t3");
+        workflow.addEventListener(eventListener, List.of("workflow.guard"));
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            List<List<Transition>> enabledTransitions = workflow.getEnabledTransitionsForAll(subjects, pool);
+
+            assertEquals(2500, enabledTransitions.size());
+            for (int i = 0; i < 2500; i++) {
+                assertEquals(1, enabledTransitions.get(i).size());
+                assertEquals(0 == i % 2 ? "t1" : "t4", enabledTransitions.get(i).get(0).getName());
+            }
+            assertTrue(eventListener.getGuardCount() < 2500);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     @Test
     void testGetEnabledTransition() {
         MultiStateMethodSubject subject = new MultiStateMethodSubject();
@@ -447,6 +793,61 @@ class WorkflowTest {
         assertEquals(expectedEventNames, eventListener.getFiredEvents());
     }
 
+    @Test
+    void testApplyOnlyDispatchesEventsWithListeners() {
+        MultiStateMethodSubject subject = new MultiStateMethodSubject();
+        List<String> dispatchedEventNames = new ArrayList<>();
+        EventDispatcher eventDispatcher = new EventDispatcher() {
+            @Override
+            public void dispatch(AbstractWorkflowEvent event, String eventName) {
+                dispatchedEventNames.add(eventName);
+                super.dispatch(event, eventName);
+            }
+        };
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status"), "workflow_name", eventDispatcher);
+        TestEventListener eventListener = new TestEventListener();
+
+        workflow.addEventListener(eventListener, List.of("workflow.workflow_name.completed.t1"));
+
+        workflow.apply(subject, "t1");
+
+        assertEquals(List.of("workflow.workflow_name.completed.t1"), eventListener.getFiredEvents());
+        assertEquals(List.of("workflow.completed", "workflow.workflow_name.completed", "workflow.workflow_name.completed.t1"), dispatchedEventNames);
+    }
+
+    @Test
+    void testApplyOnlyGuardsAnnouncedTransitionsWithListeners() {
+        MultiStateMethodSubject subject = new MultiStateMethodSubject();
+        EventDispatcher eventDispatcher = new EventDispatcher();
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status"), "workflow_name", eventDispatcher);
+        TestEventListener guardListener = new TestEventListener();
+        TestEventListener announceListener = new TestEventListener();
+
+        workflow.addEventListener(guardListener, List.of("workflow.workflow_name.guard.t1", "workflow.workflow_name.guard.t2", "workflow.workflow_name.guard.t3", "workflow.workflow_name.guard.t4"));
+        workflow.addEventListener(announceListener, List.of("workflow.workflow_name.announce.t3"));
+
+        workflow.apply(subject, "t1");
+        workflow.apply(subject, "t2");
+
+        assertEquals(List.of("workflow.workflow_name.guard.t1", "workflow.workflow_name.guard.t2", "workflow.workflow_name.guard.t3"), guardListener.getFiredEvents());
+        assertEquals(List.of("workflow.workflow_name.announce.t3"), announceListener.getFiredEvents());
+    }
+
+    @Test
+    void testApplyAnnouncesEnabledTransitionsWhenRead() {
+        MultiStateMethodSubject subject = new MultiStateMethodSubject();
+        EventDispatcher eventDispatcher = new EventDispatcher();
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status"), "workflow_name", eventDispatcher);
+        AnnounceEnabledTransitionsEventListener eventListener = new AnnounceEnabledTransitionsEventListener();
+
+        workflow.addEventListener(eventListener, List.of("workflow.announce"));
+
+        workflow.apply(subject, "t1");
+        workflow.apply(subject, "t2");
+
+        assertEquals(List.of("t2", "t3", "t4"), eventListener.getEnabledTransitions());
+    }
+
     @Test
     void testApplyWithEventDispatcherCheckEvents() {
         MultiStateMethodSubject subject = new MultiStateMethodSubject();
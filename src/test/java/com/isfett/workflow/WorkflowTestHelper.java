@@ -8,10 +8,17 @@ import com.isfett.workflow.event.EnteredEvent;
 import com.isfett.workflow.event.EventListenerInterface;
 import com.isfett.workflow.event.GuardEvent;
 import com.isfett.workflow.event.LeaveEvent;
+import com.isfett.workflow.event.SubjectIndependentGuardListenerInterface;
 import com.isfett.workflow.event.TransitionEvent;
+import com.isfett.workflow.markingstore.VersionedMarking;
+import com.isfett.workflow.markingstore.VersionedMarkingStoreInterface;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EventListener;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @SuppressWarnings("unused")
 public class WorkflowTestHelper {
@@ -37,6 +44,12 @@ public class WorkflowTestHelper {
         return new Definition(places, transitions, List.of());
     }
 
+    public static Definition createComplexWorkflowDefinitionWithInitialPlace() {
+        Definition definition = createComplexWorkflowDefinition();
+
+        return new Definition(new ArrayList<>(definition.getPlaces().values()), definition.getTransitions(), List.of("a"));
+    }
+
     public static Definition createWorkflowWithSameNameTransitions() {
         List<String> places = List.of("a", "b", "c");
         List<Transition> transitions = new ArrayList<>();
@@ -298,6 +311,82 @@ public class WorkflowTestHelper {
         }
     }
 
+    public static class AnnounceEnabledTransitionsEventListener implements EventListenerInterface {
+
+        private final List<String> enabledTransitions = new ArrayList<>();
+
+        public void onAnnounce(AnnounceEvent event, String eventName) {
+            event.getEnabledTransitions().forEach((Transition transition) -> this.enabledTransitions.add(transition.getName()));
+        }
+
+        public List<String> getEnabledTransitions() {
+            return enabledTransitions;
+        }
+    }
+
+    public static class SubjectIndependentGuardEventListener implements SubjectIndependentGuardListenerInterface {
+
+        private final AtomicInteger guardCount = new AtomicInteger();
+        private final String blockedTransitionName;
+
+        public SubjectIndependentGuardEventListener(String blockedTransitionName) {
+            this.blockedTransitionName = blockedTransitionName;
+        }
+
+        public void onGuard(GuardEvent event, String eventName) {
+            this.guardCount.incrementAndGet();
+
+            if (this.blockedTransitionName.equals(event.getTransition().getName())) {
+                event.setBlocked(true);
+            }
+        }
+
+        public int getGuardCount() {
+            return guardCount.get();
+        }
+    }
+
+    public static class ThreadRecordingEventListener implements EventListenerInterface {
+
+        private final List<String> firedEvents = Collections.synchronizedList(new ArrayList<>());
+        private final List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        private final List<List<String>> markings = Collections.synchronizedList(new ArrayList<>());
+
+        public void onGuard(GuardEvent event, String eventName) {
+            this.on(event, eventName);
+        }
+
+        public void onEntered(EnteredEvent event, String eventName) {
+            this.on(event, eventName);
+        }
+
+        public void onCompleted(CompletedEvent event, String eventName) {
+            if (event.getTransition().getName().equals("fail")) {
+                throw new IllegalStateException("Failed by ThreadRecordingEventListener");
+            }
+
+            this.on(event, eventName);
+        }
+
+        private void on(AbstractWorkflowEvent event, String eventName) {
+            this.firedEvents.add(eventName);
+            this.threads.add(Thread.currentThread());
+            this.markings.add(event.getMarking().getPlaces());
+        }
+
+        public List<String> getFiredEvents() {
+            return firedEvents;
+        }
+
+        public List<Thread> getThreads() {
+            return threads;
+        }
+
+        public List<List<String>> getMarkings() {
+            return markings;
+        }
+    }
+
     public static class MethodNotPublicEventListener implements EventListenerInterface {
 
         private void onEnter(EnterEvent event, String eventName) {
@@ -345,4 +434,48 @@ public class WorkflowTestHelper {
             return firedEvents;
         }
     }
+
+    // simulates another writer that changes the marking right before the first conflicts compare and set calls
+    public static class ConflictingVersionedMarkingStore implements VersionedMarkingStoreInterface {
+
+        private final Map<Object, VersionedMarking> markings = new IdentityHashMap<>();
+        private int conflicts;
+
+        public ConflictingVersionedMarkingStore(int conflicts) {
+            this.conflicts = conflicts;
+        }
+
+        public VersionedMarking getVersionedMarking(Object subject) {
+            return this.markings.getOrDefault(subject, new VersionedMarking(new Marking(List.of()), 0));
+        }
+
+        public Boolean compareAndSetMarking(Object subject, long expectedVersion, Marking marking) {
+            if (this.conflicts > 0) {
+                this.conflicts--;
+                this.setMarking(subject, this.getMarking(subject));
+
+                return false;
+            }
+
+            if (this.getVersionedMarking(subject).getVersion() != expectedVersion) {
+                return false;
+            }
+
+            this.setMarking(subject, marking);
+
+            return true;
+        }
+
+        public Marking getMarking(Object subject) {
+            return this.getVersionedMarking(subject).getMarking();
+        }
+
+        public void setMarking(Object subject, Marking marking) {
+            this.markings.put(subject, new VersionedMarking(new Marking(marking.getPlaces()), this.getVersionedMarking(subject).getVersion() + 1));
+        }
+
+        public Boolean isSingleState() {
+            return false;
+        }
+    }
 }
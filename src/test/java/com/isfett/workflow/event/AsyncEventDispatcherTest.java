@@ -0,0 +1,173 @@
+package com.isfett.workflow.event;
+
+import com.isfett.workflow.Definition;
+import com.isfett.workflow.Marking;
+import com.isfett.workflow.Transition;
+import com.isfett.workflow.Workflow;
+import com.isfett.workflow.WorkflowTestHelper;
+import com.isfett.workflow.WorkflowTestHelper.MultiStateMethodSubject;
+import com.isfett.workflow.WorkflowTestHelper.ThreadRecordingEventListener;
+import com.isfett.workflow.exception.InvalidLaneCountException;
+import com.isfett.workflow.markingstore.MethodMarkingStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncEventDispatcherTest {
+    @Test
+    void testGuardEventsAreDispatchedOnTheCallingThread() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AsyncEventDispatcher eventDispatcher = new AsyncEventDispatcher(new EventDispatcher(), executor);
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status"), "workflow_name", eventDispatcher);
+        ThreadRecordingEventListener eventListener = new ThreadRecordingEventListener();
+        workflow.addEventListener(eventListener, List.of("workflow.guard", "workflow.completed"));
+        MultiStateMethodSubject subject = new MultiStateMethodSubject();
+        subject.setStatus(List.of("a"));
+
+        try {
+            workflow.apply(subject, "t1");
+
+            assertTrue(eventDispatcher.awaitDispatched(Duration.ofSeconds(5)));
+            assertEquals(0, eventDispatcher.getPendingCount());
+            assertEquals(List.of("workflow.guard", "workflow.completed"), eventListener.getFiredEvents());
+            assertSame(Thread.currentThread(), eventListener.getThreads().get(0));
+            assertNotSame(Thread.currentThread(), eventListener.getThreads().get(1));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testEventsOfASubjectKeepTheirOrderAndMarking() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        AsyncEventDispatcher eventDispatcher = new AsyncEventDispatcher(new EventDispatcher(), executor);
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status"), "workflow_name", eventDispatcher);
+        ThreadRecordingEventListener eventListener = new ThreadRecordingEventListener();
+        workflow.addEventListener(eventListener, List.of("workflow.entered"));
+        MultiStateMethodSubject subject = new MultiStateMethodSubject();
+        subject.setStatus(List.of("a"));
+
+        try {
+            for (String transitionName : List.of("t1", "t2", "t3", "t5")) {
+                workflow.apply(subject, transitionName);
+            }
+
+            assertTrue(eventDispatcher.awaitDispatched(Duration.ofSeconds(5)));
+            assertEquals(List.of(List.of("b", "c"), List.of("d"), List.of("e"), List.of("g")), eventListener.getMarkings());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testFailingListenersAreReportedToTheExceptionHandler() throws InterruptedException {
+        Definition definition = new Definition(
+            List.of("a", "b", "c"),
+            List.of(new Transition("fail", List.of("a"), List.of("b")), new Transition("t2", List.of("b"), List.of("c"))),
+            List.of()
+        );
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AsyncEventDispatcher eventDispatcher = new AsyncEventDispatcher(new EventDispatcher(), executor, 1);
+        List<RuntimeException> exceptions = new ArrayList<>();
+        eventDispatcher.setExceptionHandler((AbstractWorkflowEvent event, RuntimeException exception) -> exceptions.add(exception));
+        Workflow workflow = new Workflow(definition, new MethodMarkingStore("status"), "workflow_name", eventDispatcher);
+        ThreadRecordingEventListener eventListener = new ThreadRecordingEventListener();
+        workflow.addEventListener(eventListener, List.of("workflow.completed"));
+        MultiStateMethodSubject subject = new MultiStateMethodSubject();
+
+        try {
+            workflow.apply(subject, "fail");
+            workflow.apply(subject, "t2");
+
+            assertTrue(eventDispatcher.awaitDispatched(Duration.ofSeconds(5)));
+            assertEquals(1, exceptions.size());
+            assertEquals(List.of("workflow.completed"), eventListener.getFiredEvents());
+            assertEquals(List.of("c"), subject.getStatus());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testEnabledTransitionsAreAnnouncedLazilyOnTheLane() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AsyncEventDispatcher eventDispatcher = new AsyncEventDispatcher(new EventDispatcher(), executor);
+        List<Thread> guardThreads = new CopyOnWriteArrayList<>();
+        List<List<Transition>> announcedTransitions = new CopyOnWriteArrayList<>();
+        eventDispatcher.addListener((AnnounceListenerInterface) (AnnounceEvent event, String eventName) -> announcedTransitions.add(event.getEnabledTransitions()), List.of("workflow.announce", "workflow.workflow_name.announce"));
+        Transition transition = new Transition("t1", List.of("a"), List.of("b"));
+
+        try {
+            AnnounceEvent announceEvent = new AnnounceEvent(new Object(), new Marking(List.of("b")), transition, null, () -> {
+                guardThreads.add(Thread.currentThread());
+
+                return List.of(transition);
+            });
+            eventDispatcher.dispatch(announceEvent, "workflow.announce");
+            eventDispatcher.dispatch(announceEvent, "workflow.workflow_name.announce");
+
+            assertTrue(eventDispatcher.awaitDispatched(Duration.ofSeconds(5)));
+            assertEquals(1, guardThreads.size());
+            assertNotSame(Thread.currentThread(), guardThreads.get(0));
+            assertEquals(List.of(List.of(transition), List.of(transition)), announcedTransitions);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testRejectedEventIsReportedToTheExceptionHandler() throws InterruptedException {
+        AsyncEventDispatcher eventDispatcher = new AsyncEventDispatcher(new EventDispatcher(), (Runnable runnable) -> {
+            throw new RejectedExecutionException("executor is shut down");
+        }, 1);
+        List<AbstractWorkflowEvent> rejectedEvents = new ArrayList<>();
+        List<RuntimeException> exceptions = new ArrayList<>();
+        eventDispatcher.setExceptionHandler((AbstractWorkflowEvent event, RuntimeException exception) -> {
+            rejectedEvents.add(event);
+            exceptions.add(exception);
+        });
+        CompletedEvent event = new CompletedEvent(new Object(), new Marking(List.of("b")), new Transition("t1", List.of("a"), List.of("b")), null);
+
+        eventDispatcher.dispatch(event, "workflow.completed");
+
+        assertEquals(1, exceptions.size());
+        assertEquals("executor is shut down", exceptions.get(0).getMessage());
+        assertSame(event.getSource(), rejectedEvents.get(0).getSource());
+        assertEquals(0, eventDispatcher.getPendingCount());
+        assertTrue(eventDispatcher.awaitDispatched(Duration.ofMillis(100)));
+    }
+
+    @Test
+    void testCloseWhenInterrupted() {
+        List<Runnable> scheduledTasks = new ArrayList<>();
+        AsyncEventDispatcher eventDispatcher = new AsyncEventDispatcher(new EventDispatcher(), scheduledTasks::add, 1);
+        CompletedEvent event = new CompletedEvent(new Object(), new Marking(List.of("b")), new Transition("t1", List.of("a"), List.of("b")), null);
+        eventDispatcher.dispatch(event, "workflow.completed");
+
+        Thread.currentThread().interrupt();
+        eventDispatcher.close();
+
+        // clears the flag again for the other tests
+        assertTrue(Thread.interrupted());
+        assertEquals(1, eventDispatcher.getPendingCount());
+        assertEquals(1, scheduledTasks.size());
+    }
+
+    @Test
+    void testLaneCount() {
+        try (AsyncEventDispatcher eventDispatcher = new AsyncEventDispatcher(new EventDispatcher(), Runnable::run, 3)) {
+            assertEquals(4, eventDispatcher.getLaneCount());
+        }
+
+        Throwable exception = assertThrows(InvalidLaneCountException.class, () -> new AsyncEventDispatcher(new EventDispatcher(), Runnable::run, 0));
+        assertEquals("The lane count must be greater than 0, 0 given.", exception.getMessage());
+    }
+}
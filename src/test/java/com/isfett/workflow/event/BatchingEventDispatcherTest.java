@@ -0,0 +1,125 @@
+package com.isfett.workflow.event;
+
+import com.isfett.workflow.Workflow;
+import com.isfett.workflow.WorkflowTestHelper;
+import com.isfett.workflow.WorkflowTestHelper.MultiStateMethodSubject;
+import com.isfett.workflow.WorkflowTestHelper.TestEventListener;
+import com.isfett.workflow.markingstore.MethodMarkingStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchingEventDispatcherTest {
+    @Test
+    void testBatchesAreDeliveredWhenFullOrFlushed() {
+        BatchingEventDispatcher eventDispatcher = new BatchingEventDispatcher(new EventDispatcher(), 2, Duration.ofHours(1));
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status"), "workflow_name", eventDispatcher);
+        List<List<String>> batches = new ArrayList<>();
+        CompletedBatchListenerInterface batchListener = (List<CompletedEvent> events, String eventName) -> batches.add(events.stream().map((CompletedEvent event) -> eventName + ":" + event.getTransition().getName()).toList());
+        workflow.addEventListener(batchListener, List.of("workflow.completed"));
+        TestEventListener eventListener = new TestEventListener();
+        workflow.addEventListener(eventListener, List.of("workflow.completed"));
+
+        for (int i = 0; i < 3; i++) {
+            workflow.apply(new MultiStateMethodSubject(), "t1");
+        }
+
+        assertEquals(List.of(List.of("workflow.completed:t1", "workflow.completed:t1")), batches);
+        assertEquals(3, eventListener.getFiredEvents().size());
+        assertEquals(1, eventDispatcher.getPendingCount());
+
+        eventDispatcher.flush();
+
+        assertEquals(List.of(List.of("workflow.completed:t1", "workflow.completed:t1"), List.of("workflow.completed:t1")), batches);
+        assertEquals(0, eventDispatcher.getPendingCount());
+        eventDispatcher.close();
+    }
+
+    @Test
+    void testBatchesAreDeliveredAfterTheFlushInterval() throws InterruptedException {
+        BatchingEventDispatcher eventDispatcher = new BatchingEventDispatcher(new EventDispatcher(), 1000, Duration.ofMillis(10));
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status"), "workflow_name", eventDispatcher);
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        CompletedBatchListenerInterface batchListener = (List<CompletedEvent> events, String eventName) -> batchSizes.add(events.size());
+        workflow.addEventListener(batchListener, List.of("workflow.workflow_name.completed.t1"));
+
+        workflow.apply(new MultiStateMethodSubject(), "t1");
+
+        for (int i = 0; i < 500 && batchSizes.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of(1), batchSizes);
+        eventDispatcher.close();
+    }
+
+    @Test
+    void testEnteredBatchesKeepTheMarkingOfEachEvent() {
+        BatchingEventDispatcher eventDispatcher = new BatchingEventDispatcher(new EventDispatcher(), 100, Duration.ofHours(1));
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status"), "workflow_name", eventDispatcher);
+        List<List<String>> markings = new ArrayList<>();
+        EnteredBatchListenerInterface batchListener = (List<EnteredEvent> events, String eventName) -> events.forEach((EnteredEvent event) -> markings.add(event.getMarking().getPlaces()));
+        workflow.addEventListener(batchListener, List.of("workflow.workflow_name.entered"));
+        MultiStateMethodSubject subject = new MultiStateMethodSubject();
+
+        workflow.apply(subject, "t1");
+        workflow.apply(subject, "t2");
+        assertTrue(markings.isEmpty());
+        assertTrue(eventDispatcher.hasListeners("workflow.workflow_name.entered"));
+        assertFalse(eventDispatcher.hasListeners("workflow.workflow_name.completed"));
+
+        eventDispatcher.close();
+
+        assertEquals(List.of(List.of("a"), List.of("b", "c"), List.of("d")), markings);
+    }
+
+    @Test
+    void testWildcardBatchListenersOnlyCountForTheirBatchedEvents() {
+        BatchingEventDispatcher eventDispatcher = new BatchingEventDispatcher(new EventDispatcher(), 100, Duration.ofHours(1));
+        EnteredBatchListenerInterface batchListener = (List<EnteredEvent> events, String eventName) -> {
+        };
+        eventDispatcher.addListener(batchListener, List.of());
+
+        assertTrue(eventDispatcher.hasListeners("workflow.entered"));
+        assertTrue(eventDispatcher.hasListeners("workflow.workflow_name.entered"));
+        assertTrue(eventDispatcher.hasListeners("workflow.workflow_name.entered.b"));
+        assertFalse(eventDispatcher.hasListeners("workflow.completed"));
+        assertFalse(eventDispatcher.hasListeners("workflow.workflow_name.leave.a"));
+        assertFalse(eventDispatcher.hasListeners("workflow.workflow_name.announce.t1"));
+
+        CompletedBatchListenerInterface completedBatchListener = (List<CompletedEvent> events, String eventName) -> {
+        };
+        eventDispatcher.addListener(completedBatchListener, List.of("workflow.completed", "workflow.guard"));
+
+        assertTrue(eventDispatcher.hasListeners("workflow.completed"));
+        assertFalse(eventDispatcher.hasListeners("workflow.guard"));
+        assertFalse(eventDispatcher.hasListeners("workflow.workflow_name.completed.t1"));
+
+        eventDispatcher.close();
+    }
+
+    @Test
+    void testFailingBatchesOfTheFlushIntervalAreReportedToTheExceptionHandler() throws InterruptedException {
+        BatchingEventDispatcher eventDispatcher = new BatchingEventDispatcher(new EventDispatcher(), 1000, Duration.ofMillis(10));
+        List<RuntimeException> exceptions = Collections.synchronizedList(new ArrayList<>());
+        eventDispatcher.setExceptionHandler((List<? extends AbstractWorkflowEvent> events, RuntimeException exception) -> exceptions.add(exception));
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status"), "workflow_name", eventDispatcher);
+        CompletedBatchListenerInterface batchListener = (List<CompletedEvent> events, String eventName) -> {
+            throw new IllegalStateException("nope");
+        };
+        workflow.addEventListener(batchListener, List.of("workflow.completed"));
+
+        workflow.apply(new MultiStateMethodSubject(), "t1");
+
+        for (int i = 0; i < 500 && exceptions.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, exceptions.size());
+        assertEquals(0, eventDispatcher.getPendingCount());
+        eventDispatcher.close();
+    }
+}
@@ -0,0 +1,152 @@
+package com.isfett.workflow.event;
+
+import com.isfett.workflow.Marking;
+import com.isfett.workflow.WorkflowTestHelper.CheckPropertyEventListener;
+import com.isfett.workflow.WorkflowTestHelper.MethodNotPublicEventListener;
+import com.isfett.workflow.WorkflowTestHelper.SubjectIndependentGuardEventListener;
+import com.isfett.workflow.WorkflowTestHelper.TestEventListener;
+import com.isfett.workflow.exception.EventCanNotBeDispatchedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventDispatcherTest {
+    @Test
+    void testDispatchToSubscribedListeners() {
+        EventDispatcher eventDispatcher = new EventDispatcher();
+        TestEventListener subscribedListener = new TestEventListener();
+        TestEventListener otherListener = new TestEventListener();
+        eventDispatcher.addListener(subscribedListener, List.of("workflow.enter", "workflow.leave"));
+        eventDispatcher.addListener(otherListener, List.of("workflow.completed"));
+
+        eventDispatcher.dispatch(new EnterEvent(new Object(), new Marking(List.of()), null, null), "workflow.enter");
+        eventDispatcher.dispatch(new LeaveEvent(new Object(), new Marking(List.of()), null, null), "workflow.leave");
+        eventDispatcher.dispatch(new EnterEvent(new Object(), new Marking(List.of()), null, null), "workflow.nobody");
+
+        assertEquals(List.of("workflow.enter", "workflow.leave"), subscribedListener.getFiredEvents());
+        assertEquals(List.of(), otherListener.getFiredEvents());
+    }
+
+    @Test
+    void testDispatchKeepsRegistrationOrderWithListenersSubscribedToAllEvents() {
+        EventDispatcher eventDispatcher = new EventDispatcher();
+        List<String> calls = new ArrayList<>();
+        eventDispatcher.addListener(new RecordingEventListener(calls, "first"), List.of("workflow.enter"));
+        eventDispatcher.addListener(new RecordingEventListener(calls, "all"), List.of());
+        eventDispatcher.addListener(new RecordingEventListener(calls, "last"), List.of("workflow.enter"));
+
+        eventDispatcher.dispatch(new EnterEvent(new Object(), new Marking(List.of()), null, null), "workflow.enter");
+        eventDispatcher.dispatch(new EnterEvent(new Object(), new Marking(List.of()), null, null), "workflow.other");
+
+        assertEquals(List.of("first:workflow.enter", "all:workflow.enter", "last:workflow.enter", "all:workflow.other"), calls);
+    }
+
+    @Test
+    void testDispatchToTypedListeners() {
+        EventDispatcher eventDispatcher = new EventDispatcher();
+        List<String> calls = new ArrayList<>();
+        GuardListenerInterface guardListener = (GuardEvent event, String eventName) -> calls.add("guard:" + eventName);
+        CompletedListenerInterface completedListener = (CompletedEvent event, String eventName) -> calls.add("completed:" + eventName);
+        eventDispatcher.addListener(guardListener, List.of("workflow.guard"));
+        eventDispatcher.addListener(completedListener, List.of("workflow.completed"));
+        eventDispatcher.addListener(new TypedRecordingEventListener(calls), List.of("workflow.enter", "workflow.entered"));
+
+        eventDispatcher.dispatch(new GuardEvent(new Object(), new Marking(List.of()), null, null), "workflow.guard");
+        eventDispatcher.dispatch(new CompletedEvent(new Object(), new Marking(List.of()), null, null), "workflow.completed");
+        eventDispatcher.dispatch(new EnterEvent(new Object(), new Marking(List.of()), null, null), "workflow.enter");
+        eventDispatcher.dispatch(new EnteredEvent(new Object(), new Marking(List.of()), null, null), "workflow.entered");
+
+        assertEquals(List.of("guard:workflow.guard", "completed:workflow.completed", "typed:workflow.enter", "reflective:workflow.entered"), calls);
+    }
+
+    @Test
+    void testTypedListenerExceptionsAreNotWrapped() {
+        EventDispatcher eventDispatcher = new EventDispatcher();
+        LeaveListenerInterface leaveListener = (LeaveEvent event, String eventName) -> {
+            throw new IllegalStateException("nope");
+        };
+        eventDispatcher.addListener(leaveListener, List.of("workflow.leave"));
+
+        Throwable exception = assertThrows(IllegalStateException.class, () -> eventDispatcher.dispatch(new LeaveEvent(new Object(), new Marking(List.of()), null, null), "workflow.leave"));
+        assertEquals("nope", exception.getMessage());
+    }
+
+    @Test
+    void testHasListeners() {
+        EventDispatcher eventDispatcher = new EventDispatcher();
+        assertFalse(eventDispatcher.hasListeners("workflow.enter"));
+
+        eventDispatcher.addListener(new TestEventListener(), List.of("workflow.enter"));
+        assertTrue(eventDispatcher.hasListeners("workflow.enter"));
+        assertFalse(eventDispatcher.hasListeners("workflow.leave"));
+
+        eventDispatcher.addListener(new TestEventListener(), List.of());
+        assertTrue(eventDispatcher.hasListeners("workflow.leave"));
+    }
+
+    @Test
+    void testIsSubjectIndependent() {
+        EventDispatcher eventDispatcher = new EventDispatcher();
+        eventDispatcher.addListener(new SubjectIndependentGuardEventListener("t1"), List.of("workflow.guard"));
+        assertTrue(eventDispatcher.isSubjectIndependent("workflow.guard"));
+
+        eventDispatcher.addListener(new TestEventListener(), List.of("workflow.guard.t1"));
+        assertTrue(eventDispatcher.isSubjectIndependent("workflow.guard"));
+        assertFalse(eventDispatcher.isSubjectIndependent("workflow.guard.t1"));
+
+        eventDispatcher.addListener(new TestEventListener(), List.of());
+        assertFalse(eventDispatcher.isSubjectIndependent("workflow.guard"));
+    }
+
+    @Test
+    void testDispatchWithNotFoundMethod() {
+        EventDispatcher eventDispatcher = new EventDispatcher();
+        eventDispatcher.addListener(new CheckPropertyEventListener(), List.of());
+
+        Throwable exception = assertThrows(EventCanNotBeDispatchedException.class, () -> eventDispatcher.dispatch(new EnterEvent(new Object(), new Marking(List.of()), null, null), "workflow.enter"));
+        assertEquals("The event workflow.enter can't be dispatched in CheckPropertyEventListener. The method onEnter does not exist or is not public.", exception.getMessage());
+    }
+
+    @Test
+    void testDispatchWithNotPublicMethod() {
+        EventDispatcher eventDispatcher = new EventDispatcher();
+        eventDispatcher.addListener(new MethodNotPublicEventListener(), List.of("workflow.enter"));
+
+        Throwable exception = assertThrows(EventCanNotBeDispatchedException.class, () -> eventDispatcher.dispatch(new EnterEvent(new Object(), new Marking(List.of()), null, null), "workflow.enter"));
+        assertEquals("The event workflow.enter can't be dispatched in MethodNotPublicEventListener. The method onEnter does not exist or is not public.", exception.getMessage());
+    }
+
+    public static class RecordingEventListener implements EventListenerInterface {
+        private final List<String> calls;
+        private final String name;
+
+        public RecordingEventListener(List<String> calls, String name) {
+            this.calls = calls;
+            this.name = name;
+        }
+
+        public void onEnter(EnterEvent event, String eventName) {
+            this.calls.add(this.name + ":" + eventName);
+        }
+    }
+
+    public static class TypedRecordingEventListener implements EnterListenerInterface {
+        private final List<String> calls;
+
+        public TypedRecordingEventListener(List<String> calls) {
+            this.calls = calls;
+        }
+
+        @Override
+        public void onEnter(EnterEvent event, String eventName) {
+            this.calls.add("typed:" + eventName);
+        }
+
+        public void onEntered(EnteredEvent event, String eventName) {
+            this.calls.add("reflective:" + eventName);
+        }
+    }
+}
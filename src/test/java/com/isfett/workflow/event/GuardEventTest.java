@@ -0,0 +1,38 @@
+package com.isfett.workflow.event;
+
+import com.isfett.workflow.Marking;
+import com.isfett.workflow.TransitionBlocker;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GuardEventTest {
+    @Test
+    void testSetBlocked() {
+        GuardEvent guardEvent = new GuardEvent(new Object(), new Marking(List.of()), null, null);
+        assertFalse(guardEvent.isBlocked());
+
+        guardEvent.setBlocked(false);
+        assertFalse(guardEvent.isBlocked());
+
+        guardEvent.setBlocked(true, "message");
+        assertTrue(guardEvent.isBlocked());
+        assertEquals(1, guardEvent.getTransitionBlockerList().size());
+        assertEquals("message", guardEvent.getTransitionBlockerList().get(0).getMessage());
+
+        guardEvent.setBlocked(false);
+        assertFalse(guardEvent.isBlocked());
+        assertEquals(0, guardEvent.getTransitionBlockerList().size());
+    }
+
+    @Test
+    void testTransitionBlockerListCanBeFilledByListeners() {
+        GuardEvent guardEvent = new GuardEvent(new Object(), new Marking(List.of()), null, null);
+
+        guardEvent.getTransitionBlockerList().add(TransitionBlocker.createUnknown());
+
+        assertTrue(guardEvent.isBlocked());
+    }
+}
@@ -0,0 +1,238 @@
+package com.isfett.workflow.journal;
+
+import com.isfett.workflow.Definition;
+import com.isfett.workflow.Marking;
+import com.isfett.workflow.Workflow;
+import com.isfett.workflow.WorkflowTestHelper;
+import com.isfett.workflow.event.EventDispatcher;
+import com.isfett.workflow.exception.SnapshotSubjectIdNotSupportedException;
+import com.isfett.workflow.markingstore.InMemoryMarkingStore;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransitionJournalTest {
+    private static final Function<Object, Object> SUBJECT_ID_EXTRACTOR = (Object subject) -> subject;
+    private static final ToLongFunction<Object> JOURNAL_SUBJECT_ID_EXTRACTOR = (Object subject) -> (Long) subject;
+
+    @Test
+    void testAppendCompletedTransitions() throws IOException {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace();
+        Path journalFile = Files.createTempDirectory("workflow_journal_").resolve("transitions.journal");
+        Workflow workflow = new Workflow(definition, new InMemoryMarkingStore(definition, SUBJECT_ID_EXTRACTOR), "workflow_name", new EventDispatcher());
+
+        try (TransitionJournal journal = new TransitionJournal(journalFile, definition, JOURNAL_SUBJECT_ID_EXTRACTOR, () -> 1234L)) {
+            journal.register(workflow);
+
+            workflow.apply(7L, "t1");
+            workflow.apply(7L, "t2");
+
+            assertEquals(2 * TransitionJournal.RECORD_SIZE, journal.getPosition());
+        }
+
+        ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(journalFile)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(2 * TransitionJournal.RECORD_SIZE, records.limit());
+        assertEquals(7L, records.getLong());
+        assertEquals(0, records.getInt());
+        assertEquals(1234L, records.getLong());
+        assertEquals(7L, records.getLong());
+        assertEquals(1, records.getInt());
+        assertEquals(1234L, records.getLong());
+    }
+
+    @Test
+    void testReplay() throws IOException {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace();
+        Path journalFile = Files.createTempDirectory("workflow_journal_").resolve("transitions.journal");
+        InMemoryMarkingStore markingStore = new InMemoryMarkingStore(definition, SUBJECT_ID_EXTRACTOR);
+        Workflow workflow = new Workflow(definition, markingStore, "workflow_name", new EventDispatcher());
+
+        try (TransitionJournal journal = new TransitionJournal(journalFile, definition, JOURNAL_SUBJECT_ID_EXTRACTOR)) {
+            journal.register(workflow);
+
+            for (long subjectId = 0; subjectId < 20; subjectId++) {
+                workflow.apply(subjectId, "t1");
+                if (0 == subjectId % 2) {
+                    workflow.apply(subjectId, "t2");
+                }
+                if (0 == subjectId % 4) {
+                    workflow.apply(subjectId, "t4");
+                }
+            }
+        }
+
+        InMemoryMarkingStore replayedMarkingStore = new InMemoryMarkingStore(definition, SUBJECT_ID_EXTRACTOR);
+        assertEquals(35, new JournalReplayer(definition, 3).replay(journalFile, replayedMarkingStore));
+
+        assertEquals(20, replayedMarkingStore.size());
+        for (long subjectId = 0; subjectId < 20; subjectId++) {
+            assertEquals(markingStore.getMarking(subjectId).getPlaces(), replayedMarkingStore.getMarking(subjectId).getPlaces());
+        }
+        assertEquals(List.of("f"), replayedMarkingStore.getMarking(4L).getPlaces());
+    }
+
+    @Test
+    void testReplayFromSnapshot() throws IOException {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace();
+        Path directory = Files.createTempDirectory("workflow_journal_");
+        Path journalFile = directory.resolve("transitions.journal");
+        Path snapshotFile = directory.resolve("markings.snapshot");
+        InMemoryMarkingStore markingStore = new InMemoryMarkingStore(definition, SUBJECT_ID_EXTRACTOR);
+        Workflow workflow = new Workflow(definition, markingStore, "workflow_name", new EventDispatcher());
+
+        try (TransitionJournal journal = new TransitionJournal(journalFile, definition, JOURNAL_SUBJECT_ID_EXTRACTOR)) {
+            journal.register(workflow);
+
+            workflow.apply(1L, "t1");
+            workflow.apply(2L, "t1");
+            journal.snapshot(markingStore, snapshotFile);
+
+            workflow.apply(1L, "t2");
+            workflow.apply(3L, "t1");
+        }
+
+        // a record torn by a crash is ignored
+        Files.write(journalFile, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+        InMemoryMarkingStore replayedMarkingStore = new InMemoryMarkingStore(definition, SUBJECT_ID_EXTRACTOR);
+        assertEquals(2, new JournalReplayer(definition).replay(snapshotFile, journalFile, replayedMarkingStore));
+
+        assertEquals(List.of("d"), replayedMarkingStore.getMarking(1L).getPlaces());
+        assertEquals(List.of("b", "c"), replayedMarkingStore.getMarking(2L).getPlaces());
+        assertEquals(List.of("b", "c"), replayedMarkingStore.getMarking(3L).getPlaces());
+    }
+
+    @Test
+    void testSnapshotKeepsSubjectIdTypes() throws IOException {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace();
+        Path snapshotFile = Files.createTempDirectory("workflow_journal_").resolve("markings.snapshot");
+        InMemoryMarkingStore markingStore = new InMemoryMarkingStore(definition, SUBJECT_ID_EXTRACTOR);
+        UUID uuid = UUID.randomUUID();
+        markingStore.setMarking(7L, new Marking(List.of("b")));
+        markingStore.setMarking("order-7", new Marking(List.of("c")));
+        markingStore.setMarking(uuid, new Marking(List.of("d")));
+
+        MarkingSnapshot.write(snapshotFile, markingStore, 40);
+
+        InMemoryMarkingStore snapshotMarkingStore = new InMemoryMarkingStore(definition, SUBJECT_ID_EXTRACTOR);
+        assertEquals(40, MarkingSnapshot.read(snapshotFile, snapshotMarkingStore));
+        assertEquals(3, snapshotMarkingStore.size());
+        assertEquals(List.of("b"), snapshotMarkingStore.getMarking(7L).getPlaces());
+        assertEquals(List.of("c"), snapshotMarkingStore.getMarking("order-7").getPlaces());
+        assertEquals(List.of("d"), snapshotMarkingStore.getMarking(uuid).getPlaces());
+    }
+
+    @Test
+    void testSnapshotWithUnsupportedSubjectId() throws IOException {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace();
+        Path directory = Files.createTempDirectory("workflow_journal_");
+        Path snapshotFile = directory.resolve("markings.snapshot");
+        InMemoryMarkingStore markingStore = new InMemoryMarkingStore(definition, SUBJECT_ID_EXTRACTOR);
+        markingStore.setMarking(7, new Marking(List.of("b")));
+
+        Throwable exception = assertThrows(SnapshotSubjectIdNotSupportedException.class, () -> MarkingSnapshot.write(snapshotFile, markingStore, 0));
+        assertEquals("The subject id 7 of type java.lang.Integer can't be written to a snapshot, only Long, String and UUID ids are supported.", exception.getMessage());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testEveryRecordIsWrittenOnAppend() throws IOException {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace();
+        Path journalFile = Files.createTempDirectory("workflow_journal_").resolve("transitions.journal");
+
+        try (TransitionJournal journal = new TransitionJournal(journalFile, definition, JOURNAL_SUBJECT_ID_EXTRACTOR)) {
+            assertEquals(1, journal.getForceInterval());
+
+            journal.append(1L, 0);
+            assertEquals(TransitionJournal.RECORD_SIZE, Files.size(journalFile));
+
+            journal.append(1L, 1);
+            assertEquals(2 * TransitionJournal.RECORD_SIZE, Files.size(journalFile));
+        }
+    }
+
+    @Test
+    void testRecordsAreWrittenInGroups() throws IOException {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace();
+        Path journalFile = Files.createTempDirectory("workflow_journal_").resolve("transitions.journal");
+
+        try (TransitionJournal journal = new TransitionJournal(journalFile, definition, JOURNAL_SUBJECT_ID_EXTRACTOR, System::currentTimeMillis, 3)) {
+            journal.append(1L, 0);
+            journal.append(2L, 0);
+            assertEquals(0, Files.size(journalFile));
+
+            journal.append(3L, 0);
+            assertEquals(3 * TransitionJournal.RECORD_SIZE, Files.size(journalFile));
+
+            journal.append(4L, 0);
+        }
+
+        assertEquals(4 * TransitionJournal.RECORD_SIZE, Files.size(journalFile));
+        try (TransitionJournal journal = new TransitionJournal(journalFile, definition, JOURNAL_SUBJECT_ID_EXTRACTOR, System::currentTimeMillis, Integer.MAX_VALUE)) {
+            assertEquals(4096, journal.getForceInterval());
+        }
+    }
+
+    @Test
+    void testSnapshotIsWrittenEverySnapshotInterval() throws IOException {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace();
+        Path directory = Files.createTempDirectory("workflow_journal_");
+        Path journalFile = directory.resolve("transitions.journal");
+        Path snapshotFile = directory.resolve("markings.snapshot");
+        InMemoryMarkingStore markingStore = new InMemoryMarkingStore(definition, SUBJECT_ID_EXTRACTOR);
+        Workflow workflow = new Workflow(definition, markingStore, "workflow_name", new EventDispatcher());
+
+        try (TransitionJournal journal = new TransitionJournal(journalFile, definition, JOURNAL_SUBJECT_ID_EXTRACTOR)) {
+            journal.register(workflow);
+            journal.setSnapshotInterval(2, markingStore, snapshotFile);
+
+            workflow.apply(1L, "t1");
+            assertFalse(Files.exists(snapshotFile));
+
+            workflow.apply(2L, "t1");
+            assertTrue(Files.exists(snapshotFile));
+
+            workflow.apply(1L, "t2");
+        }
+
+        InMemoryMarkingStore snapshotMarkingStore = new InMemoryMarkingStore(definition, SUBJECT_ID_EXTRACTOR);
+        assertEquals(2 * TransitionJournal.RECORD_SIZE, MarkingSnapshot.read(snapshotFile, snapshotMarkingStore));
+        assertEquals(List.of("b", "c"), snapshotMarkingStore.getMarking(1L).getPlaces());
+
+        InMemoryMarkingStore replayedMarkingStore = new InMemoryMarkingStore(definition, SUBJECT_ID_EXTRACTOR);
+        assertEquals(1, new JournalReplayer(definition).replay(snapshotFile, journalFile, replayedMarkingStore));
+        assertEquals(List.of("d"), replayedMarkingStore.getMarking(1L).getPlaces());
+        assertEquals(List.of("b", "c"), replayedMarkingStore.getMarking(2L).getPlaces());
+    }
+
+    @Test
+    void testReopenCutsOffTornRecord() throws IOException {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace();
+        Path journalFile = Files.createTempDirectory("workflow_journal_").resolve("transitions.journal");
+
+        try (TransitionJournal journal = new TransitionJournal(journalFile, definition, JOURNAL_SUBJECT_ID_EXTRACTOR)) {
+            journal.append(1L, 0);
+        }
+        Files.write(journalFile, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (TransitionJournal journal = new TransitionJournal(journalFile, definition, JOURNAL_SUBJECT_ID_EXTRACTOR)) {
+            journal.append(1L, 1);
+
+            assertEquals(2 * TransitionJournal.RECORD_SIZE, journal.getPosition());
+        }
+    }
+}
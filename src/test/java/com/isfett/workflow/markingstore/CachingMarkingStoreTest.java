@@ -0,0 +1,191 @@
+package com.isfett.workflow.markingstore;
+
+import com.isfett.workflow.Definition;
+import com.isfett.workflow.Marking;
+import com.isfett.workflow.Workflow;
+import com.isfett.workflow.WorkflowTestHelper;
+import com.isfett.workflow.WorkflowTestHelper.MultiStatePropertySubject;
+import com.isfett.workflow.exception.InvalidMarkingStoreSizeException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingMarkingStoreTest {
+    @Test
+    void testGetMarkingIsCached() {
+        MultiStatePropertySubject subject = new MultiStatePropertySubject();
+        subject.status = List.of("a");
+        CachingMarkingStore markingStore = new CachingMarkingStore(new PropertyMarkingStore("status"), 10);
+
+        assertEquals(List.of("a"), markingStore.getMarking(subject).getPlaces());
+        assertEquals(0, markingStore.getHitCount());
+        assertEquals(1, markingStore.getMissCount());
+
+        // a change bypassing the cache is not seen until the subject is invalidated
+        subject.status = List.of("b");
+        assertEquals(List.of("a"), markingStore.getMarking(subject).getPlaces());
+        assertEquals(1, markingStore.getHitCount());
+
+        markingStore.invalidate(subject);
+        assertEquals(List.of("b"), markingStore.getMarking(subject).getPlaces());
+        assertEquals(2, markingStore.getMissCount());
+    }
+
+    @Test
+    void testSetMarkingWritesThroughAndInvalidates() {
+        MultiStatePropertySubject subject = new MultiStatePropertySubject();
+        subject.status = List.of("a");
+        CachingMarkingStore markingStore = new CachingMarkingStore(new PropertyMarkingStore("status"), 10);
+
+        markingStore.getMarking(subject);
+        markingStore.setMarking(subject, new Marking(List.of("c")));
+
+        assertEquals(List.of("c"), subject.status);
+        assertEquals(0, markingStore.size());
+        assertEquals(List.of("c"), markingStore.getMarking(subject).getPlaces());
+
+        markingStore.setMarkings(Map.of(subject, new Marking(List.of("d"))));
+        assertEquals(List.of("d"), markingStore.getMarking(subject).getPlaces());
+    }
+
+    @Test
+    void testGetMarkingIsCachedBySubjectId() {
+        Function<Object, Object> subjectIdExtractor = (Object subject) -> ((Order) subject).id;
+        InMemoryMarkingStore inMemoryMarkingStore = new InMemoryMarkingStore(WorkflowTestHelper.createComplexWorkflowDefinition(), subjectIdExtractor);
+        CachingMarkingStore markingStore = new CachingMarkingStore(inMemoryMarkingStore, 10, subjectIdExtractor);
+        inMemoryMarkingStore.setMarking(new Order(1), new Marking(List.of("a")));
+
+        // every request loads its own instance of the same order
+        markingStore.getMarking(new Order(1));
+        assertEquals(List.of("a"), markingStore.getMarking(new Order(1)).getPlaces());
+        assertEquals(1, markingStore.getHitCount());
+        assertEquals(1, markingStore.size());
+
+        markingStore.setMarking(new Order(1), new Marking(List.of("b")));
+        assertEquals(0, markingStore.size());
+        assertEquals(List.of("b"), markingStore.getMarking(new Order(1)).getPlaces());
+    }
+
+    @Test
+    void testMarkingLoadedDuringWriteIsNotCached() throws InterruptedException {
+        CountDownLatch writeStarted = new CountDownLatch(1);
+        CountDownLatch staleMarkingLoaded = new CountDownLatch(1);
+        CountDownLatch writeFinished = new CountDownLatch(1);
+        AtomicReference<Marking> storedMarking = new AtomicReference<>(new Marking(List.of("a")));
+
+        // the reader loads the old marking while the write is running and caches it only after the write returned
+        MarkingStoreInterface slowMarkingStore = new MarkingStoreInterface() {
+            @Override
+            public Marking getMarking(Object subject) {
+                Marking marking = storedMarking.get();
+                staleMarkingLoaded.countDown();
+                await(writeFinished);
+
+                return marking;
+            }
+
+            @Override
+            public void setMarking(Object subject, Marking marking) {
+                writeStarted.countDown();
+                await(staleMarkingLoaded);
+                storedMarking.set(marking);
+            }
+
+            @Override
+            public Boolean isSingleState() {
+                return false;
+            }
+        };
+        CachingMarkingStore markingStore = new CachingMarkingStore(slowMarkingStore, 10);
+
+        Thread writer = new Thread(() -> markingStore.setMarking("subject", new Marking(List.of("b"))));
+        writer.start();
+        await(writeStarted);
+
+        Thread reader = new Thread(() -> markingStore.getMarking("subject"));
+        reader.start();
+        writer.join();
+        writeFinished.countDown();
+        reader.join();
+
+        assertEquals(0, markingStore.size());
+        assertEquals(List.of("b"), markingStore.getMarking("subject").getPlaces());
+    }
+
+    @Test
+    void testCachedMarkingIsCopied() {
+        MultiStatePropertySubject subject = new MultiStatePropertySubject();
+        subject.status = List.of("a");
+        CachingMarkingStore markingStore = new CachingMarkingStore(new PropertyMarkingStore("status"), 10);
+
+        markingStore.getMarking(subject).mark("b");
+        markingStore.getMarking(subject).mark("c");
+
+        assertEquals(List.of("a"), markingStore.getMarking(subject).getPlaces());
+    }
+
+    @Test
+    void testLeastRecentlyUsedMarkingIsEvicted() {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinition();
+        InMemoryMarkingStore inMemoryMarkingStore = new InMemoryMarkingStore(definition, Function.identity());
+        CachingMarkingStore markingStore = new CachingMarkingStore(inMemoryMarkingStore, 2);
+
+        markingStore.getMarking("first");
+        markingStore.getMarking("second");
+        markingStore.getMarking("first");
+        markingStore.getMarking("third");
+        markingStore.invalidateAll();
+        assertEquals(0, markingStore.size());
+
+        CachingMarkingStore singleSegmentMarkingStore = new CachingMarkingStore(inMemoryMarkingStore, 1);
+        singleSegmentMarkingStore.getMarking("first");
+        singleSegmentMarkingStore.getMarking("second");
+        singleSegmentMarkingStore.getMarking("second");
+        singleSegmentMarkingStore.getMarking("first");
+
+        assertEquals(1, singleSegmentMarkingStore.size());
+        assertEquals(1, singleSegmentMarkingStore.getHitCount());
+        assertEquals(3, singleSegmentMarkingStore.getMissCount());
+
+        Throwable exception = assertThrows(InvalidMarkingStoreSizeException.class, () -> new CachingMarkingStore(inMemoryMarkingStore, 0));
+        assertEquals("The maximum size of the marking store must be greater than 0, 0 given.", exception.getMessage());
+    }
+
+    @Test
+    void testApplyWithWorkflow() {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace();
+        CachingMarkingStore markingStore = new CachingMarkingStore(new InMemoryMarkingStore(definition, Function.identity()), 100);
+        Workflow workflow = new Workflow(definition, markingStore);
+
+        workflow.apply("subject", "t1");
+        assertTrue(workflow.can("subject", "t2"));
+        assertEquals("t2", workflow.getEnabledTransitions("subject").get(0).getName());
+        workflow.apply("subject", "t2");
+
+        assertEquals(List.of("d"), workflow.getMarking("subject").getPlaces());
+        assertTrue(markingStore.getHitCount() > 0);
+    }
+
+    private static final class Order {
+        private final long id;
+
+        private Order(long id) {
+            this.id = id;
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.isfett.workflow.markingstore;
+
+import com.isfett.workflow.BitSetMarking;
+import com.isfett.workflow.Definition;
+import com.isfett.workflow.Marking;
+import com.isfett.workflow.Workflow;
+import com.isfett.workflow.WorkflowTestHelper;
+import com.isfett.workflow.exception.InvalidMarkingStoreSizeException;
+import com.isfett.workflow.exception.PlaceNotFoundInDefinitionException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryMarkingStoreTest {
+    private static final Function<Object, Object> SUBJECT_ID_EXTRACTOR = (Object subject) -> ((Subject) subject).id;
+
+    @Test
+    void testGetSetMarking() {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinition();
+        InMemoryMarkingStore markingStore = new InMemoryMarkingStore(definition, SUBJECT_ID_EXTRACTOR);
+
+        assertFalse(markingStore.isSingleState());
+        assertTrue(markingStore.getMarking(new Subject(1)).isEmpty());
+
+        markingStore.setMarking(new Subject(1), new Marking(List.of("c", "b")));
+
+        assertEquals(List.of("b", "c"), markingStore.getMarking(new Subject(1)).getPlaces());
+        assertTrue(markingStore.getMarking(new Subject(2)).isEmpty());
+        assertEquals(1, markingStore.size());
+
+        markingStore.removeMarking(new Subject(1));
+        assertEquals(0, markingStore.size());
+    }
+
+    @Test
+    void testStoredMarkingIsCopied() {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinition();
+        InMemoryMarkingStore markingStore = new InMemoryMarkingStore(definition, SUBJECT_ID_EXTRACTOR);
+        BitSetMarking marking = new BitSetMarking(definition, List.of("a"));
+
+        markingStore.setMarking(new Subject(1), marking);
+        marking.mark("b");
+        markingStore.getMarking(new Subject(1)).mark("c");
+
+        assertEquals(List.of("a"), markingStore.getMarking(new Subject(1)).getPlaces());
+    }
+
+    @Test
+    void testSetMarkingWithSingleState() {
+        InMemoryMarkingStore markingStore = new InMemoryMarkingStore(WorkflowTestHelper.createComplexWorkflowDefinition(), SUBJECT_ID_EXTRACTOR, true);
+
+        assertTrue(markingStore.isSingleState());
+
+        markingStore.setMarking(new Subject(1), new Marking(List.of("b", "c")));
+
+        assertEquals(List.of("c"), markingStore.getMarking(new Subject(1)).getPlaces());
+    }
+
+    @Test
+    void testSetMarkingWithUnknownPlace() {
+        InMemoryMarkingStore markingStore = new InMemoryMarkingStore(WorkflowTestHelper.createComplexWorkflowDefinition(), SUBJECT_ID_EXTRACTOR);
+
+        Throwable exception = assertThrows(PlaceNotFoundInDefinitionException.class, () -> markingStore.setMarking(new Subject(1), new Marking(List.of("x"))));
+        assertEquals("Place x does not exist in the definition.", exception.getMessage());
+    }
+
+    @Test
+    void testCompareAndSetMarking() {
+        InMemoryMarkingStore markingStore = new InMemoryMarkingStore(WorkflowTestHelper.createComplexWorkflowDefinition(), SUBJECT_ID_EXTRACTOR);
+        Subject subject = new Subject(1);
+
+        assertEquals(0, markingStore.getVersionedMarking(subject).getVersion());
+        assertTrue(markingStore.compareAndSetMarking(subject, 0, new Marking(List.of("a"))));
+        assertFalse(markingStore.compareAndSetMarking(subject, 0, new Marking(List.of("b"))));
+        assertEquals(1, markingStore.getVersionedMarking(subject).getVersion());
+
+        markingStore.setMarking(subject, new Marking(List.of("d")));
+        assertFalse(markingStore.compareAndSetMarking(subject, 1, new Marking(List.of("b"))));
+        assertTrue(markingStore.compareAndSetMarking(subject, 2, new Marking(List.of("e"))));
+
+        VersionedMarking versionedMarking = markingStore.getVersionedMarking(subject);
+        assertEquals(3, versionedMarking.getVersion());
+        assertEquals(List.of("e"), versionedMarking.getMarking().getPlaces());
+    }
+
+    @Test
+    void testMaxSizeEvictsOldestSubjects() {
+        InMemoryMarkingStore markingStore = new InMemoryMarkingStore(WorkflowTestHelper.createComplexWorkflowDefinition(), SUBJECT_ID_EXTRACTOR, false, 2);
+
+        markingStore.setMarking(new Subject(1), new Marking(List.of("a")));
+        markingStore.setMarking(new Subject(2), new Marking(List.of("b")));
+        markingStore.setMarking(new Subject(1), new Marking(List.of("c")));
+        markingStore.compareAndSetMarking(new Subject(3), 0, new Marking(List.of("d")));
+
+        assertEquals(2, markingStore.size());
+        assertTrue(markingStore.getMarking(new Subject(1)).isEmpty());
+        assertEquals(List.of("b"), markingStore.getMarking(new Subject(2)).getPlaces());
+        assertEquals(List.of("d"), markingStore.getMarking(new Subject(3)).getPlaces());
+
+        Throwable exception = assertThrows(InvalidMarkingStoreSizeException.class, () -> new InMemoryMarkingStore(WorkflowTestHelper.createComplexWorkflowDefinition(), SUBJECT_ID_EXTRACTOR, false, 0));
+        assertEquals("The maximum size of the marking store must be greater than 0, 0 given.", exception.getMessage());
+    }
+
+    @Test
+    void testRemovedSubjectsLeaveTheEvictionOrder() {
+        InMemoryMarkingStore markingStore = new InMemoryMarkingStore(WorkflowTestHelper.createComplexWorkflowDefinition(), SUBJECT_ID_EXTRACTOR, false, 2);
+
+        markingStore.setMarking(new Subject(1), new Marking(List.of("a")));
+        markingStore.removeMarking(new Subject(1));
+        markingStore.setMarking(new Subject(2), new Marking(List.of("b")));
+        markingStore.setMarking(new Subject(1), new Marking(List.of("c")));
+        markingStore.setMarking(new Subject(3), new Marking(List.of("d")));
+
+        assertEquals(2, markingStore.size());
+        assertTrue(markingStore.getMarking(new Subject(2)).isEmpty());
+        assertEquals(List.of("c"), markingStore.getMarking(new Subject(1)).getPlaces());
+        assertEquals(List.of("d"), markingStore.getMarking(new Subject(3)).getPlaces());
+    }
+
+    @Test
+    void testVersionIsNotReusedAfterRemove() {
+        InMemoryMarkingStore markingStore = new InMemoryMarkingStore(WorkflowTestHelper.createComplexWorkflowDefinition(), SUBJECT_ID_EXTRACTOR);
+        Subject subject = new Subject(1);
+
+        assertTrue(markingStore.compareAndSetMarking(subject, 0, new Marking(List.of("a"))));
+        long version = markingStore.getVersionedMarking(subject).getVersion();
+        markingStore.removeMarking(subject);
+        assertTrue(markingStore.compareAndSetMarking(subject, 0, new Marking(List.of("b"))));
+
+        assertNotEquals(version, markingStore.getVersionedMarking(subject).getVersion());
+        assertFalse(markingStore.compareAndSetMarking(subject, version, new Marking(List.of("c"))));
+        assertEquals(List.of("b"), markingStore.getMarking(subject).getPlaces());
+    }
+
+    @Test
+    void testApplyWithWorkflow() {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace();
+        InMemoryMarkingStore markingStore = new InMemoryMarkingStore(definition, SUBJECT_ID_EXTRACTOR);
+        Workflow workflow = new Workflow(definition, markingStore);
+
+        workflow.apply(new Subject(1), "t1");
+        workflow.apply(new Subject(1), "t2");
+
+        assertEquals(List.of("d"), workflow.getMarking(new Subject(1)).getPlaces());
+        assertEquals(List.of("a"), workflow.getMarking(new Subject(2)).getPlaces());
+        assertEquals(3, markingStore.getVersionedMarking(new Subject(1)).getVersion());
+    }
+
+    private static final class Subject {
+        private final long id;
+
+        private Subject(long id) {
+            this.id = id;
+        }
+    }
+}
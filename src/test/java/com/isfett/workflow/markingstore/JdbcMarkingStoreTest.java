@@ -0,0 +1,189 @@
+package com.isfett.workflow.markingstore;
+
+import com.isfett.workflow.Definition;
+import com.isfett.workflow.Marking;
+import com.isfett.workflow.Workflow;
+import com.isfett.workflow.WorkflowTestHelper;
+import com.isfett.workflow.exception.InvalidTableNameException;
+import com.isfett.workflow.exception.JdbcMarkingStoreException;
+import com.isfett.workflow.exception.MarkingTooLargeForJdbcMarkingStoreException;
+import com.isfett.workflow.exception.PlaceNotStorableInJdbcMarkingStoreException;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcMarkingStoreTest {
+    private static final Function<Object, String> SUBJECT_ID_EXTRACTOR = Object::toString;
+
+    private JdbcDataSource dataSource;
+    private JdbcMarkingStore markingStore;
+
+    @BeforeEach
+    void setUp() {
+        this.dataSource = new JdbcDataSource();
+        this.dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        this.markingStore = new JdbcMarkingStore(this.dataSource, "workflow_marking", SUBJECT_ID_EXTRACTOR);
+        this.markingStore.createTable();
+    }
+
+    @Test
+    void testGetSetMarking() {
+        assertFalse(this.markingStore.isSingleState());
+        assertTrue(this.markingStore.getMarking("order-1").isEmpty());
+
+        this.markingStore.setMarking("order-1", new Marking(List.of("b", "c")));
+        assertEquals(List.of("b", "c"), this.markingStore.getMarking("order-1").getPlaces());
+        assertEquals(1, this.markingStore.getVersionedMarking("order-1").getVersion());
+
+        this.markingStore.setMarking("order-1", new Marking(List.of("d")));
+        assertEquals(List.of("d"), this.markingStore.getMarking("order-1").getPlaces());
+        assertEquals(2, this.markingStore.getVersionedMarking("order-1").getVersion());
+    }
+
+    @Test
+    void testSetMarkingWithSingleState() {
+        JdbcMarkingStore singleStateMarkingStore = new JdbcMarkingStore(this.dataSource, "workflow_marking", SUBJECT_ID_EXTRACTOR, true);
+
+        assertTrue(singleStateMarkingStore.isSingleState());
+
+        singleStateMarkingStore.setMarking("order-1", new Marking(List.of("b", "c")));
+
+        assertEquals(List.of("c"), singleStateMarkingStore.getMarking("order-1").getPlaces());
+    }
+
+    @Test
+    void testSetMarkingsUpdatesAndInsertsInBatches() {
+        this.markingStore.setMarking("order-1", new Marking(List.of("a")));
+
+        Map<Object, Marking> markings = new LinkedHashMap<>();
+        markings.put("order-1", new Marking(List.of("b")));
+        markings.put("order-2", new Marking(List.of("c")));
+        markings.put("order-3", new Marking(List.of("d", "e")));
+        this.markingStore.setMarkings(markings);
+
+        assertEquals(List.of("b"), this.markingStore.getMarking("order-1").getPlaces());
+        assertEquals(2, this.markingStore.getVersionedMarking("order-1").getVersion());
+        assertEquals(List.of("c"), this.markingStore.getMarking("order-2").getPlaces());
+        assertEquals(1, this.markingStore.getVersionedMarking("order-2").getVersion());
+        assertEquals(List.of("d", "e"), this.markingStore.getMarking("order-3").getPlaces());
+    }
+
+    @Test
+    void testSetMarkingsInsertsRowsWithUnknownUpdateCounts() {
+        JdbcMarkingStore noInfoMarkingStore = new JdbcMarkingStore(createNoInfoProxy(DataSource.class, this.dataSource), "workflow_marking", SUBJECT_ID_EXTRACTOR);
+        this.markingStore.setMarking("order-1", new Marking(List.of("a")));
+
+        Map<Object, Marking> markings = new LinkedHashMap<>();
+        markings.put("order-1", new Marking(List.of("b")));
+        markings.put("order-2", new Marking(List.of("c")));
+        noInfoMarkingStore.setMarkings(markings);
+
+        assertEquals(List.of("b"), this.markingStore.getMarking("order-1").getPlaces());
+        assertEquals(2, this.markingStore.getVersionedMarking("order-1").getVersion());
+        assertEquals(List.of("c"), this.markingStore.getMarking("order-2").getPlaces());
+        assertEquals(1, this.markingStore.getVersionedMarking("order-2").getVersion());
+    }
+
+    @Test
+    void testCompareAndSetMarking() {
+        assertTrue(this.markingStore.compareAndSetMarking("order-1", 0, new Marking(List.of("a"))));
+        assertFalse(this.markingStore.compareAndSetMarking("order-1", 0, new Marking(List.of("b"))));
+        assertFalse(this.markingStore.compareAndSetMarking("order-1", 2, new Marking(List.of("b"))));
+        assertTrue(this.markingStore.compareAndSetMarking("order-1", 1, new Marking(List.of("b"))));
+
+        VersionedMarking versionedMarking = this.markingStore.getVersionedMarking("order-1");
+        assertEquals(2, versionedMarking.getVersion());
+        assertEquals(List.of("b"), versionedMarking.getMarking().getPlaces());
+    }
+
+    @Test
+    void testApplyWithWorkflow() {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace();
+        Workflow workflow = new Workflow(definition, this.markingStore);
+
+        workflow.apply("order-1", "t1");
+        workflow.apply("order-1", "t2");
+
+        assertEquals(List.of("d"), workflow.getMarking("order-1").getPlaces());
+        assertEquals(3, this.markingStore.getVersionedMarking("order-1").getVersion());
+        assertEquals(0, workflow.getApplyRetryCount());
+    }
+
+    @Test
+    void testPlaceWithCommaIsRejected() {
+        this.markingStore.setMarking("order-1", new Marking(List.of("a")));
+
+        Throwable exception = assertThrows(PlaceNotStorableInJdbcMarkingStoreException.class, () -> this.markingStore.setMarking("order-1", new Marking(List.of("b", "c,d"))));
+        assertEquals("The place c,d contains a comma and can't be stored in table workflow_marking.", exception.getMessage());
+        assertThrows(PlaceNotStorableInJdbcMarkingStoreException.class, () -> this.markingStore.compareAndSetMarking("order-1", 1, new Marking(List.of("c,d"))));
+
+        assertEquals(List.of("a"), this.markingStore.getMarking("order-1").getPlaces());
+        assertEquals(1, this.markingStore.getVersionedMarking("order-1").getVersion());
+    }
+
+    @Test
+    void testTooLargeMarkingIsRejected() {
+        Marking marking = new Marking(List.of("a".repeat(2000), "b".repeat(2000)));
+
+        Throwable exception = assertThrows(MarkingTooLargeForJdbcMarkingStoreException.class, () -> this.markingStore.setMarking("order-1", marking));
+        assertEquals("The marking needs 4001 characters but table workflow_marking stores at most 4000.", exception.getMessage());
+        assertTrue(this.markingStore.getMarking("order-1").isEmpty());
+
+
+        this.markingStore.setMarking("order-1", new Marking(List.of("a".repeat(4000))));
+        assertEquals(List.of("a".repeat(4000)), this.markingStore.getMarking("order-1").getPlaces());
+    }
+
+    @Test
+    void testInvalidTableName() {
+        Throwable exception = assertThrows(InvalidTableNameException.class, () -> new JdbcMarkingStore(this.dataSource, "marking; DROP TABLE x", SUBJECT_ID_EXTRACTOR));
+        assertEquals("The table name marking; DROP TABLE x is not a valid SQL identifier.", exception.getMessage());
+    }
+
+    @Test
+    void testMissingTable() {
+        JdbcMarkingStore missingTableMarkingStore = new JdbcMarkingStore(this.dataSource, "missing_table", SUBJECT_ID_EXTRACTOR);
+
+        Throwable exception = assertThrows(JdbcMarkingStoreException.class, () -> missingTableMarkingStore.getMarking("order-1"));
+        assertEquals("The markings in table missing_table can't be read or written.", exception.getMessage());
+    }
+
+    // reports every batch like the drivers that can't tell how many rows a batched statement changed
+    @SuppressWarnings("unchecked")
+    private static <T> T createNoInfoProxy(Class<T> type, T target) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (Object proxy, Method method, Object[] arguments) -> {
+            Object result;
+            try {
+                result = method.invoke(target, arguments);
+            } catch (InvocationTargetException exception) {
+                throw exception.getCause();
+            }
+
+            if (result instanceof int[] updateCounts && "executeBatch".equals(method.getName())) {
+                Arrays.fill(updateCounts, Statement.SUCCESS_NO_INFO);
+            } else if (result instanceof PreparedStatement statement) {
+                return createNoInfoProxy(PreparedStatement.class, statement);
+            } else if (result instanceof Connection connection) {
+                return createNoInfoProxy(Connection.class, connection);
+            }
+
+            return result;
+        });
+    }
+}
@@ -0,0 +1,156 @@
+package com.isfett.workflow.markingstore;
+
+import com.isfett.workflow.Definition;
+import com.isfett.workflow.Marking;
+import com.isfett.workflow.Workflow;
+import com.isfett.workflow.WorkflowTestHelper;
+import com.isfett.workflow.exception.InvalidMarkingStoreFileSizeException;
+import com.isfett.workflow.exception.MarkingStoreFileException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedFileMarkingStoreTest {
+    private static final ToLongFunction<Object> SUBJECT_INDEX_EXTRACTOR = (Object subject) -> (Long) subject;
+
+    @Test
+    void testGetSetMarkingSurvivesReopen() throws IOException {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinition();
+        Path slotFile = Files.createTempDirectory("workflow_markings_").resolve("markings.slots");
+
+        try (MappedFileMarkingStore markingStore = new MappedFileMarkingStore(definition, SUBJECT_INDEX_EXTRACTOR, 100, slotFile)) {
+            assertTrue(markingStore.getMarking(5L).isEmpty());
+
+            markingStore.setMarking(5L, new Marking(List.of("b", "c")));
+            markingStore.setMarking(99L, new Marking(List.of("g")));
+
+            assertEquals(List.of("b", "c"), markingStore.getMarking(5L).getPlaces());
+            assertTrue(Files.size(markingStore.getLogFile()) > 0);
+        }
+
+        assertEquals(100 * Long.BYTES, Files.size(slotFile));
+
+        try (MappedFileMarkingStore markingStore = new MappedFileMarkingStore(definition, SUBJECT_INDEX_EXTRACTOR, 100, slotFile)) {
+            assertEquals(List.of("b", "c"), markingStore.getMarking(5L).getPlaces());
+            assertEquals(List.of("g"), markingStore.getMarking(99L).getPlaces());
+            assertEquals(0, Files.size(markingStore.getLogFile()));
+        }
+    }
+
+    @Test
+    void testForceTruncatesLog() throws IOException {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinition();
+        Path slotFile = Files.createTempDirectory("workflow_markings_").resolve("markings.slots");
+
+        try (MappedFileMarkingStore markingStore = new MappedFileMarkingStore(definition, SUBJECT_INDEX_EXTRACTOR, false, 10, slotFile, 2)) {
+            markingStore.setMarking(1L, new Marking(List.of("a")));
+            assertTrue(Files.size(markingStore.getLogFile()) > 0);
+
+            markingStore.setMarking(2L, new Marking(List.of("b")));
+            assertEquals(0, Files.size(markingStore.getLogFile()));
+        }
+    }
+
+    @Test
+    void testLogIsReplayedOnOpen() throws IOException {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinition();
+        Path slotFile = Files.createTempDirectory("workflow_markings_").resolve("markings.slots");
+        byte[] log;
+
+        try (MappedFileMarkingStore markingStore = new MappedFileMarkingStore(definition, SUBJECT_INDEX_EXTRACTOR, 10, slotFile)) {
+            markingStore.setMarking(3L, new Marking(List.of("d")));
+            markingStore.setMarking(4L, new Marking(List.of("e")));
+            log = Files.readAllBytes(markingStore.getLogFile());
+        }
+
+        // simulate a crash that lost the slot writes but kept the redo log, plus a record torn at the end
+        Files.write(slotFile, new byte[10 * Long.BYTES]);
+        Files.write(slotFile.resolveSibling("markings.slots.log"), log);
+        Files.write(slotFile.resolveSibling("markings.slots.log"), new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (MappedFileMarkingStore markingStore = new MappedFileMarkingStore(definition, SUBJECT_INDEX_EXTRACTOR, 10, slotFile)) {
+            assertEquals(List.of("d"), markingStore.getMarking(3L).getPlaces());
+            assertEquals(List.of("e"), markingStore.getMarking(4L).getPlaces());
+            assertEquals(0, Files.size(markingStore.getLogFile()));
+        }
+    }
+
+    @Test
+    void testLogIsReplayedWithGroupCommit() throws IOException {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinition();
+        Path slotFile = Files.createTempDirectory("workflow_markings_").resolve("markings.slots");
+        byte[] log;
+
+        try (MappedFileMarkingStore markingStore = new MappedFileMarkingStore(definition, SUBJECT_INDEX_EXTRACTOR, false, 10, slotFile, 1024, 8)) {
+            assertEquals(8, markingStore.getLogForceInterval());
+
+            markingStore.setMarking(3L, new Marking(List.of("d")));
+            log = Files.readAllBytes(markingStore.getLogFile());
+        }
+
+        Files.write(slotFile, new byte[10 * Long.BYTES]);
+        Files.write(slotFile.resolveSibling("markings.slots.log"), log);
+
+        try (MappedFileMarkingStore markingStore = new MappedFileMarkingStore(definition, SUBJECT_INDEX_EXTRACTOR, 10, slotFile)) {
+            assertEquals(1, markingStore.getLogForceInterval());
+            assertEquals(List.of("d"), markingStore.getMarking(3L).getPlaces());
+        }
+    }
+
+    @Test
+    void testOpenFailureClosesSlotFile() throws IOException {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinition();
+        Path slotFile = Files.createTempDirectory("workflow_markings_").resolve("markings.slots");
+        // the log can not be opened when a directory has its name
+        Files.createDirectory(slotFile.resolveSibling("markings.slots.log"));
+        long openFileCount = countOpenFiles();
+
+        assertThrows(MarkingStoreFileException.class, () -> new MappedFileMarkingStore(definition, SUBJECT_INDEX_EXTRACTOR, 10, slotFile));
+        assertEquals(openFileCount, countOpenFiles());
+    }
+
+    @Test
+    void testOpenWithDifferentCapacity() throws IOException {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinition();
+        Path slotFile = Files.createTempDirectory("workflow_markings_").resolve("markings.slots");
+
+        new MappedFileMarkingStore(definition, SUBJECT_INDEX_EXTRACTOR, 10, slotFile).close();
+
+        Throwable exception = assertThrows(InvalidMarkingStoreFileSizeException.class, () -> new MappedFileMarkingStore(definition, SUBJECT_INDEX_EXTRACTOR, 20, slotFile));
+        assertEquals("The marking store file " + slotFile + " has 80 bytes, but 160 bytes are expected for this definition and capacity.", exception.getMessage());
+    }
+
+    @Test
+    void testApplyWithWorkflow() throws IOException {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace();
+        Path slotFile = Files.createTempDirectory("workflow_markings_").resolve("markings.slots");
+
+        try (MappedFileMarkingStore markingStore = new MappedFileMarkingStore(definition, SUBJECT_INDEX_EXTRACTOR, 10, slotFile)) {
+            Workflow workflow = new Workflow(definition, markingStore);
+
+            workflow.apply(1L, "t1");
+
+            assertEquals(List.of("b", "c"), workflow.getMarking(1L).getPlaces());
+        }
+    }
+
+    // only linux lists the open files of the process, elsewhere nothing is counted
+    private static long countOpenFiles() throws IOException {
+        Path openFiles = Path.of("/proc/self/fd");
+        if (!Files.isDirectory(openFiles)) {
+            return 0;
+        }
+
+        try (Stream<Path> files = Files.list(openFiles)) {
+            return files.count();
+        }
+    }
+}
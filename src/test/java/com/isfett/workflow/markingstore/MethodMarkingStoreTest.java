@@ -38,6 +38,26 @@ class MethodMarkingStoreTest {
         assertEquals(marking.getPlaces(), marking2.getPlaces());
     }
 
+    @Test
+    void testGetSetMarkingWithSingleStateForDifferentSubjectClasses() {
+        SingleStateMethodSubject subject = new SingleStateMethodSubject("first_place");
+        SingleStateMethodEnumSubject enumSubject = new SingleStateMethodEnumSubject();
+
+        MarkingStoreInterface markingStore = new MethodMarkingStore(true, "status");
+        markingStore.setMarking(enumSubject, new Marking(List.of("FIRST_PLACE")));
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(List.of("first_place"), markingStore.getMarking(subject).getPlaces());
+            assertEquals(List.of("FIRST_PLACE"), markingStore.getMarking(enumSubject).getPlaces());
+        }
+
+        markingStore.setMarking(subject, new Marking(List.of("second_place")));
+        markingStore.setMarking(enumSubject, new Marking(List.of("SECOND_PLACE")));
+
+        assertEquals("second_place", subject.getStatus());
+        assertEquals("SECOND_PLACE", enumSubject.getStatus().toString());
+    }
+
     @Test
     void testGetSetMarkingWithSingleStateAndEnum() {
         SingleStateMethodEnumSubject subject = new SingleStateMethodEnumSubject();
@@ -0,0 +1,136 @@
+package com.isfett.workflow.markingstore;
+
+import com.isfett.workflow.Definition;
+import com.isfett.workflow.Marking;
+import com.isfett.workflow.Transition;
+import com.isfett.workflow.Workflow;
+import com.isfett.workflow.WorkflowTestHelper;
+import com.isfett.workflow.exception.InvalidMarkingStoreSizeException;
+import com.isfett.workflow.exception.SubjectIndexOutOfRangeException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapMarkingStoreTest {
+    private static final ToLongFunction<Object> SUBJECT_INDEX_EXTRACTOR = (Object subject) -> (Long) subject;
+
+    @Test
+    void testGetSetMarking() {
+        OffHeapMarkingStore markingStore = new OffHeapMarkingStore(WorkflowTestHelper.createComplexWorkflowDefinition(), SUBJECT_INDEX_EXTRACTOR, 10);
+
+        assertFalse(markingStore.isSingleState());
+        assertEquals(10, markingStore.getCapacity());
+        assertTrue(markingStore.getMarking(3L).isEmpty());
+
+        markingStore.setMarking(3L, new Marking(List.of("c", "b")));
+        markingStore.setMarking(9L, new Marking(List.of("g")));
+
+        assertEquals(List.of("b", "c"), markingStore.getMarking(3L).getPlaces());
+        assertEquals(List.of("g"), markingStore.getMarking(9L).getPlaces());
+        assertTrue(markingStore.getMarking(4L).isEmpty());
+
+        markingStore.setMarking(3L, new Marking(List.of("d")));
+        assertEquals(List.of("d"), markingStore.getMarking(3L).getPlaces());
+    }
+
+    @Test
+    void testSetMarkingWithSingleState() {
+        OffHeapMarkingStore markingStore = new OffHeapMarkingStore(WorkflowTestHelper.createComplexWorkflowDefinition(), SUBJECT_INDEX_EXTRACTOR, true, 10);
+
+        assertTrue(markingStore.isSingleState());
+
+        markingStore.setMarking(0L, new Marking(List.of("b", "c")));
+
+        assertEquals(List.of("c"), markingStore.getMarking(0L).getPlaces());
+    }
+
+    @Test
+    void testGetSetMarkingWithMoreThan64Places() {
+        List<String> places = new ArrayList<>();
+        for (int i = 0; i < 130; i++) {
+            places.add("p" + i);
+        }
+        Definition definition = new Definition(places, List.of(new Transition("t", List.of("p0"), List.of("p129"))), List.of());
+        OffHeapMarkingStore markingStore = new OffHeapMarkingStore(definition, SUBJECT_INDEX_EXTRACTOR, 2);
+
+        markingStore.setMarking(1L, new Marking(List.of("p1", "p64", "p129")));
+
+        assertEquals(List.of("p1", "p64", "p129"), markingStore.getMarking(1L).getPlaces());
+        assertTrue(markingStore.getMarking(0L).isEmpty());
+    }
+
+    @Test
+    void testSubjectIndexOutOfRange() {
+        OffHeapMarkingStore markingStore = new OffHeapMarkingStore(WorkflowTestHelper.createComplexWorkflowDefinition(), SUBJECT_INDEX_EXTRACTOR, 10);
+
+        Throwable exception = assertThrows(SubjectIndexOutOfRangeException.class, () -> markingStore.getMarking(10L));
+        assertEquals("The subject index 10 is out of range, the marking store has 10 slots.", exception.getMessage());
+        assertThrows(SubjectIndexOutOfRangeException.class, () -> markingStore.setMarking(-1L, new Marking(List.of("a"))));
+        assertThrows(InvalidMarkingStoreSizeException.class, () -> new OffHeapMarkingStore(WorkflowTestHelper.createComplexWorkflowDefinition(), SUBJECT_INDEX_EXTRACTOR, 0));
+    }
+
+    @Test
+    void testApplyWithWorkflow() {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace();
+        Workflow workflow = new Workflow(definition, new OffHeapMarkingStore(definition, SUBJECT_INDEX_EXTRACTOR, 1000));
+
+        workflow.apply(42L, "t1");
+        workflow.apply(42L, "t2");
+
+        assertEquals(List.of("d"), workflow.getMarking(42L).getPlaces());
+        assertEquals(List.of("a"), workflow.getMarking(7L).getPlaces());
+    }
+
+    @Test
+    void testChunkIsCreatedOnceByRacingWriters() throws Exception {
+        AtomicInteger createdChunks = new AtomicInteger();
+        AbstractSlotMarkingStore markingStore = new AbstractSlotMarkingStore(WorkflowTestHelper.createComplexWorkflowDefinition(), SUBJECT_INDEX_EXTRACTOR, false, 10) {
+            @Override
+            protected ByteBuffer createChunk(int chunkIndex, int chunkSize) {
+                createdChunks.incrementAndGet();
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+
+                return ByteBuffer.allocate(chunkSize);
+            }
+        };
+
+        int threadCount = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long i = 0; i < threadCount; i++) {
+                long subjectIndex = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    markingStore.setMarking(subjectIndex, new Marking(List.of("a")));
+
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, createdChunks.get());
+        for (long i = 0; i < threadCount; i++) {
+            assertEquals(List.of("a"), markingStore.getMarking(i).getPlaces());
+        }
+    }
+}
@@ -37,6 +37,26 @@ class PropertyMarkingStoreTest {
         assertEquals(marking.getPlaces(), marking2.getPlaces());
     }
 
+    @Test
+    void testGetSetMarkingWithSingleStateForDifferentSubjectClasses() {
+        SingleStatePropertySubject subject = new SingleStatePropertySubject("first_place");
+        SingleStatePropertyEnumSubject enumSubject = new SingleStatePropertyEnumSubject();
+
+        MarkingStoreInterface markingStore = new PropertyMarkingStore(true, "status");
+        markingStore.setMarking(enumSubject, new Marking(List.of("FIRST_PLACE")));
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(List.of("first_place"), markingStore.getMarking(subject).getPlaces());
+            assertEquals(List.of("FIRST_PLACE"), markingStore.getMarking(enumSubject).getPlaces());
+        }
+
+        markingStore.setMarking(subject, new Marking(List.of("second_place")));
+        markingStore.setMarking(enumSubject, new Marking(List.of("SECOND_PLACE")));
+
+        assertEquals("second_place", subject.status);
+        assertEquals("SECOND_PLACE", enumSubject.status.toString());
+    }
+
     @Test
     void testGetSetMarkingWithSingleStateAndEnum() {
         SingleStatePropertyEnumSubject subject = new SingleStatePropertyEnumSubject();
@@ -0,0 +1,181 @@
+package com.isfett.workflow.markingstore;
+
+import com.isfett.workflow.Definition;
+import com.isfett.workflow.Marking;
+import com.isfett.workflow.Workflow;
+import com.isfett.workflow.WorkflowTestHelper;
+import com.isfett.workflow.exception.MarkingStoreClosedException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindMarkingStoreTest {
+    @Test
+    void testWritesAreCoalescedAndFlushedInBatches() {
+        RecordingMarkingStore markingStore = new RecordingMarkingStore();
+
+        try (WriteBehindMarkingStore writeBehindMarkingStore = new WriteBehindMarkingStore(markingStore, 3, Duration.ofHours(1))) {
+            writeBehindMarkingStore.setMarking("first", new Marking(List.of("a")));
+            writeBehindMarkingStore.setMarking("first", new Marking(List.of("b")));
+            writeBehindMarkingStore.setMarking("second", new Marking(List.of("a")));
+
+            assertEquals(2, writeBehindMarkingStore.getPendingCount());
+            assertEquals(0, markingStore.batches.size());
+            assertEquals(List.of("b"), writeBehindMarkingStore.getMarking("first").getPlaces());
+
+            writeBehindMarkingStore.setMarking("third", new Marking(List.of("c")));
+
+            assertEquals(0, writeBehindMarkingStore.getPendingCount());
+            assertEquals(1, markingStore.batches.size());
+            assertEquals(3, markingStore.batches.get(0).size());
+            assertEquals(List.of("b"), markingStore.getMarking("first").getPlaces());
+            assertEquals(List.of("b"), writeBehindMarkingStore.getMarking("first").getPlaces());
+
+            writeBehindMarkingStore.setMarking("fourth", new Marking(List.of("d")));
+        }
+
+        assertEquals(2, markingStore.batches.size());
+        assertEquals(List.of("d"), markingStore.getMarking("fourth").getPlaces());
+    }
+
+    @Test
+    void testBufferedMarkingIsCopied() {
+        try (WriteBehindMarkingStore writeBehindMarkingStore = new WriteBehindMarkingStore(new RecordingMarkingStore(), 10, Duration.ofHours(1))) {
+            Marking marking = new Marking(List.of("a"));
+            writeBehindMarkingStore.setMarking("first", marking);
+            marking.mark("b");
+            writeBehindMarkingStore.getMarking("first").mark("c");
+
+            assertEquals(List.of("a"), writeBehindMarkingStore.getMarking("first").getPlaces());
+        }
+    }
+
+    @Test
+    void testFailedFlushIsRetried() {
+        RecordingMarkingStore markingStore = new RecordingMarkingStore();
+        markingStore.failures = 1;
+
+        try (WriteBehindMarkingStore writeBehindMarkingStore = new WriteBehindMarkingStore(markingStore, 10, Duration.ofHours(1))) {
+            writeBehindMarkingStore.setMarking("first", new Marking(List.of("a")));
+
+            assertThrows(IllegalStateException.class, writeBehindMarkingStore::flush);
+            assertEquals(1, writeBehindMarkingStore.getPendingCount());
+            assertEquals(List.of("a"), writeBehindMarkingStore.getMarking("first").getPlaces());
+
+            writeBehindMarkingStore.flush();
+            assertEquals(0, writeBehindMarkingStore.getPendingCount());
+            assertEquals(List.of("a"), markingStore.getMarking("first").getPlaces());
+        }
+    }
+
+    @Test
+    void testFailedBackgroundFlushIsHandledAndRetried() throws InterruptedException {
+        RecordingMarkingStore markingStore = new RecordingMarkingStore();
+        markingStore.failures = 1;
+        List<Map<Object, Marking>> failedMarkings = new CopyOnWriteArrayList<>();
+        List<RuntimeException> exceptions = new CopyOnWriteArrayList<>();
+
+        try (WriteBehindMarkingStore writeBehindMarkingStore = new WriteBehindMarkingStore(markingStore, 10, Duration.ofMillis(10), (Map<Object, Marking> markings, RuntimeException exception) -> {
+            failedMarkings.add(markings);
+            exceptions.add(exception);
+        })) {
+            writeBehindMarkingStore.setMarking("first", new Marking(List.of("a")));
+
+            for (int i = 0; i < 500 && (markingStore.getMarking("first").isEmpty() || exceptions.isEmpty()); i++) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(1, exceptions.size());
+            assertEquals("database is down", exceptions.get(0).getMessage());
+            assertEquals(List.of("a"), failedMarkings.get(0).get("first").getPlaces());
+            assertEquals(0, writeBehindMarkingStore.getPendingCount());
+            assertEquals(List.of("a"), markingStore.getMarking("first").getPlaces());
+        }
+    }
+
+    @Test
+    void testSetMarkingAfterClose() {
+        WriteBehindMarkingStore writeBehindMarkingStore = new WriteBehindMarkingStore(new RecordingMarkingStore(), 10, Duration.ofHours(1));
+        writeBehindMarkingStore.close();
+
+        Throwable exception = assertThrows(MarkingStoreClosedException.class, () -> writeBehindMarkingStore.setMarking("first", new Marking(List.of("a"))));
+        assertEquals("The marking store is closed, markings can not be written anymore.", exception.getMessage());
+        assertThrows(MarkingStoreClosedException.class, () -> writeBehindMarkingStore.setMarkings(Map.of("first", new Marking(List.of("a")))));
+        assertEquals(0, writeBehindMarkingStore.getPendingCount());
+    }
+
+    @Test
+    void testFlushAfterInterval() throws InterruptedException {
+        RecordingMarkingStore markingStore = new RecordingMarkingStore();
+
+        try (WriteBehindMarkingStore writeBehindMarkingStore = new WriteBehindMarkingStore(markingStore, 10, Duration.ofMillis(10))) {
+            writeBehindMarkingStore.setMarking("first", new Marking(List.of("a")));
+
+            // the pending count drops before the wrapped store got the batch, so the wrapped store is polled
+            for (int i = 0; i < 500 && markingStore.getMarking("first").isEmpty(); i++) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(0, writeBehindMarkingStore.getPendingCount());
+            assertEquals(List.of("a"), markingStore.getMarking("first").getPlaces());
+        }
+    }
+
+    @Test
+    void testApplyWithWorkflow() {
+        Definition definition = WorkflowTestHelper.createComplexWorkflowDefinitionWithInitialPlace();
+        InMemoryMarkingStore markingStore = new InMemoryMarkingStore(definition, Function.identity());
+
+        try (WriteBehindMarkingStore writeBehindMarkingStore = new WriteBehindMarkingStore(markingStore, 100, Duration.ofHours(1))) {
+            Workflow workflow = new Workflow(definition, writeBehindMarkingStore);
+
+            workflow.apply("subject", "t1");
+            workflow.apply("subject", "t2");
+
+            assertEquals(List.of("d"), workflow.getMarking("subject").getPlaces());
+            assertTrue(markingStore.getMarking("subject").isEmpty());
+        }
+
+        assertEquals(List.of("d"), markingStore.getMarking("subject").getPlaces());
+    }
+
+    private static final class RecordingMarkingStore implements MarkingStoreInterface {
+        private final Map<Object, Marking> markings = new HashMap<>();
+        private final List<Map<Object, Marking>> batches = new ArrayList<>();
+        private volatile int failures = 0;
+
+        @Override
+        public synchronized Marking getMarking(Object subject) {
+            return this.markings.getOrDefault(subject, new Marking(List.of()));
+        }
+
+        @Override
+        public synchronized void setMarking(Object subject, Marking marking) {
+            this.markings.put(subject, marking);
+        }
+
+        @Override
+        public synchronized void setMarkings(Map<Object, Marking> markings) {
+            if (this.failures > 0) {
+                this.failures--;
+                throw new IllegalStateException("database is down");
+            }
+
+            this.batches.add(markings);
+            MarkingStoreInterface.super.setMarkings(markings);
+        }
+
+        @Override
+        public Boolean isSingleState() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.isfett.workflow.ringbuffer;
+
+import com.isfett.workflow.BitSetMarking;
+import com.isfett.workflow.Workflow;
+import com.isfett.workflow.WorkflowTestHelper;
+import com.isfett.workflow.WorkflowTestHelper.MultiStateMethodSubject;
+import com.isfett.workflow.exception.InvalidRingBufferSizeException;
+import com.isfett.workflow.exception.RingBufferAlreadyStartedException;
+import com.isfett.workflow.exception.RingBufferClosedException;
+import com.isfett.workflow.markingstore.MethodMarkingStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferEventPublisherTest {
+    @Test
+    void testWorkflowPublishesEvents() {
+        RingBufferEventPublisher eventPublisher = new RingBufferEventPublisher(16);
+        List<String> handledEvents = Collections.synchronizedList(new ArrayList<>());
+        eventPublisher.addHandler((WorkflowEventSlot slot, long sequence, boolean endOfBatch) -> {
+            String transitionName = null == slot.getTransition() ? "-" : slot.getTransition().getName();
+            handledEvents.add(slot.getEvent() + " " + transitionName + " " + slot.getPlaces());
+        });
+        eventPublisher.start();
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status"));
+        workflow.setEventPublisher(eventPublisher);
+
+        workflow.apply(new MultiStateMethodSubject(), "t1");
+        eventPublisher.close();
+
+        assertEquals(List.of(
+            "ENTERED - [a]",
+            "LEAVE t1 [a]",
+            "TRANSITION t1 []",
+            "ENTER t1 []",
+            "ENTERED t1 [b, c]",
+            "COMPLETED t1 [b, c]",
+            "ANNOUNCE t1 [b, c]"
+        ), handledEvents);
+    }
+
+    @Test
+    void testOnlyConfiguredEventsArePublished() {
+        RingBufferEventPublisher eventPublisher = new RingBufferEventPublisher(16, RingBufferEventPublisher.ProducerType.SINGLE, new YieldingWaitStrategy(), EnumSet.of(Workflow.events.COMPLETED));
+        List<Workflow.events> handledEvents = Collections.synchronizedList(new ArrayList<>());
+        eventPublisher.addHandler((WorkflowEventSlot slot, long sequence, boolean endOfBatch) -> handledEvents.add(slot.getEvent()));
+        eventPublisher.start();
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status"));
+        workflow.setEventPublisher(eventPublisher);
+        MultiStateMethodSubject subject = new MultiStateMethodSubject();
+
+        workflow.apply(subject, "t1");
+        workflow.apply(subject, "t2");
+        eventPublisher.close();
+
+        assertEquals(List.of(Workflow.events.COMPLETED, Workflow.events.COMPLETED), handledEvents);
+        assertFalse(eventPublisher.isPublished(Workflow.events.LEAVE));
+    }
+
+    @Test
+    void testMultipleProducersWithBackPressure() throws InterruptedException {
+        for (WaitStrategyInterface waitStrategy : List.of(new BusySpinWaitStrategy(), new YieldingWaitStrategy(), new SleepingWaitStrategy(), new BlockingWaitStrategy())) {
+            RingBufferEventPublisher eventPublisher = new RingBufferEventPublisher(4, RingBufferEventPublisher.ProducerType.MULTI, waitStrategy);
+            Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status"));
+            int producerCount = 4;
+            int eventCount = 500;
+            int[][] lastSequences = new int[2][producerCount];
+            AtomicInteger outOfOrderCount = new AtomicInteger();
+            AtomicInteger handledCount = new AtomicInteger();
+            for (int handlerIndex = 0; handlerIndex < 2; handlerIndex++) {
+                int[] lastSequence = lastSequences[handlerIndex];
+                eventPublisher.addHandler((WorkflowEventSlot slot, long sequence, boolean endOfBatch) -> {
+                    int[] producedEvent = (int[]) slot.getSubject();
+                    if (producedEvent[1] != lastSequence[producedEvent[0]] + 1) {
+                        outOfOrderCount.incrementAndGet();
+                    }
+                    lastSequence[producedEvent[0]] = producedEvent[1];
+                    handledCount.incrementAndGet();
+                });
+            }
+            eventPublisher.start();
+
+            List<Thread> producers = new ArrayList<>();
+            for (int producer = 0; producer < producerCount; producer++) {
+                int producerIndex = producer;
+                producers.add(new Thread(() -> {
+                    BitSetMarking marking = new BitSetMarking(workflow.getDefinition(), List.of("a"));
+                    for (int i = 1; i <= eventCount; i++) {
+                        eventPublisher.publish(Workflow.events.COMPLETED, new int[]{producerIndex, i}, workflow, 0, marking);
+                    }
+                }));
+            }
+            producers.forEach(Thread::start);
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            eventPublisher.close();
+
+            assertEquals(2 * producerCount * eventCount, handledCount.get());
+            assertEquals(0, outOfOrderCount.get());
+            assertEquals(0, eventPublisher.getBacklog());
+        }
+    }
+
+    @Test
+    void testFailingHandlersAreReportedToTheExceptionHandler() {
+        RingBufferEventPublisher eventPublisher = new RingBufferEventPublisher(8, RingBufferEventPublisher.ProducerType.SINGLE, new BusySpinWaitStrategy());
+        List<RuntimeException> exceptions = Collections.synchronizedList(new ArrayList<>());
+        eventPublisher.setExceptionHandler((WorkflowEventSlot slot, RuntimeException exception) -> exceptions.add(exception));
+        AtomicInteger handledCount = new AtomicInteger();
+        eventPublisher.addHandler((WorkflowEventSlot slot, long sequence, boolean endOfBatch) -> {
+            if (0 == handledCount.getAndIncrement()) {
+                throw new IllegalStateException("nope");
+            }
+        });
+        eventPublisher.start();
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status"));
+        BitSetMarking marking = new BitSetMarking(workflow.getDefinition(), List.of("a"));
+
+        for (int i = 0; i < 20; i++) {
+            eventPublisher.publish(Workflow.events.ENTERED, new Object(), workflow, -1, marking);
+        }
+        eventPublisher.close();
+
+        assertEquals(20, handledCount.get());
+        assertEquals(1, exceptions.size());
+    }
+
+    @Test
+    void testPublishAfterClose() {
+        RingBufferEventPublisher eventPublisher = new RingBufferEventPublisher(2);
+        eventPublisher.addHandler((WorkflowEventSlot slot, long sequence, boolean endOfBatch) -> {
+        });
+        eventPublisher.start();
+        Workflow workflow = new Workflow(WorkflowTestHelper.createComplexWorkflowDefinition(), new MethodMarkingStore("status"));
+        workflow.setEventPublisher(eventPublisher);
+        eventPublisher.close();
+
+        Throwable exception = assertThrows(RingBufferClosedException.class, () -> workflow.apply(new MultiStateMethodSubject(), "t1"));
+        assertEquals("The ring buffer is closed, events can not be published anymore.", exception.getMessage());
+    }
+
+    @Test
+    void testCloseWhenInterrupted() {
+        RingBufferEventPublisher eventPublisher = new RingBufferEventPublisher(8);
+        eventPublisher.addHandler((WorkflowEventSlot slot, long sequence, boolean endOfBatch) -> {
+        });
+        eventPublisher.start();
+
+        Thread.currentThread().interrupt();
+        eventPublisher.close();
+
+        // clears the flag again for the other tests
+        assertTrue(Thread.interrupted());
+    }
+
+    @Test
+    void testInvalidBufferSize() {
+        Throwable exception = assertThrows(InvalidRingBufferSizeException.class, () -> new RingBufferEventPublisher(12));
+        assertEquals("The ring buffer size must be a power of 2, 12 given.", exception.getMessage());
+    }
+
+    @Test
+    void testAddHandlerAfterStart() {
+        RingBufferEventPublisher eventPublisher = new RingBufferEventPublisher(8);
+        eventPublisher.start();
+
+        Throwable exception = assertThrows(RingBufferAlreadyStartedException.class, () -> eventPublisher.addHandler((WorkflowEventSlot slot, long sequence, boolean endOfBatch) -> {
+        }));
+        assertEquals("The ring buffer is already started, handlers must be added before it starts.", exception.getMessage());
+        assertEquals(8, eventPublisher.getBufferSize());
+        eventPublisher.close();
+    }
+}
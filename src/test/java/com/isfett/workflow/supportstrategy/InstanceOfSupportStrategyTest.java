@@ -27,6 +27,14 @@ public class InstanceOfSupportStrategyTest {
         assertFalse(strategy.supports(this.workflow, new Object2()));
     }
 
+    @Test
+    void testSupportsIfSubclassInstance() {
+        SupportStrategyInterface strategy = new InstanceOfSupportStrategy(Object1.class);
+
+        assertFalse(strategy.supports(this.workflow, new Object1() {
+        }));
+    }
+
     public static class Object1 {
 
     }